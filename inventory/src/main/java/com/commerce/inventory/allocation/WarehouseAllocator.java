@@ -0,0 +1,100 @@
+package com.commerce.inventory.allocation;
+
+import java.util.*;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:55
+ * @package com.commerce.inventory.allocation
+ * <p>
+ * Description:
+ * 订单分仓：纯内存计算，仓库按离收货地址由近到远排好序传入。
+ * 每一轮先找能单独发完剩余全部商品的最近仓库，找到即结束；
+ * 找不到则取能覆盖剩余件数最多的仓库（同数量取更近的）先发一部分，
+ * 以尽量少的包裹数发完整单。任一商品凑不齐时返回空列表。
+ */
+public final class WarehouseAllocator {
+
+    private WarehouseAllocator() {
+    }
+
+    /**
+     * @param demand     productId → 数量
+     * @param stock      productId → (warehouseId → 可用库存)
+     * @param candidates 参与分配的仓库，按优先级（距离）排序
+     */
+    public static List<WarehousePick> plan(Map<Long, Integer> demand, Map<Long, Map<Long, Integer>> stock,
+                                           List<Long> candidates) {
+        Map<Long, Integer> remaining = new LinkedHashMap<>(demand);
+        List<Long> open = new ArrayList<>(candidates);
+        List<WarehousePick> picks = new ArrayList<>();
+
+        while (!remaining.isEmpty()) {
+            // 1️⃣ 最近的能一次发完的仓库
+            for (Long warehouseId : open) {
+                if (covers(warehouseId, remaining, stock)) {
+                    remaining.forEach((productId, quantity) ->
+                            picks.add(new WarehousePick(warehouseId, productId, quantity)));
+                    return picks;
+                }
+            }
+
+            // 2️⃣ 覆盖件数最多的仓库先发一部分
+            int best = -1;
+            long bestUnits = 0;
+            for (int i = 0; i < open.size(); i++) {
+                long units = coveredUnits(open.get(i), remaining, stock);
+                if (units > bestUnits) {
+                    best = i;
+                    bestUnits = units;
+                }
+            }
+            if (best < 0) {
+                return List.of();
+            }
+
+            Long warehouseId = open.remove(best);
+            Iterator<Map.Entry<Long, Integer>> it = remaining.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Integer> entry = it.next();
+                int quantity = Math.min(available(warehouseId, entry.getKey(), stock), entry.getValue());
+                if (quantity <= 0) {
+                    continue;
+                }
+                picks.add(new WarehousePick(warehouseId, entry.getKey(), quantity));
+                if (quantity == entry.getValue()) {
+                    it.remove();
+                } else {
+                    entry.setValue(entry.getValue() - quantity);
+                }
+            }
+        }
+        return picks;
+    }
+
+    private static boolean covers(Long warehouseId, Map<Long, Integer> remaining, Map<Long, Map<Long, Integer>> stock) {
+        for (Map.Entry<Long, Integer> entry : remaining.entrySet()) {
+            if (available(warehouseId, entry.getKey(), stock) < entry.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long coveredUnits(Long warehouseId, Map<Long, Integer> remaining,
+                                     Map<Long, Map<Long, Integer>> stock) {
+        long units = 0;
+        for (Map.Entry<Long, Integer> entry : remaining.entrySet()) {
+            units += Math.min(available(warehouseId, entry.getKey(), stock), entry.getValue());
+        }
+        return units;
+    }
+
+    private static int available(Long warehouseId, Long productId, Map<Long, Map<Long, Integer>> stock) {
+        Map<Long, Integer> byWarehouse = stock.get(productId);
+        if (byWarehouse == null) {
+            return 0;
+        }
+        return byWarehouse.getOrDefault(warehouseId, 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.commerce.inventory.allocation;
+
+import java.util.*;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:05
+ * @package com.commerce.inventory.allocation
+ * <p>
+ * Description:
+ * 一次锁库存事务内的分仓上下文：各仓可用库存的工作副本在内存中随每组（每笔订单）扣减，
+ * 分配不访问数据库；事务末尾由 WarehouseService 按 (商品, 仓库) 合并写回并登记订单分仓记录。
+ * 只处理已分仓的商品，其余商品直接跳过。
+ */
+public class WarehouseLockSession {
+
+    private final WarehouseStockIndex index;
+    private final Map<Long, Map<Long, Integer>> working;
+    private final Map<Long, Integer> versions;
+    private final Map<Long, Map<Long, Integer>> lockedDeltas = new TreeMap<>();
+    private final Map<Long, List<WarehousePick>> picksByOrder = new LinkedHashMap<>();
+
+    public WarehouseLockSession(WarehouseStockIndex index, Map<Long, Map<Long, Integer>> working,
+                                Map<Long, Integer> versions) {
+        this.index = index;
+        this.working = working;
+        this.versions = versions;
+    }
+
+    /** 为一笔订单分仓，凑不齐时不做任何扣减并返回 false */
+    public boolean reserve(Long orderId, Map<Long, Integer> demand, Double latitude, Double longitude) {
+        Map<Long, Integer> managed = new LinkedHashMap<>();
+        demand.forEach((productId, quantity) -> {
+            if (working.containsKey(productId)) {
+                managed.put(productId, quantity);
+            }
+        });
+        if (managed.isEmpty()) {
+            return true;
+        }
+
+        List<WarehousePick> picks = WarehouseAllocator.plan(managed, working, index.candidates(latitude, longitude));
+        if (picks.isEmpty()) {
+            return false;
+        }
+        for (WarehousePick pick : picks) {
+            working.get(pick.productId()).merge(pick.warehouseId(), -pick.quantity(), Integer::sum);
+            lockedDeltas.computeIfAbsent(pick.productId(), k -> new TreeMap<>())
+                    .merge(pick.warehouseId(), pick.quantity(), Integer::sum);
+        }
+        if (orderId != null) {
+            picksByOrder.computeIfAbsent(orderId, k -> new ArrayList<>()).addAll(picks);
+        }
+        return true;
+    }
+
+    /** productId → (warehouseId → 本事务锁定数量)，按 ID 排序以固定加锁顺序 */
+    public Map<Long, Map<Long, Integer>> lockedDeltas() {
+        return lockedDeltas;
+    }
+
+    public Map<Long, List<WarehousePick>> picksByOrder() {
+        return picksByOrder;
+    }
+
+    /** 提交后写回索引：主行版本在本事务内 +1 */
+    public void publishToIndex() {
+        lockedDeltas.keySet().forEach(productId ->
+                index.put(productId, versions.get(productId) + 1, working.get(productId)));
+    }
+
+    public boolean isEmpty() {
+        return lockedDeltas.isEmpty();
+    }
+}
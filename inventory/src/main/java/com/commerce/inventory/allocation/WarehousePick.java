@@ -0,0 +1,12 @@
+package com.commerce.inventory.allocation;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:52
+ * @package com.commerce.inventory.allocation
+ * <p>
+ * Description:
+ * 分配结果中的一行：从某仓库为某商品出 quantity 件
+ */
+public record WarehousePick(Long warehouseId, Long productId, int quantity) {
+}
@@ -0,0 +1,96 @@
+package com.commerce.inventory.allocation;
+
+import com.commerce.inventory.model.Warehouse;
+import com.commerce.inventory.repository.WarehouseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:00
+ * @package com.commerce.inventory.allocation
+ * <p>
+ * Description:
+ * 分仓库存的进程内索引：
+ * 1. 仓库坐标常驻内存，定时刷新（其他实例新增的仓库最多延迟一个周期）
+ * 2. 每个商品缓存各仓可用库存，并记下对应的 inventory 主行版本。
+ *    分仓变更都会同时改主行并 +1 版本，调用方持有主行行锁时版本一致即说明索引与库中一致，
+ *    不一致（其他实例改过）再从库里重新加载该商品。
+ */
+@Component
+@Slf4j
+public class WarehouseStockIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+
+    private volatile List<Warehouse> warehouses;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 某商品在某个主行版本下的各仓可用库存（只读） */
+    public record Entry(int version, Map<Long, Integer> available) {
+    }
+
+    /** 参与分配的仓库：有收货坐标时由近到远，没有坐标的仓库排在最后；无收货坐标时按仓库 ID */
+    public List<Long> candidates(Double latitude, Double longitude) {
+        List<Warehouse> active = activeWarehouses();
+        if (latitude == null || longitude == null) {
+            return active.stream().map(Warehouse::getWarehouseId).sorted().toList();
+        }
+        return active.stream()
+                .sorted(Comparator.comparingDouble(w -> distanceKm(latitude, longitude, w)))
+                .map(Warehouse::getWarehouseId)
+                .toList();
+    }
+
+    /** 版本一致时返回缓存的各仓库存，否则返回 null */
+    public Entry get(Long productId, int version) {
+        Entry entry = entries.get(productId);
+        return entry != null && entry.version() == version ? entry : null;
+    }
+
+    public void put(Long productId, int version, Map<Long, Integer> available) {
+        entries.put(productId, new Entry(version, Map.copyOf(available)));
+    }
+
+    public void evict(Long productId) {
+        entries.remove(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.warehouse.refresh-interval-ms:60000}")
+    public void refreshWarehouses() {
+        warehouses = List.copyOf(warehouseRepository.findAllByActiveTrue());
+        log.debug("[Inventory] Warehouse index refreshed → {} active warehouses", warehouses.size());
+    }
+
+    private List<Warehouse> activeWarehouses() {
+        List<Warehouse> current = warehouses;
+        if (current == null) {
+            refreshWarehouses();
+            current = warehouses;
+        }
+        return current;
+    }
+
+    private static double distanceKm(double latitude, double longitude, Warehouse warehouse) {
+        if (warehouse.getLatitude() == null || warehouse.getLongitude() == null) {
+            return Double.MAX_VALUE;
+        }
+        double dLat = Math.toRadians(warehouse.getLatitude() - latitude);
+        double dLon = Math.toRadians(warehouse.getLongitude() - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(warehouse.getLatitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
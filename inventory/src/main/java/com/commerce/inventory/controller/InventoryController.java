@@ -1,17 +1,29 @@
 package com.commerce.inventory.controller;
 
-import com.commerce.inventory.dto.InventoryRequest;
-import com.commerce.inventory.dto.InventoryResponse;
-import com.commerce.inventory.dto.StockOperationRequest;
+import com.commerce.inventory.dto.*;
 import com.commerce.inventory.model.Inventory;
 import com.commerce.inventory.service.InventoryService;
+import com.commerce.inventory.service.StockAdjustmentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Yixi Wan
@@ -23,19 +35,60 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/v1/inventories")
 class InventoryController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private InventoryService inventoryService;
+    @Autowired
+    private StockAdjustmentService stockAdjustmentService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
+    // 库存列表（keyset 分页，下一页传 after=nextCursor）
     @GetMapping
-    public ResponseEntity<List<InventoryResponse>> getAllInventories() {
-        return ResponseEntity.ok(inventoryService.getAllInventories());
+    public ResponseEntity<InventoryPageResponse> listInventories(@RequestParam(required = false) Long after,
+                                                                 @RequestParam(defaultValue = "100") int size,
+                                                                 InventoryFilter filter) {
+        return ResponseEntity.ok(inventoryService.listInventories(after, size, filter));
+    }
+
+    // 库存导出（NDJSON 流式，每行一个库存；sort=product 时按 productId 升序，供对账归并）
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamInventories(InventoryFilter filter,
+                                                                   @RequestParam(defaultValue = "id") String sort) {
+        boolean orderByProduct = "product".equals(sort);
+        StreamingResponseBody body = out -> inventoryService.streamInventories(filter, orderByProduct,
+                inventory -> writeLine(out, inventory));
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // 有货商品位图（Roaring portable 序列化），商品服务启动时及定期全量同步
+    @GetMapping(value = "/in-stock", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('INTERNAL')")
+    public ResponseEntity<byte[]> getInStockBitmap() {
+        return ResponseEntity.ok(inventoryService.getInStockBitmap());
     }
 
     // 查询库存
     @GetMapping("/product/{productId}")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<InventoryResponse> getInventoryByProductId(@PathVariable Long productId) {
-        return ResponseEntity.ok(inventoryService.getInventoryByProductId(productId));
+    public ResponseEntity<InventoryResponse> getInventoryByProductId(@PathVariable Long productId,
+                                                                     WebRequest webRequest) {
+        InventoryResponse inventory = inventoryService.getInventoryByProductId(productId);
+        // 以库存版本作为 ETag，未变化时返回 304
+        String eTag = "\"" + inventory.getVersion() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(inventory);
+    }
+
+    // 批量查询库存（商品列表 / 购物车 / 下单）
+    @PostMapping("/query")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<Map<Long, InventoryStock>> queryInventories(@RequestBody InventoryQueryRequest request) {
+        return ResponseEntity.ok(inventoryService.queryInventories(request.getProductIds()));
     }
 
     // 新增库存
@@ -54,6 +107,17 @@ class InventoryController {
         return ResponseEntity.ok(inventoryService.updateInventory(productId, request));
     }
 
+    // 批量调整可用库存（CSV / NDJSON 流式上传，边读边写，结束后每个商品一条库存事件）
+    @PostMapping(value = "/adjust/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<StockAdjustmentResult> bulkAdjustStock(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                 InputStream body) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        return ResponseEntity.ok(stockAdjustmentService.bulkAdjust(new InputStreamReader(body, charset),
+                NDJSON.isCompatibleWith(mediaType)));
+    }
+
     // 删除库存
     @DeleteMapping("/product/{productId}")
     @PreAuthorize("hasRole('SELLER')")
@@ -62,6 +126,36 @@ class InventoryController {
         return ResponseEntity.noContent().build();
     }
 
+    // 热门商品库存分桶
+    @PostMapping("/product/{productId}/buckets")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<InventoryResponse> splitInventory(@PathVariable Long productId,
+                                                            @RequestParam int count) {
+        return ResponseEntity.ok(inventoryService.splitInventory(productId, count));
+    }
+
+    // 合并分桶
+    @DeleteMapping("/product/{productId}/buckets")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<InventoryResponse> mergeInventory(@PathVariable Long productId) {
+        return ResponseEntity.ok(inventoryService.mergeInventory(productId));
+    }
+
+    // 设置低库存告警阈值（跨越阈值时发送 inventory-low-stock）
+    @PutMapping("/product/{productId}/low-stock")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<InventoryResponse> setLowStockThreshold(@PathVariable Long productId,
+                                                                  @RequestBody LowStockThresholdRequest request) {
+        return ResponseEntity.ok(inventoryService.setLowStockThreshold(productId, request));
+    }
+
+    // 关闭低库存告警
+    @DeleteMapping("/product/{productId}/low-stock")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<InventoryResponse> clearLowStockThreshold(@PathVariable Long productId) {
+        return ResponseEntity.ok(inventoryService.setLowStockThreshold(productId, new LowStockThresholdRequest()));
+    }
+
     // 锁库存
     @PostMapping("/lock")
     @PreAuthorize("hasRole('INTERNAL')")
@@ -70,18 +164,43 @@ class InventoryController {
         return ResponseEntity.ok("Stock locked successfully");
     }
 
+    // 批量锁库存（按订单分组，逐组成功 / 拒绝）
+    @PostMapping("/lock/batch")
+    @PreAuthorize("hasRole('INTERNAL')")
+    public ResponseEntity<BatchStockLockResponse> lockStockBatch(@RequestBody BatchStockLockRequest request) {
+        return ResponseEntity.ok(inventoryService.lockStockBatch(request));
+    }
+
     @PostMapping("/confirm")
     @PreAuthorize("hasRole('INTERNAL')")
-    public ResponseEntity<String> confirmStock(@RequestParam Long productId, @RequestParam int quantity) {
-        inventoryService.confirmStock(productId, quantity);
+    public ResponseEntity<String> confirmStock(@RequestParam Long productId, @RequestParam int quantity,
+                                               @RequestParam(required = false) Long orderId) {
+        inventoryService.confirmStock(productId, quantity, orderId);
         return ResponseEntity.ok("Stock confirmed successfully");
     }
 
     @PostMapping("/release")
     @PreAuthorize("hasRole('INTERNAL')")
-    public ResponseEntity<String> releaseStock(@RequestParam Long productId, @RequestParam int quantity) {
-        inventoryService.releaseStock(productId, quantity);
+    public ResponseEntity<String> releaseStock(@RequestParam Long productId, @RequestParam int quantity,
+                                               @RequestParam(required = false) Long orderId) {
+        inventoryService.releaseStock(productId, quantity, orderId);
         return ResponseEntity.ok("Stock released successfully");
     }
-}
 
+    // 对账修正：释放漂移的锁定库存
+    @PostMapping("/reconcile/locked")
+    @PreAuthorize("hasRole('INTERNAL')")
+    public ResponseEntity<List<LockedStockCorrectionResult>> correctLockedStock(
+            @RequestBody List<LockedStockCorrection> corrections) {
+        return ResponseEntity.ok(inventoryService.correctLockedStock(corrections));
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
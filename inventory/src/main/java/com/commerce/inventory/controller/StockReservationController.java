@@ -0,0 +1,34 @@
+package com.commerce.inventory.controller;
+
+import com.commerce.inventory.reservation.RedisStockReservation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 18:20
+ * @package com.commerce.inventory.controller
+ * <p>
+ * Description:
+ */
+@RestController
+@RequestMapping("/api/v1/inventories/reservation")
+@ConditionalOnProperty(name = "inventory.reservation.mode", havingValue = "redis")
+class StockReservationController {
+
+    @Autowired
+    private RedisStockReservation redisStockReservation;
+
+    // Redis 数据丢失 / 主从切换后，按 MySQL + 未落库 journal 重建
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> rebuild() {
+        int products = redisStockReservation.rebuildAll();
+        return ResponseEntity.ok("Rebuilt Redis stock for " + products + " products");
+    }
+}
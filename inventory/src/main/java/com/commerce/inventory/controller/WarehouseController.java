@@ -0,0 +1,62 @@
+package com.commerce.inventory.controller;
+
+import com.commerce.inventory.dto.WarehouseRequest;
+import com.commerce.inventory.dto.WarehouseResponse;
+import com.commerce.inventory.dto.WarehouseStockRequest;
+import com.commerce.inventory.dto.WarehouseStockResponse;
+import com.commerce.inventory.service.WarehouseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:25
+ * @package com.commerce.inventory.controller
+ * <p>
+ * Description:
+ * 仓库与分仓库存（沿用 /api/v1/inventories 前缀，网关无需新增路由）
+ */
+@RestController
+@RequestMapping("/api/v1/inventories")
+class WarehouseController {
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    // 新增仓库
+    @PostMapping("/warehouses")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<WarehouseResponse> createWarehouse(@RequestBody WarehouseRequest request) {
+        WarehouseResponse warehouse = warehouseService.createWarehouse(request);
+        return ResponseEntity.created(URI.create("/api/v1/inventories/warehouses/" + warehouse.getWarehouseId()))
+                .body(warehouse);
+    }
+
+    // 仓库列表
+    @GetMapping("/warehouses")
+    @PreAuthorize("hasRole('SELLER') or hasRole('ADMIN')")
+    public ResponseEntity<List<WarehouseResponse>> getWarehouses() {
+        return ResponseEntity.ok(warehouseService.getWarehouses());
+    }
+
+    // 商品分仓库存
+    @GetMapping("/product/{productId}/warehouses")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<List<WarehouseStockResponse>> getWarehouseStock(@PathVariable Long productId) {
+        return ResponseEntity.ok(warehouseService.getWarehouseStock(productId));
+    }
+
+    // 设置某仓可用库存（主行可用库存 = 各仓之和）
+    @PutMapping("/product/{productId}/warehouses/{warehouseId}")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<WarehouseStockResponse> setWarehouseStock(@PathVariable Long productId,
+                                                                    @PathVariable Long warehouseId,
+                                                                    @RequestBody WarehouseStockRequest request) {
+        return ResponseEntity.ok(warehouseService.setWarehouseStock(productId, warehouseId, request));
+    }
+}
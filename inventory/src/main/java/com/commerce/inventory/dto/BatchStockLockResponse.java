@@ -0,0 +1,22 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:12
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockLockResponse {
+    private List<StockLockGroupResult> results = new ArrayList<>();
+}
@@ -0,0 +1,25 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 22:35
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 库存列表过滤条件（可用库存按主行 + 分桶合计计算），为空表示不过滤
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryFilter {
+    /** 可用库存 < availableBelow（低库存排查） */
+    private Integer availableBelow;
+    /** 可用库存 >= availableAtLeast */
+    private Integer availableAtLeast;
+    /** 仅已分桶 / 仅未分桶 */
+    private Boolean split;
+}
@@ -0,0 +1,24 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 22:35
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 库存列表分页（keyset：下一页以 nextCursor 作为 after 参数）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryPageResponse {
+    private List<InventoryResponse> content;
+    private Long nextCursor;
+    private boolean lastPage;
+}
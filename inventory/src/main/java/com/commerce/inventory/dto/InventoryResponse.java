@@ -16,4 +16,9 @@ public class InventoryResponse {
     private Integer lockedStock;
     private Integer soldStock;
     private String lastUpdated;
+    /** 库存版本，同一商品单调递增（同时作为 ETag） */
+    private Long version;
+    /** 低库存阈值（未设置为空）及当前是否处于低库存告警 */
+    private Integer lowStockThreshold;
+    private Boolean lowStock;
 }
@@ -0,0 +1,22 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 22:10
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 批量查询返回的精简库存（以 productId 为 key 放在 Map 中）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryStock {
+    private Integer availableStock;
+    private Integer lockedStock;
+    private Integer soldStock;
+}
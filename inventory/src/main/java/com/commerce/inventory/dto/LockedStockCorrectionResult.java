@@ -0,0 +1,22 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:10
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LockedStockCorrectionResult {
+    private Long productId;
+    private int released;
+    /** 未释放（或未全部释放）的原因 */
+    private String reason;
+}
@@ -0,0 +1,22 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:55
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 低库存阈值：可用库存低于 threshold 告警，回升到 clearAt 及以上解除；
+ * clearAt 不传时按 inventory.low-stock.hysteresis-ratio 计算
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockThresholdRequest {
+    private Integer threshold;
+    private Integer clearAt;
+}
@@ -0,0 +1,22 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:08
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 订单事件带来的单条库存变动（确认 / 释放）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStockMovement {
+    private Long orderId;
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,22 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:45
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentError {
+    /** 文件中的行号（从 1 开始） */
+    private long line;
+    private Long productId;
+    private String reason;
+}
@@ -0,0 +1,31 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:45
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResult {
+    /** 解析到的数据行数 */
+    private long rows;
+    private long applied;
+    private long rejected;
+    /** 库存有变更的商品数（每个商品一条库存事件） */
+    private int products;
+    /** 被拒绝的行，最多 max-errors 条 */
+    private List<StockAdjustmentError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private long elapsedMs;
+}
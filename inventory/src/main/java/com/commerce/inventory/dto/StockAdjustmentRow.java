@@ -0,0 +1,22 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:45
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 批量调整库存的一行：availableStock（设置可用库存）与 delta（可用库存增减）二选一
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentRow {
+    private Long productId;
+    private Integer availableStock;
+    private Integer delta;
+}
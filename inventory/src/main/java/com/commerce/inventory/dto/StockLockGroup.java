@@ -0,0 +1,27 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:10
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 批量锁库存中的一组（一笔订单），组内所有行要么全部锁定，要么全部拒绝
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLockGroup {
+    private Long orderId;
+    private List<StockOperationRequest> items = new ArrayList<>();
+    // 收货坐标（可选），用于分仓商品就近选仓；不传时优先单仓发完
+    private Double shipToLatitude;
+    private Double shipToLongitude;
+}
@@ -17,4 +17,6 @@ import lombok.NoArgsConstructor;
 public class StockOperationRequest {
     private Long productId;
     private Integer quantity;
+    /** 发起锁定的订单，用于库存分桶时选择桶（可为空） */
+    private Long orderId;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.commerce.inventory.dto;
+
+import lombok.Data;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:08
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ */
+@Data
+public class WarehouseResponse {
+    private Long warehouseId;
+    private String code;
+    private String name;
+    private Double latitude;
+    private Double longitude;
+    private Boolean active;
+}
@@ -0,0 +1,20 @@
+package com.commerce.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:09
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ * 设置某仓库的可用库存，主行可用库存随之重算为各仓之和
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseStockRequest {
+    private Integer availableStock;
+}
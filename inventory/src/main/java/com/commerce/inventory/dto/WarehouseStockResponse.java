@@ -0,0 +1,20 @@
+package com.commerce.inventory.dto;
+
+import lombok.Data;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:09
+ * @package com.commerce.inventory.dto
+ * <p>
+ * Description:
+ */
+@Data
+public class WarehouseStockResponse {
+    private Long warehouseId;
+    private Long productId;
+    private Integer availableStock;
+    private Integer lockedStock;
+    private Integer soldStock;
+    private String lastUpdated;
+}
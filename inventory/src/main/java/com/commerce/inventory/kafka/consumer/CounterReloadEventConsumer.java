@@ -0,0 +1,59 @@
+package com.commerce.inventory.kafka.consumer;
+
+import com.commerce.inventory.exceptions.ResourceNotFoundException;
+import com.commerce.inventory.kafka.event.CounterReloadEvent;
+import com.commerce.inventory.kafka.producer.InventoryEventPublisher;
+import com.commerce.inventory.ownership.InventoryOwnership;
+import com.commerce.inventory.reservation.StockReservationStrategy;
+import com.commerce.inventory.service.InventoryReadCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:05
+ * @package com.commerce.inventory.kafka.consumer
+ * <p>
+ * Description:
+ * 每个实例用独立的消费组订阅 inventory-counter-reload，只有当前持有该商品的实例重新加载内存计数，
+ * 并补发一条库存事件（版本取自台账），使下游看到非持有者写入 MySQL 的变更。
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ownership.enabled", havingValue = "true")
+@Slf4j
+class CounterReloadEventConsumer {
+
+    @Autowired
+    private InventoryOwnership inventoryOwnership;
+    @Autowired
+    private StockReservationStrategy stockReservationStrategy;
+    @Autowired
+    private InventoryReadCache inventoryReadCache;
+    @Autowired
+    private InventoryEventPublisher inventoryEventPublisher;
+
+    @KafkaListener(topics = "inventory-counter-reload",
+            groupId = "inventory-ownership-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = "auto.offset.reset=latest")
+    public void handleReload(CounterReloadEvent event) {
+        if (event == null || event.getProductId() == null) {
+            return;
+        }
+        Long productId = event.getProductId();
+        if (!inventoryOwnership.isOwner(productId)) {
+            return;
+        }
+        try {
+            stockReservationStrategy.reload(productId);
+            log.info("[Inventory] Reloaded owned counter after MySQL change → productId={}, source={}",
+                    productId, event.getSourceInstanceId());
+        } catch (ResourceNotFoundException e) {
+            stockReservationStrategy.evict(productId);
+        }
+        inventoryReadCache.invalidate(productId);
+        inventoryEventPublisher.publish(productId, "UPDATE");
+    }
+}
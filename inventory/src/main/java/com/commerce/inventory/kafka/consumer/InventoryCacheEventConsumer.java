@@ -0,0 +1,35 @@
+package com.commerce.inventory.kafka.consumer;
+
+import com.commerce.inventory.kafka.event.InventoryEvent;
+import com.commerce.inventory.service.InventoryReadCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:05
+ * @package com.commerce.inventory.kafka.consumer
+ * <p>
+ * Description:
+ * 每个实例用独立的消费组订阅 inventory-stock-updated，失效本地库存缓存中版本更旧的条目，
+ * 使其他实例上的库存变更也能及时反映到本实例的查询。
+ */
+@Component
+@Slf4j
+class InventoryCacheEventConsumer {
+
+    @Autowired
+    private InventoryReadCache inventoryReadCache;
+
+    @KafkaListener(topics = "inventory-stock-updated",
+            groupId = "inventory-cache-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = "auto.offset.reset=latest")
+    public void handleInventoryEvent(InventoryEvent event) {
+        if (event == null || event.getProductId() == null) {
+            return;
+        }
+        inventoryReadCache.invalidateIfOlder(event.getProductId(), event.getVersion());
+    }
+}
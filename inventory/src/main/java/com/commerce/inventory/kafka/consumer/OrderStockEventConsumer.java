@@ -0,0 +1,69 @@
+package com.commerce.inventory.kafka.consumer;
+
+import com.commerce.inventory.dto.OrderStockMovement;
+import com.commerce.inventory.kafka.event.OrderCancelledEvent;
+import com.commerce.inventory.kafka.event.OrderConfirmedEvent;
+import com.commerce.inventory.service.InventoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:15
+ * @package com.commerce.inventory.kafka.consumer
+ * <p>
+ * Description:
+ * 批量消费订单确认 / 取消事件：一次 poll 内按商品合并，每个商品一条 UPDATE。
+ * 处理失败时抛出由容器整批重投，已处理的事件会被去重表跳过。
+ */
+@Component
+@Slf4j
+class OrderStockEventConsumer {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @KafkaListener(topics = "order-confirmed", groupId = "inventory-service-group", batch = "true")
+    public void handleOrderConfirmed(List<OrderConfirmedEvent> events) {
+        log.info("[Kafka] Received {} OrderConfirmedEvents", events.size());
+        List<OrderStockMovement> movements = events.stream()
+                .filter(Objects::nonNull)
+                .map(event -> new OrderStockMovement(event.getOrderId(), event.getProductId(), event.getQuantity()))
+                .toList();
+        apply("CONFIRM", movements);
+    }
+
+    @KafkaListener(topics = "order-cancelled", groupId = "inventory-service-group", batch = "true")
+    public void handleOrderCancelled(List<OrderCancelledEvent> events) {
+        log.info("[Kafka] Received {} OrderCancelledEvents", events.size());
+        List<OrderStockMovement> movements = events.stream()
+                .filter(Objects::nonNull)
+                .map(event -> new OrderStockMovement(event.getOrderId(), event.getProductId(), event.getQuantity()))
+                .toList();
+        apply("RELEASE", movements);
+    }
+
+    private void apply(String eventType, List<OrderStockMovement> movements) {
+        List<OrderStockMovement> valid = movements.stream()
+                .filter(m -> m.getOrderId() != null && m.getProductId() != null
+                        && m.getQuantity() != null && m.getQuantity() > 0)
+                .toList();
+        if (valid.size() < movements.size()) {
+            log.warn("[Kafka] Skipped {} malformed {} events", movements.size() - valid.size(), eventType);
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        try {
+            inventoryService.applyOrderStockMovements(eventType, valid);
+        } catch (Exception e) {
+            log.error("[Inventory] Failed to apply {} batch of {} events, will be redelivered", eventType, valid.size(), e);
+            throw e;
+        }
+    }
+}
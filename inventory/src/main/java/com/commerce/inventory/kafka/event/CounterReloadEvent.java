@@ -0,0 +1,31 @@
+package com.commerce.inventory.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:00
+ * @package com.commerce.inventory.kafka.event
+ * <p>
+ * Description:
+ * 归属模式下非持有者直接修改了 MySQL 库存后发出（inventory-counter-reload），
+ * 持有者收到后按 MySQL 重新加载该商品的内存计数
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CounterReloadEvent implements Serializable {
+
+    /** 商品ID */
+    private Long productId;
+
+    /** 修改 MySQL 的实例 */
+    private String sourceInstanceId;
+
+    /** 发送方视图中的持有者（仅用于排查，接收方以自己的视图为准） */
+    private String ownerInstanceId;
+}
@@ -0,0 +1,35 @@
+package com.commerce.inventory.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 04:10
+ * @package com.commerce.inventory.kafka.event
+ * <p>
+ * Description:
+ * 有货状态变化事件（inventory-in-stock）：只在可用库存跨过 0 或库存记录被删除时发送，
+ * 商品服务据此增量维护“仅看有货”位图
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InStockEvent implements Serializable {
+
+    /** 商品ID */
+    private Long productId;
+
+    /** 当前是否有货 */
+    private Boolean inStock;
+
+    /** 翻转时的库存版本（库存记录删除时为空） */
+    private Long version;
+
+    /** 事件发生时间 */
+    private LocalDateTime eventTime;
+}
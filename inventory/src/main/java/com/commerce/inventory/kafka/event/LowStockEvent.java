@@ -0,0 +1,44 @@
+package com.commerce.inventory.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:45
+ * @package com.commerce.inventory.kafka.event
+ * <p>
+ * Description:
+ * 低库存告警事件（inventory-low-stock）：只在跨越阈值时发送，
+ * LOW_STOCK = 可用库存跌破阈值，RECOVERED = 回升到解除值及以上
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LowStockEvent implements Serializable {
+
+    /** 商品ID */
+    private Long productId;
+
+    /** LOW_STOCK / RECOVERED */
+    private String eventType;
+
+    /** 触发时的可用库存 */
+    private Integer availableStock;
+
+    /** 告警阈值 */
+    private Integer threshold;
+
+    /** 解除告警的库存值 */
+    private Integer clearAt;
+
+    /** 触发时的库存版本 */
+    private Long version;
+
+    /** 事件发生时间 */
+    private LocalDateTime eventTime;
+}
@@ -0,0 +1,27 @@
+package com.commerce.inventory.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:06
+ * @package com.commerce.inventory.kafka.event
+ * <p>
+ * Description:
+ * 订单取消 / 支付过期（每个订单项一条），库存 locked → available
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderCancelledEvent implements Serializable {
+    private Long orderId;             // 订单ID
+    private Long productId;           // 商品ID
+    private Integer quantity;         // 数量
+    private String reason;            // 取消原因（如 PAYMENT_EXPIRED）
+    private LocalDateTime eventTime;  // 事件时间
+}
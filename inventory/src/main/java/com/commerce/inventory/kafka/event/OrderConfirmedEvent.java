@@ -0,0 +1,26 @@
+package com.commerce.inventory.kafka.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:05
+ * @package com.commerce.inventory.kafka.event
+ * <p>
+ * Description:
+ * 订单支付成功（每个订单项一条），库存 locked → sold
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderConfirmedEvent implements Serializable {
+    private Long orderId;             // 订单ID
+    private Long productId;           // 商品ID
+    private Integer quantity;         // 数量
+    private LocalDateTime eventTime;  // 事件时间
+}
@@ -0,0 +1,167 @@
+package com.commerce.inventory.kafka.producer;
+
+import com.commerce.inventory.kafka.event.InventoryEvent;
+import com.commerce.inventory.reservation.StockLevels;
+import com.commerce.inventory.service.InStockWatcher;
+import com.commerce.inventory.service.InventorySnapshot;
+import com.commerce.inventory.service.InventorySnapshotReader;
+import com.commerce.inventory.service.LowStockWatcher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 21:30
+ * @package com.commerce.inventory.kafka.producer
+ * <p>
+ * Description:
+ * inventory-stock-updated 合并发送：窗口期内同一商品只保留最新一条，窗口结束统一发出。
+ * 发送前批量读取提交后的库存快照和版本写入事件，消费方无需再回调库存服务。
+ * 以 productId 作为消息 key，同一商品的事件落在同一分区、保持顺序。
+ * coalesce-window-ms=0 时不合并，直接发送。
+ * 同一份快照顺带交给 LowStockWatcher 做低库存阈值检查、交给 InStockWatcher 做有货状态检查。
+ */
+@Component
+@Slf4j
+public class InventoryEventPublisher {
+
+    private static final String TOPIC = "inventory-stock-updated";
+    private static final String EVENT_DELETE = "DELETE";
+    private static final int SNAPSHOT_CHUNK_SIZE = 500;
+
+    private final KafkaTemplate<String, InventoryEvent> kafkaTemplate;
+    private final InventorySnapshotReader snapshotReader;
+    private final LowStockWatcher lowStockWatcher;
+    private final InStockWatcher inStockWatcher;
+    private final Map<Long, PendingEvent> pending = new ConcurrentHashMap<>();
+    private final Counter receivedCounter;
+    private final Counter sentCounter;
+
+    @Value("${inventory.events.coalesce-window-ms:200}")
+    private long coalesceWindowMs;
+
+    public InventoryEventPublisher(KafkaTemplate<String, InventoryEvent> kafkaTemplate,
+                                   InventorySnapshotReader snapshotReader,
+                                   LowStockWatcher lowStockWatcher,
+                                   InStockWatcher inStockWatcher,
+                                   MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.snapshotReader = snapshotReader;
+        this.lowStockWatcher = lowStockWatcher;
+        this.inStockWatcher = inStockWatcher;
+        this.receivedCounter = Counter.builder("inventory.events.received")
+                .description("Inventory events produced by stock operations")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("inventory.events.sent")
+                .description("Inventory events sent to Kafka after coalescing")
+                .register(meterRegistry);
+    }
+
+    /** 事务提交后调用 */
+    public void publish(Long productId, String eventType) {
+        receivedCounter.increment();
+        PendingEvent event = new PendingEvent(eventType, LocalDateTime.now());
+        if (coalesceWindowMs <= 0) {
+            send(Map.of(productId, event));
+            return;
+        }
+        // 保留最新的一条（含 DELETE），旧的直接丢弃
+        pending.merge(productId, event, (previous, latest) ->
+                latest.eventTime().isBefore(previous.eventTime()) ? previous : latest);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.events.coalesce-window-ms:200}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, PendingEvent> drained = new LinkedHashMap<>();
+        for (Long productId : pending.keySet()) {
+            PendingEvent event = pending.remove(productId);
+            if (event != null) {
+                drained.put(productId, event);
+            }
+        }
+        List<Long> productIds = new ArrayList<>(drained.keySet());
+        for (int from = 0; from < productIds.size(); from += SNAPSHOT_CHUNK_SIZE) {
+            Map<Long, PendingEvent> chunk = new LinkedHashMap<>();
+            productIds.subList(from, Math.min(from + SNAPSHOT_CHUNK_SIZE, productIds.size()))
+                    .forEach(productId -> chunk.put(productId, drained.get(productId)));
+            send(chunk);
+        }
+        log.debug("[Kafka] Flushed {} coalesced inventory events", drained.size());
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+        kafkaTemplate.flush();
+    }
+
+    private void send(Map<Long, PendingEvent> events) {
+        Map<Long, InventorySnapshot> snapshots;
+        try {
+            snapshots = snapshotReader.readSnapshots(events.entrySet().stream()
+                    .filter(entry -> !EVENT_DELETE.equals(entry.getValue().eventType()))
+                    .map(Map.Entry::getKey)
+                    .toList());
+        } catch (Exception e) {
+            log.error("[Kafka] Failed to read stock snapshots, dropping {} inventory events", events.size(), e);
+            return;
+        }
+
+        events.forEach((productId, pendingEvent) -> {
+            InventoryEvent event = new InventoryEvent();
+            event.setProductId(productId);
+            event.setEventType(pendingEvent.eventType());
+            event.setEventTime(pendingEvent.eventTime());
+            if (!EVENT_DELETE.equals(pendingEvent.eventType())) {
+                InventorySnapshot snapshot = snapshots.get(productId);
+                if (snapshot == null) {
+                    // 已被删除，对应的 DELETE 事件会单独发出
+                    log.debug("[Kafka] Inventory gone before flush, skipping event → productId={}", productId);
+                    return;
+                }
+                StockLevels levels = snapshot.levels();
+                event.setAvailableStock(levels.getAvailableStock());
+                event.setLockedStock(levels.getLockedStock());
+                event.setSoldStock(levels.getSoldStock());
+                event.setVersion(levels.getVersion());
+            }
+            try {
+                kafkaTemplate.send(TOPIC, productId.toString(), event);
+                sentCounter.increment();
+            } catch (Exception e) {
+                log.error("[Kafka] Failed to send InventoryEvent → productId={}, eventType={}",
+                        productId, event.getEventType(), e);
+            }
+            if (EVENT_DELETE.equals(pendingEvent.eventType())) {
+                inStockWatcher.removed(productId);
+                return;
+            }
+            try {
+                lowStockWatcher.evaluate(productId, snapshots.get(productId));
+            } catch (Exception e) {
+                log.error("[Inventory] Low-stock check failed → productId={}", productId, e);
+            }
+            try {
+                inStockWatcher.evaluate(productId, snapshots.get(productId));
+            } catch (Exception e) {
+                log.error("[Inventory] In-stock check failed → productId={}", productId, e);
+            }
+        });
+    }
+
+    private record PendingEvent(String eventType, LocalDateTime eventTime) {
+    }
+}
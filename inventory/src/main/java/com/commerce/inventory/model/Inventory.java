@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
  * Description:
  */
 @Entity
-@Table(name = "inventory")
+@Table(name = "inventory",
+        indexes = @Index(name = "uk_inventory_product_id", columnList = "product_id", unique = true))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -26,6 +27,7 @@ public class Inventory {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long inventoryId;
 
+    @Column(name = "product_id")
     private Long productId;
 
     private Integer availableStock = 0;
@@ -34,6 +36,24 @@ public class Inventory {
 
     private Integer version = 0; // 乐观锁字段
 
+    @Column(columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer bucketCount = 0; // >0 表示可用 / 锁定库存已拆分到 inventory_bucket
+
+    @Column(columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer warehouseCount = 0; // >0 表示库存按仓库存放在 warehouse_stock，主行为各仓之和
+
+    private Integer lowStockThreshold; // 可用库存低于此值时告警，为空表示不告警
+    private Integer lowStockClearAt;   // 回升到此值及以上才解除告警（滞回，避免在阈值附近反复告警）
+    @Column(columnDefinition = "BOOLEAN NOT NULL DEFAULT FALSE")
+    private Boolean lowStock = false;  // 当前是否处于低库存告警
+    @Column(columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long lowStockVersion = 0L; // 最近一次翻转告警状态时的库存版本，过时的快照不再翻转
+
+    @Column(columnDefinition = "BOOLEAN NOT NULL DEFAULT FALSE")
+    private Boolean inStock = false;     // 可用库存是否大于 0（商品服务“仅看有货”位图的来源）
+    @Column(columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long inStockVersion = 0L;    // 最近一次翻转有货状态时的库存版本
+
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 }
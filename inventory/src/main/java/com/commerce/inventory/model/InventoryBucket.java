@@ -0,0 +1,47 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:40
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 热门商品库存分桶：一个商品的可用 / 锁定库存分散在多行，
+ * 并发预占落在不同行上，单行争用约降为 1/N。商品总库存 = inventory 主行 + 全部分桶。
+ */
+@Entity
+@Table(name = "inventory_bucket",
+        uniqueConstraints = @UniqueConstraint(name = "uk_inventory_bucket", columnNames = {"product_id", "bucket_no"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InventoryBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long bucketId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "bucket_no", nullable = false)
+    private Integer bucketNo;
+
+    private Integer availableStock = 0;
+    private Integer lockedStock = 0;
+    private Integer soldStock = 0;
+
+    @Version
+    private Long version = 0L; // 每次变更 +1，分桶商品的版本 = 主行版本 + 各桶版本之和
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
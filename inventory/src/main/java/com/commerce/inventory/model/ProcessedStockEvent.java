@@ -0,0 +1,43 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:10
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 已处理的订单库存事件 / 库存操作，(orderId, productId, eventType) 唯一，
+ * 用于消息重投与 lock / confirm / release 接口重试的去重
+ */
+@Entity
+@Table(name = "processed_stock_event",
+        uniqueConstraints = @UniqueConstraint(name = "uk_processed_stock_event",
+                columnNames = {"order_id", "product_id", "event_type"}),
+        indexes = @Index(name = "idx_processed_stock_event_processed_at", columnList = "processed_at"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProcessedStockEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,39 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:45
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 写后落库（write-behind）进度：记录已持久化到 inventory 的最后一条 journal 位置，
+ * 与库存增量在同一事务内更新，保证每条增量只落库一次。
+ */
+@Entity
+@Table(name = "stock_flush_checkpoint")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockFlushCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false, length = 64)
+    private String position;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
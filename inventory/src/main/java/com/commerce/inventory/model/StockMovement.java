@@ -0,0 +1,54 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 22:55
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 库存变动流水（inventory.reservation.mode=journal）：只插入不修改库存行，
+ * 商品余额 = inventory 快照 + 未压缩（compacted = false）流水之和，由 StockMovementCompactor 定期合并进快照。
+ * 压缩后的流水保留作为审计记录。
+ */
+@Entity
+@Table(name = "stock_movement",
+        indexes = {
+                @Index(name = "idx_stock_movement_compacted", columnList = "compacted, movement_id"),
+                @Index(name = "idx_stock_movement_product", columnList = "product_id, compacted")
+        })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockMovement {
+
+    public static final String TYPE_LOCK = "LOCK";
+    public static final String TYPE_CONFIRM = "CONFIRM";
+    public static final String TYPE_RELEASE = "RELEASE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "movement_id")
+    private Long movementId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "movement_type", nullable = false, length = 16)
+    private String movementType;
+
+    private Integer availableDelta;
+    private Integer lockedDelta;
+    private Integer soldDelta;
+
+    @Column(nullable = false)
+    private Boolean compacted = false;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,57 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 20:30
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 订单级库存预占记录：锁库存时创建（ACTIVE），确认 / 释放时消费，
+ * 过期未消费的由 StockReservationSweeper 释放（EXPIRED），避免被放弃的结算长期占用库存。
+ */
+@Entity
+@Table(name = "stock_reservation",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_reservation", columnNames = {"order_id", "product_id"}),
+        indexes = {
+                @Index(name = "idx_stock_reservation_expiry", columnList = "status, expires_at"),
+                @Index(name = "idx_stock_reservation_product", columnList = "product_id, status")
+        })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockReservation {
+
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_CONFIRMED = "CONFIRMED";
+    public static final String STATUS_RELEASED = "RELEASED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long reservationId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private Integer quantity;
+
+    @Column(nullable = false, length = 16)
+    private String status;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,37 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:40
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 发货仓库，经纬度用于按收货地址就近分配
+ */
+@Entity
+@Table(name = "warehouse",
+        uniqueConstraints = @UniqueConstraint(name = "uk_warehouse_code", columnNames = "code"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Warehouse {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long warehouseId;
+
+    @Column(nullable = false, length = 32)
+    private String code;
+
+    private String name;
+
+    private Double latitude;
+    private Double longitude;
+
+    private Boolean active = true; // 停用的仓库不参与分配
+}
@@ -0,0 +1,42 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:44
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 订单锁库存时选中的仓库，确认 / 释放时按此记录回到同一仓库，消费后删除
+ */
+@Entity
+@Table(name = "warehouse_allocation",
+        indexes = @Index(name = "idx_warehouse_allocation_order", columnList = "order_id, product_id"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WarehouseAllocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long allocationId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    private Integer quantity;
+
+    private LocalDateTime createdAt;
+}
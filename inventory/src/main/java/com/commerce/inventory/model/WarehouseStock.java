@@ -0,0 +1,44 @@
+package com.commerce.inventory.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:42
+ * @package com.commerce.inventory.model
+ * <p>
+ * Description:
+ * 分仓库存：商品在每个仓库一行。inventory 主行仍是全部仓库之和，
+ * 二者在同一事务内更新，商品服务看到的总库存不变。
+ */
+@Entity
+@Table(name = "warehouse_stock",
+        uniqueConstraints = @UniqueConstraint(name = "uk_warehouse_stock", columnNames = {"product_id", "warehouse_id"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WarehouseStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long warehouseStockId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    private Integer availableStock = 0;
+    private Integer lockedStock = 0;
+    private Integer soldStock = 0;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,133 @@
+package com.commerce.inventory.ownership;
+
+import com.commerce.inventory.kafka.event.CounterReloadEvent;
+import com.commerce.inventory.reservation.InMemoryStockLedger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:55
+ * @package com.commerce.inventory.ownership
+ * <p>
+ * Description:
+ * 库存归属（inventory.ownership.enabled=true，需配合 inventory.reservation.mode=ledger）：
+ * 1. 按 Eureka 中 UP 的 inventory-service 实例列表建一致性哈希环，每个实例持有一段 productId
+ * 2. order / product 按同一个环把单商品请求路由到持有者，持有者的台账计数常驻内存、串行加减
+ * 3. 实例列表变化时重建环，交出的商品先提交增量再丢弃计数，由新持有者从 MySQL 加载
+ * 非持有者收到的请求（路由视图不一致 / 交接窗口 / Kafka 事件）直接走 MySQL 条件 UPDATE，
+ * 提交后通知持有者按 MySQL 重新加载，任何时刻都不会超卖，只是慢路径。
+ * 本实例尚未出现在注册中心时不持有任何商品。
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ownership.enabled", havingValue = "true")
+@Slf4j
+public class InventoryOwnership {
+
+    static final String RELOAD_TOPIC = "inventory-counter-reload";
+
+    @Autowired
+    private DiscoveryClient discoveryClient;
+    @Autowired
+    private Registration registration;
+    @Autowired(required = false)
+    private InMemoryStockLedger ledger;
+    @Autowired
+    private KafkaTemplate<String, CounterReloadEvent> kafkaTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.application.name}")
+    private String serviceId;
+
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of());
+    /** 上次交接仍有在途增量未交出 */
+    private volatile boolean handOffPending;
+    private Counter reloadRequestCounter;
+
+    @PostConstruct
+    void start() {
+        if (ledger == null) {
+            throw new IllegalStateException("inventory.ownership.enabled requires inventory.reservation.mode=ledger");
+        }
+        reloadRequestCounter = Counter.builder("inventory.ownership.reload.requests")
+                .description("Counter reloads requested from owners after a non-owner changed stock in MySQL")
+                .register(meterRegistry);
+        Gauge.builder("inventory.ownership.members", () -> ring.members().size())
+                .description("Inventory instances in the ownership ring")
+                .register(meterRegistry);
+        refresh();
+    }
+
+    public String selfId() {
+        return registration.getInstanceId();
+    }
+
+    /** 该商品的内存计数是否由本实例持有 */
+    public boolean isOwner(Long productId) {
+        return selfId().equals(ring.ownerOf(productId));
+    }
+
+    public boolean ownsAll(Iterable<Long> productIds) {
+        for (Long productId : productIds) {
+            if (!isOwner(productId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 事务提交后调用：本实例绕过台账改了 MySQL，通知持有者重新加载 */
+    public void requestReload(Long productId) {
+        try {
+            kafkaTemplate.send(RELOAD_TOPIC, productId.toString(),
+                    new CounterReloadEvent(productId, selfId(), ring.ownerOf(productId)));
+            reloadRequestCounter.increment();
+        } catch (Exception e) {
+            log.error("[Inventory] Failed to request counter reload → productId={}", productId, e);
+        }
+    }
+
+    /** Eureka 本地注册表刷新后立即检查 */
+    @EventListener(HeartbeatEvent.class)
+    public void onHeartbeat() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ownership.refresh-interval-ms:5000}")
+    public synchronized void refresh() {
+        List<String> members = List.copyOf(discoveryClient.getInstances(serviceId).stream()
+                .map(ServiceInstance::getInstanceId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new)));
+        if (!members.equals(ring.members())) {
+            ConsistentHashRing next = new ConsistentHashRing(members);
+            ring = next;
+            log.info("[Inventory] Ownership ring changed → self={}, owned={}, members={}",
+                    selfId(), next.members().contains(selfId()), next.members());
+            handOffPending = true;
+        }
+        if (handOffPending) {
+            handOffPending = ledger.handOff(this::isOwner) > 0;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.commerce.inventory.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 05:05
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * 补齐 inventory 上后加的状态列：ddl-auto 加列前已存在的行（或早先以可空列加出的行）为 NULL，
+ * 按默认值补齐；有货标记按主行 + 分桶可用库存重新计算。每次最多更新 limit 行，避免长时间持有大量行锁。
+ * 另外把早先以时间戳版本记下的低库存 / 有货翻转版本压回当前库存版本，否则之后的翻转永远被判为过时。
+ */
+@Repository
+public class InventoryBackfillRepository {
+
+    private static final String FILL_DEFAULTS_SQL =
+            "UPDATE inventory SET bucket_count = COALESCE(bucket_count, 0), " +
+                    "warehouse_count = COALESCE(warehouse_count, 0), " +
+                    "low_stock = COALESCE(low_stock, FALSE), low_stock_version = COALESCE(low_stock_version, 0), " +
+                    "in_stock = COALESCE(in_stock, FALSE), in_stock_version = COALESCE(in_stock_version, 0) " +
+                    "WHERE bucket_count IS NULL OR warehouse_count IS NULL OR low_stock IS NULL " +
+                    "OR low_stock_version IS NULL OR in_stock IS NULL OR in_stock_version IS NULL LIMIT ?";
+
+    // 从未翻转过（in_stock_version = 0）且实际有货的行
+    private static final String BACKFILL_IN_STOCK_SQL =
+            "UPDATE inventory i SET i.in_stock = TRUE " +
+                    "WHERE i.in_stock = FALSE AND i.in_stock_version = 0 " +
+                    "AND i.available_stock + COALESCE((SELECT SUM(b.available_stock) FROM inventory_bucket b " +
+                    "WHERE b.product_id = i.product_id), 0) > 0 LIMIT ?";
+
+    private static final String CLAMP_FLIP_VERSIONS_SQL =
+            "UPDATE inventory SET low_stock_version = LEAST(low_stock_version, version), " +
+                    "in_stock_version = LEAST(in_stock_version, version) " +
+                    "WHERE low_stock_version > version OR in_stock_version > version LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public int fillDefaults(int limit) {
+        return jdbcTemplate.update(FILL_DEFAULTS_SQL, limit);
+    }
+
+    public int backfillInStock(int limit) {
+        return jdbcTemplate.update(BACKFILL_IN_STOCK_SQL, limit);
+    }
+
+    public int clampFlipVersions(int limit) {
+        return jdbcTemplate.update(CLAMP_FLIP_VERSIONS_SQL, limit);
+    }
+}
@@ -0,0 +1,56 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.model.InventoryBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:45
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ */
+public interface InventoryBucketRepository extends JpaRepository<InventoryBucket, Long> {
+
+    // 按 (productId, bucketNo) 顺序加行锁，与主行加锁顺序一致
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM InventoryBucket b WHERE b.productId IN :pids ORDER BY b.productId, b.bucketNo")
+    List<InventoryBucket> findAllByProductIdInForUpdate(@Param("pids") Collection<Long> productIds);
+
+    // 单桶锁定 (available -> locked)
+    @Modifying
+    @Query("UPDATE InventoryBucket b SET b.availableStock = b.availableStock - :qty, " +
+            "b.lockedStock = b.lockedStock + :qty, b.version = b.version + 1 " +
+            "WHERE b.productId = :pid AND b.bucketNo = :bucketNo AND b.availableStock >= :qty")
+    int lockInBucket(@Param("pid") Long productId, @Param("bucketNo") int bucketNo, @Param("qty") int quantity);
+
+    // 单桶确认 (locked -> sold)
+    @Modifying
+    @Query("UPDATE InventoryBucket b SET b.lockedStock = b.lockedStock - :qty, b.soldStock = b.soldStock + :qty, " +
+            "b.version = b.version + 1 WHERE b.productId = :pid AND b.bucketNo = :bucketNo AND b.lockedStock >= :qty")
+    int confirmInBucket(@Param("pid") Long productId, @Param("bucketNo") int bucketNo, @Param("qty") int quantity);
+
+    // 单桶释放 (locked -> available)
+    @Modifying
+    @Query("UPDATE InventoryBucket b SET b.lockedStock = b.lockedStock - :qty, " +
+            "b.availableStock = b.availableStock + :qty, b.version = b.version + 1 " +
+            "WHERE b.productId = :pid AND b.bucketNo = :bucketNo AND b.lockedStock >= :qty")
+    int releaseInBucket(@Param("pid") Long productId, @Param("bucketNo") int bucketNo, @Param("qty") int quantity);
+
+    // 各商品分桶合计：productId, available, locked, sold, version
+    @Query("SELECT b.productId, SUM(b.availableStock), SUM(b.lockedStock), SUM(b.soldStock), SUM(b.version) " +
+            "FROM InventoryBucket b WHERE b.productId IN :pids GROUP BY b.productId")
+    List<Object[]> sumByProductIds(@Param("pids") Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM InventoryBucket b WHERE b.productId = :pid")
+    int deleteByProductId(@Param("pid") Long productId);
+}
@@ -0,0 +1,117 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.dto.InventoryFilter;
+import com.commerce.inventory.dto.InventoryResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 22:40
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * 库存列表只读查询，直接映射为 InventoryResponse：
+ * 1. 分页按 inventory_id 做 keyset（WHERE inventory_id > ? ORDER BY inventory_id LIMIT ?），翻页深度不影响耗时
+ * 2. 导出走 MySQL 流式结果集（fetchSize = Integer.MIN_VALUE），逐行回调，不在内存中攒整表；
+ *    可按 product_id 排序输出（唯一索引），供对账方做有序归并
+ * 3. 有货商品 ID 按 product_id 升序流式读出，供构建有货位图
+ * 分桶商品的库存为主行 + 分桶合计；预占模式下为已落库数据。
+ */
+@Repository
+public class InventoryListingRepository {
+
+    private static final String SELECT_SQL =
+            "SELECT i.inventory_id, i.product_id, " +
+                    "i.available_stock + COALESCE(b.available_stock, 0) AS available_stock, " +
+                    "i.locked_stock + COALESCE(b.locked_stock, 0) AS locked_stock, " +
+                    "i.sold_stock + COALESCE(b.sold_stock, 0) AS sold_stock, " +
+                    "i.version + COALESCE(b.version, 0) AS version, i.updated_at " +
+                    "FROM inventory i LEFT JOIN (" +
+                    "SELECT product_id, SUM(available_stock) AS available_stock, SUM(locked_stock) AS locked_stock, " +
+                    "SUM(sold_stock) AS sold_stock, SUM(version) AS version FROM inventory_bucket GROUP BY product_id" +
+                    ") b ON b.product_id = i.product_id WHERE i.inventory_id > ?";
+
+    private static final String IN_STOCK_IDS_SQL =
+            "SELECT product_id FROM inventory WHERE in_stock = TRUE ORDER BY product_id";
+
+    private static final RowMapper<InventoryResponse> ROW_MAPPER = (rs, rowNum) -> {
+        InventoryResponse response = new InventoryResponse();
+        response.setProductId(rs.getLong("product_id"));
+        response.setAvailableStock(rs.getInt("available_stock"));
+        response.setLockedStock(rs.getInt("locked_stock"));
+        response.setSoldStock(rs.getInt("sold_stock"));
+        response.setVersion(rs.getLong("version"));
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        response.setLastUpdated(updatedAt == null ? null : updatedAt.toLocalDateTime().toString());
+        return response;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public InventoryListingRepository(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL Connector/J：逐行从服务端读取
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /** 取 inventory_id > afterId 的至多 limit 行，返回 [inventoryId, 行] 供调用方计算下一页游标 */
+    public List<Row> findPage(InventoryFilter filter, long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(afterId);
+        String sql = SELECT_SQL + where(filter, args) + " ORDER BY i.inventory_id LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new Row(rs.getLong("inventory_id"), ROW_MAPPER.mapRow(rs, rowNum)),
+                args.toArray());
+    }
+
+    /** 按 inventory_id（或 product_id）顺序流式读取全部匹配行 */
+    public void stream(InventoryFilter filter, boolean orderByProduct, Consumer<InventoryResponse> consumer) {
+        List<Object> args = new ArrayList<>();
+        args.add(0L);
+        String sql = SELECT_SQL + where(filter, args) + (orderByProduct ? " ORDER BY i.product_id" : " ORDER BY i.inventory_id");
+        streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0)),
+                args.toArray());
+    }
+
+    /** 流式读取当前有货（in_stock）的全部 productId，升序 */
+    public void streamInStockProductIds(LongConsumer consumer) {
+        streamingJdbcTemplate.query(IN_STOCK_IDS_SQL, (RowCallbackHandler) rs -> consumer.accept(rs.getLong(1)));
+    }
+
+    private String where(InventoryFilter filter, List<Object> args) {
+        if (filter == null) {
+            return "";
+        }
+        StringBuilder where = new StringBuilder();
+        if (filter.getAvailableBelow() != null) {
+            where.append(" AND i.available_stock + COALESCE(b.available_stock, 0) < ?");
+            args.add(filter.getAvailableBelow());
+        }
+        if (filter.getAvailableAtLeast() != null) {
+            where.append(" AND i.available_stock + COALESCE(b.available_stock, 0) >= ?");
+            args.add(filter.getAvailableAtLeast());
+        }
+        if (filter.getSplit() != null) {
+            where.append(filter.getSplit() ? " AND i.bucket_count > 0" : " AND i.bucket_count = 0");
+        }
+        return where.toString();
+    }
+
+    public record Row(long inventoryId, InventoryResponse inventory) {
+    }
+}
@@ -1,11 +1,16 @@
 package com.commerce.inventory.repository;
 
 import com.commerce.inventory.model.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,24 +23,80 @@ import java.util.Optional;
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     Optional<Inventory> findByProductId(Long productId);
 
-    // 下单时锁定库存 (available -> locked)
+    List<Inventory> findAllByProductIdIn(Collection<Long> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId = :pid")
+    Optional<Inventory> findByProductIdForUpdate(@Param("pid") Long productId);
+
+    // 确认 / 释放后判断是否需要同步到分仓行
+    @Query("SELECT i.warehouseCount FROM Inventory i WHERE i.productId = :pid")
+    Optional<Integer> findWarehouseCountByProductId(@Param("pid") Long productId);
+
+    // 拆分状态（不加锁）：已分桶 / 分仓的商品锁定、确认、释放时不再对主行做条件 UPDATE，避免与分桶 / 分仓写入在主行上串行
+    @Query("SELECT new com.commerce.inventory.repository.InventorySplit(i.productId, i.bucketCount, i.warehouseCount) " +
+            "FROM Inventory i WHERE i.productId = :pid")
+    Optional<InventorySplit> findSplitByProductId(@Param("pid") Long productId);
+
+    @Query("SELECT new com.commerce.inventory.repository.InventorySplit(i.productId, i.bucketCount, i.warehouseCount) " +
+            "FROM Inventory i WHERE i.productId IN :pids")
+    List<InventorySplit> findSplitByProductIdIn(@Param("pids") Collection<Long> productIds);
+
+    @Query("SELECT i.productId FROM Inventory i WHERE i.bucketCount > 0")
+    List<Long> findSplitProductIds();
+
+    // 批量锁库存：按 productId 顺序加行锁，避免并发批次之间死锁
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :pids ORDER BY i.productId")
+    List<Inventory> findAllByProductIdInForUpdate(@Param("pids") Collection<Long> productIds);
+
+    // 下单时锁定库存 (available -> locked)，条件更新无需先读，未分桶 / 未分仓的商品才生效
     @Modifying
     @Query("UPDATE Inventory i SET i.availableStock = i.availableStock - :qty, " +
             "i.lockedStock = i.lockedStock + :qty, i.version = i.version + 1 " +
-            "WHERE i.productId = :pid AND i.availableStock >= :qty AND i.version = :version")
+            "WHERE i.productId = :pid AND i.bucketCount = 0 AND i.warehouseCount = 0 AND i.availableStock >= :qty")
     int lockStock(@Param("pid") Long productId,
-                  @Param("qty") int quantity,
-                  @Param("version") int version);
+                  @Param("qty") int quantity);
 
-    // 支付成功 -> 确认库存 (locked -> sold)
+    // 支付成功 -> 确认库存 (locked -> sold)，锁定库存不足或已分桶 / 分仓时不生效
     @Modifying
     @Query("UPDATE Inventory i SET i.lockedStock = i.lockedStock - :qty, " +
-            "i.soldStock = i.soldStock + :qty WHERE i.productId = :pid")
+            "i.soldStock = i.soldStock + :qty, i.version = i.version + 1 " +
+            "WHERE i.productId = :pid AND i.bucketCount = 0 AND i.warehouseCount = 0 AND i.lockedStock >= :qty")
     int confirmStock(@Param("pid") Long productId, @Param("qty") int quantity);
 
-    // 超时/支付失败 -> 释放库存 (locked -> available)
+    // 分仓商品的主行合计，随后由分仓行同步
     @Modifying
     @Query("UPDATE Inventory i SET i.lockedStock = i.lockedStock - :qty, " +
-            "i.availableStock = i.availableStock + :qty WHERE i.productId = :pid")
+            "i.soldStock = i.soldStock + :qty, i.version = i.version + 1 " +
+            "WHERE i.productId = :pid AND i.bucketCount = 0 AND i.warehouseCount > 0 AND i.lockedStock >= :qty")
+    int confirmWarehousedStock(@Param("pid") Long productId, @Param("qty") int quantity);
+
+    // 低库存告警状态翻转（不改库存版本）：状态确实改变且快照版本更新时才成功，成功的一方负责发事件
+    @Transactional
+    @Modifying
+    @Query("UPDATE Inventory i SET i.lowStock = :low, i.lowStockVersion = :version " +
+            "WHERE i.productId = :pid AND i.lowStockThreshold IS NOT NULL AND i.lowStock <> :low " +
+            "AND i.lowStockVersion <= :version")
+    int flipLowStock(@Param("pid") Long productId, @Param("low") boolean low, @Param("version") long version);
+
+    // 有货状态翻转（可用库存跨过 0），规则同低库存告警
+    @Transactional
+    @Modifying
+    @Query("UPDATE Inventory i SET i.inStock = :inStock, i.inStockVersion = :version " +
+            "WHERE i.productId = :pid AND i.inStock <> :inStock AND i.inStockVersion <= :version")
+    int flipInStock(@Param("pid") Long productId, @Param("inStock") boolean inStock, @Param("version") long version);
+
+    // 超时/支付失败 -> 释放库存 (locked -> available)，条件同确认
+    @Modifying
+    @Query("UPDATE Inventory i SET i.lockedStock = i.lockedStock - :qty, " +
+            "i.availableStock = i.availableStock + :qty, i.version = i.version + 1 " +
+            "WHERE i.productId = :pid AND i.bucketCount = 0 AND i.warehouseCount = 0 AND i.lockedStock >= :qty")
     int releaseStock(@Param("pid") Long productId, @Param("qty") int quantity);
+
+    @Modifying
+    @Query("UPDATE Inventory i SET i.lockedStock = i.lockedStock - :qty, " +
+            "i.availableStock = i.availableStock + :qty, i.version = i.version + 1 " +
+            "WHERE i.productId = :pid AND i.bucketCount = 0 AND i.warehouseCount > 0 AND i.lockedStock >= :qty")
+    int releaseWarehousedStock(@Param("pid") Long productId, @Param("qty") int quantity);
 }
@@ -0,0 +1,24 @@
+package com.commerce.inventory.repository;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 05:00
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * 商品库存的拆分状态（分桶数 / 分仓数），非加锁读取，锁定前据此选择写入路径
+ */
+public record InventorySplit(Long productId, Integer bucketCount, Integer warehouseCount) {
+
+    public boolean bucketed() {
+        return bucketCount != null && bucketCount > 0;
+    }
+
+    public boolean warehoused() {
+        return warehouseCount != null && warehouseCount > 0;
+    }
+
+    public boolean split() {
+        return bucketed() || warehoused();
+    }
+}
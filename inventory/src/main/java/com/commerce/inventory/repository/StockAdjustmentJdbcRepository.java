@@ -0,0 +1,38 @@
+package com.commerce.inventory.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:55
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * 批量调整可用库存：每个商品一条条件 UPDATE，整批一次 JDBC batch 提交。
+ * 设置值为空时按增量调整；结果为负、已分桶或已分仓的商品不更新（影响行数为 0）。
+ */
+@Repository
+public class StockAdjustmentJdbcRepository {
+
+    private static final String ADJUST_SQL =
+            "UPDATE inventory SET available_stock = COALESCE(?, available_stock) + ?, version = version + 1, " +
+                    "updated_at = NOW() WHERE product_id = ? AND bucket_count = 0 AND warehouse_count = 0 " +
+                    "AND COALESCE(?, available_stock) + ? >= 0";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 一个商品一组参数：{productId, 设置值（可为空）, 增量}，返回逐条影响行数 */
+    public int[] adjust(List<Object[]> adjustments) {
+        List<Object[]> args = new ArrayList<>(adjustments.size());
+        for (Object[] adjustment : adjustments) {
+            args.add(new Object[]{adjustment[1], adjustment[2], adjustment[0], adjustment[1], adjustment[2]});
+        }
+        return jdbcTemplate.batchUpdate(ADJUST_SQL, args);
+    }
+}
@@ -0,0 +1,60 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.dto.OrderStockMovement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:12
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * 批量 INSERT IGNORE 登记事件 / 库存操作（LOCK / CONFIRM / RELEASE），依赖逐行影响行数判断是否首次处理，
+ * 因此 inventory 的 JDBC URL 不能开启 rewriteBatchedStatements。
+ */
+@Repository
+public class StockEventDedupRepository {
+
+    private static final String MARK_PROCESSED_SQL =
+            "INSERT IGNORE INTO processed_stock_event (order_id, product_id, event_type, processed_at) " +
+                    "VALUES (?, ?, ?, NOW())";
+
+    private static final String UNMARK_SQL =
+            "DELETE FROM processed_stock_event WHERE order_id = ? AND product_id = ? AND event_type = ?";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM processed_stock_event WHERE processed_at < ? LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 登记事件，返回每条是否为首次处理（同批内重复的也只有第一条为 true） */
+    public boolean[] markProcessed(String eventType, List<OrderStockMovement> movements) {
+        int[] inserted = jdbcTemplate.batchUpdate(MARK_PROCESSED_SQL, movements.stream()
+                .map(movement -> new Object[]{movement.getOrderId(), movement.getProductId(), eventType})
+                .toList());
+        boolean[] fresh = new boolean[inserted.length];
+        for (int i = 0; i < inserted.length; i++) {
+            fresh[i] = inserted[i] > 0;
+        }
+        return fresh;
+    }
+
+    /** 撤回本事务内的登记（操作最终未执行） */
+    public void unmark(String eventType, List<OrderStockMovement> movements) {
+        jdbcTemplate.batchUpdate(UNMARK_SQL, movements.stream()
+                .map(movement -> new Object[]{movement.getOrderId(), movement.getProductId(), eventType})
+                .toList());
+    }
+
+    /** 删除早于 before 的登记 */
+    public int purgeProcessed(LocalDateTime before, int limit) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(before), limit);
+    }
+}
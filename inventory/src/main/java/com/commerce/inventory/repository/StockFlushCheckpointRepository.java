@@ -0,0 +1,31 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.model.StockFlushCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:47
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ */
+public interface StockFlushCheckpointRepository extends JpaRepository<StockFlushCheckpoint, String> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO stock_flush_checkpoint (name, position, updated_at) " +
+            "VALUES (:name, :position, NOW())", nativeQuery = true)
+    int createIfAbsent(@Param("name") String name, @Param("position") String position);
+
+    // 行锁串行化：多实例落库之间、落库与重建之间互斥
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM StockFlushCheckpoint c WHERE c.name = :name")
+    Optional<StockFlushCheckpoint> findByNameForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,70 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.model.StockMovement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 23:00
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * stock_movement 流水读写
+ */
+@Repository
+public class StockMovementJdbcRepository {
+
+    private static final String APPEND_SQL =
+            "INSERT INTO stock_movement (product_id, movement_type, available_delta, locked_delta, sold_delta, " +
+                    "compacted, created_at) VALUES (?, ?, ?, ?, ?, FALSE, NOW())";
+
+    private static final String SUM_UNCOMPACTED_SQL =
+            "SELECT COALESCE(SUM(available_delta), 0), COALESCE(SUM(locked_delta), 0), COALESCE(SUM(sold_delta), 0), " +
+                    "COUNT(*) " +
+                    "FROM stock_movement WHERE product_id = ? AND compacted = FALSE";
+
+    // 未提交的流水不可见也不会被锁，留到下一轮压缩
+    private static final String LOCK_UNCOMPACTED_SQL =
+            "SELECT movement_id, product_id, available_delta, locked_delta, sold_delta FROM stock_movement " +
+                    "WHERE compacted = FALSE ORDER BY movement_id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String MARK_COMPACTED_SQL =
+            "UPDATE stock_movement SET compacted = TRUE WHERE movement_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void append(List<StockMovement> movements) {
+        jdbcTemplate.batchUpdate(APPEND_SQL, movements.stream()
+                .map(m -> new Object[]{m.getProductId(), m.getMovementType(), m.getAvailableDelta(),
+                        m.getLockedDelta(), m.getSoldDelta()})
+                .toList());
+    }
+
+    /** 单个商品未压缩流水之和：available, locked, sold, 条数 */
+    public int[] sumUncompacted(Long productId) {
+        return jdbcTemplate.queryForObject(SUM_UNCOMPACTED_SQL,
+                (rs, rowNum) -> new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4)}, productId);
+    }
+
+    /** 需在事务内调用 */
+    public List<StockMovement> lockUncompacted(int limit) {
+        return jdbcTemplate.query(LOCK_UNCOMPACTED_SQL, (rs, rowNum) -> {
+            StockMovement movement = new StockMovement();
+            movement.setMovementId(rs.getLong("movement_id"));
+            movement.setProductId(rs.getLong("product_id"));
+            movement.setAvailableDelta(rs.getInt("available_delta"));
+            movement.setLockedDelta(rs.getInt("locked_delta"));
+            movement.setSoldDelta(rs.getInt("sold_delta"));
+            return movement;
+        }, limit);
+    }
+
+    public void markCompacted(List<Long> movementIds) {
+        jdbcTemplate.batchUpdate(MARK_COMPACTED_SQL, movementIds.stream().map(id -> new Object[]{id}).toList());
+    }
+}
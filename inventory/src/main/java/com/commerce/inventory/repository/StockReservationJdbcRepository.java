@@ -0,0 +1,102 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.dto.OrderStockMovement;
+import com.commerce.inventory.model.StockReservation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 20:35
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * 预占记录的批量读写（逐行影响行数用于判断消费结果，JDBC URL 不能开启 rewriteBatchedStatements）
+ */
+@Repository
+public class StockReservationJdbcRepository {
+
+    private static final String RESERVE_SQL =
+            "INSERT INTO stock_reservation (order_id, product_id, quantity, status, expires_at, created_at, updated_at) " +
+                    "VALUES (?, ?, ?, 'ACTIVE', ?, NOW(), NOW()) " +
+                    "ON DUPLICATE KEY UPDATE quantity = IF(status = 'ACTIVE', quantity + VALUES(quantity), VALUES(quantity)), " +
+                    "status = 'ACTIVE', expires_at = VALUES(expires_at), updated_at = NOW()";
+
+    private static final String CONSUME_SQL =
+            "UPDATE stock_reservation SET status = ?, updated_at = NOW() " +
+                    "WHERE order_id = ? AND product_id = ? AND status = 'ACTIVE'";
+
+    private static final String FIND_STATUS_SQL =
+            "SELECT status FROM stock_reservation WHERE order_id = ? AND product_id = ?";
+
+    // 多实例同时清理时互不阻塞，各取各的
+    private static final String LOCK_EXPIRED_SQL =
+            "SELECT order_id, product_id, quantity FROM stock_reservation " +
+                    "WHERE status = 'ACTIVE' AND expires_at < ? ORDER BY expires_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SUM_ACTIVE_SQL =
+            "SELECT COALESCE(SUM(quantity), 0) FROM stock_reservation WHERE product_id = ? AND status = 'ACTIVE'";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM stock_reservation WHERE status <> 'ACTIVE' AND updated_at < ? LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 登记预占（没有 orderId 的锁定不记录） */
+    public void reserve(List<OrderStockMovement> movements, LocalDateTime expiresAt) {
+        List<OrderStockMovement> owned = movements.stream().filter(m -> m.getOrderId() != null).toList();
+        if (owned.isEmpty()) {
+            return;
+        }
+        Timestamp expiry = Timestamp.valueOf(expiresAt);
+        jdbcTemplate.batchUpdate(RESERVE_SQL, owned.stream()
+                .map(m -> new Object[]{m.getOrderId(), m.getProductId(), m.getQuantity(), expiry})
+                .toList());
+    }
+
+    /** 商品当前 ACTIVE 预占的总数量 */
+    public int sumActive(Long productId) {
+        Integer sum = jdbcTemplate.queryForObject(SUM_ACTIVE_SQL, Integer.class, productId);
+        return sum == null ? 0 : sum;
+    }
+
+    /**
+     * 将 ACTIVE 预占标记为 newStatus，返回每条之前的状态：
+     * ACTIVE 表示本次消费成功；null 表示没有预占记录（功能上线前的锁定）。
+     */
+    public String[] consume(List<OrderStockMovement> movements, String newStatus) {
+        int[] updated = jdbcTemplate.batchUpdate(CONSUME_SQL, movements.stream()
+                .map(m -> new Object[]{newStatus, m.getOrderId(), m.getProductId()})
+                .toList());
+        String[] previous = new String[updated.length];
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] > 0) {
+                previous[i] = StockReservation.STATUS_ACTIVE;
+                continue;
+            }
+            OrderStockMovement m = movements.get(i);
+            previous[i] = jdbcTemplate.queryForList(FIND_STATUS_SQL, String.class, m.getOrderId(), m.getProductId())
+                    .stream().findFirst().orElse(null);
+        }
+        return previous;
+    }
+
+    /** 加锁取出一批已过期的 ACTIVE 预占，需在事务内调用 */
+    public List<OrderStockMovement> lockExpired(LocalDateTime now, int limit) {
+        return jdbcTemplate.query(LOCK_EXPIRED_SQL,
+                (rs, rowNum) -> new OrderStockMovement(rs.getLong("order_id"), rs.getLong("product_id"),
+                        rs.getInt("quantity")),
+                Timestamp.valueOf(now), limit);
+    }
+
+    /** 删除早于 before 的已消费记录 */
+    public int purgeConsumed(LocalDateTime before, int limit) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(before), limit);
+    }
+}
@@ -0,0 +1,55 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.allocation.WarehousePick;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:50
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ * 订单分仓记录的批量写入与消费
+ */
+@Repository
+public class WarehouseAllocationJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO warehouse_allocation (order_id, product_id, warehouse_id, quantity, created_at) " +
+                    "VALUES (?, ?, ?, ?, NOW())";
+
+    private static final String LOCK_SQL =
+            "SELECT warehouse_id, quantity FROM warehouse_allocation " +
+                    "WHERE order_id = ? AND product_id = ? ORDER BY allocation_id FOR UPDATE";
+
+    private static final String DELETE_SQL =
+            "DELETE FROM warehouse_allocation WHERE order_id = ? AND product_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 记录订单的分仓结果 */
+    public void insert(Long orderId, List<WarehousePick> picks) {
+        if (orderId == null || picks.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, picks.stream()
+                .map(pick -> new Object[]{orderId, pick.productId(), pick.warehouseId(), pick.quantity()})
+                .toList());
+    }
+
+    /** 取出并删除订单某商品的分仓记录 */
+    public List<WarehousePick> take(Long orderId, Long productId) {
+        List<WarehousePick> picks = jdbcTemplate.query(LOCK_SQL,
+                (rs, rowNum) -> new WarehousePick(rs.getLong("warehouse_id"), productId, rs.getInt("quantity")),
+                orderId, productId);
+        if (!picks.isEmpty()) {
+            jdbcTemplate.update(DELETE_SQL, orderId, productId);
+        }
+        return picks;
+    }
+}
@@ -0,0 +1,20 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.model.Warehouse;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:46
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ */
+public interface WarehouseRepository extends JpaRepository<Warehouse, Long> {
+
+    boolean existsByCode(String code);
+
+    List<Warehouse> findAllByActiveTrue();
+}
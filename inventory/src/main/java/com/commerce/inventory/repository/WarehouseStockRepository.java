@@ -0,0 +1,56 @@
+package com.commerce.inventory.repository;
+
+import com.commerce.inventory.model.WarehouseStock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 00:48
+ * @package com.commerce.inventory.repository
+ * <p>
+ * Description:
+ */
+public interface WarehouseStockRepository extends JpaRepository<WarehouseStock, Long> {
+
+    List<WarehouseStock> findAllByProductIdOrderByWarehouseId(Long productId);
+
+    Optional<WarehouseStock> findByProductIdAndWarehouseId(Long productId, Long warehouseId);
+
+    // 主行已加锁后读取分仓行：加锁读保证读到最新提交，而不是事务开始时的快照
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM WarehouseStock s WHERE s.productId IN :pids ORDER BY s.productId, s.warehouseId")
+    List<WarehouseStock> findAllByProductIdInForUpdate(@Param("pids") Collection<Long> productIds);
+
+    // 单仓锁定 (available -> locked)
+    @Modifying
+    @Query("UPDATE WarehouseStock s SET s.availableStock = s.availableStock - :qty, " +
+            "s.lockedStock = s.lockedStock + :qty " +
+            "WHERE s.productId = :pid AND s.warehouseId = :wid AND s.availableStock >= :qty")
+    int lockInWarehouse(@Param("pid") Long productId, @Param("wid") Long warehouseId, @Param("qty") int quantity);
+
+    // 单仓确认 (locked -> sold)
+    @Modifying
+    @Query("UPDATE WarehouseStock s SET s.lockedStock = s.lockedStock - :qty, s.soldStock = s.soldStock + :qty " +
+            "WHERE s.productId = :pid AND s.warehouseId = :wid AND s.lockedStock >= :qty")
+    int confirmInWarehouse(@Param("pid") Long productId, @Param("wid") Long warehouseId, @Param("qty") int quantity);
+
+    // 单仓释放 (locked -> available)
+    @Modifying
+    @Query("UPDATE WarehouseStock s SET s.lockedStock = s.lockedStock - :qty, " +
+            "s.availableStock = s.availableStock + :qty " +
+            "WHERE s.productId = :pid AND s.warehouseId = :wid AND s.lockedStock >= :qty")
+    int releaseInWarehouse(@Param("pid") Long productId, @Param("wid") Long warehouseId, @Param("qty") int quantity);
+
+    @Modifying
+    @Query("DELETE FROM WarehouseStock s WHERE s.productId = :pid")
+    int deleteByProductId(@Param("pid") Long productId);
+}
@@ -0,0 +1,488 @@
+package com.commerce.inventory.reservation;
+
+import com.commerce.inventory.exceptions.ApiException;
+import com.commerce.inventory.exceptions.ResourceNotFoundException;
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 18:40
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * 进程内库存台账（inventory.reservation.mode=ledger，单实例部署；多实例需开启 inventory.ownership 按商品分片）：
+ * 1. 每个商品一组内存计数，按 productId 分段加锁，锁定 / 确认 / 释放只在内存中校验和加减
+ * 2. 提交线程每隔几毫秒把累计增量按商品合并，一个事务批量写回 MySQL
+ * 3. 调用方等待其增量所在批次提交后返回；批次失败时回滚内存增量并向调用方报错，
+ *    单个商品与 MySQL 不一致时只丢弃该商品的增量（重新加载），其余商品照常提交
+ * 4. 调用方等待超时 / 被中断 / 部分商品被丢弃时，已提交（或之后才提交）的增量由台账反向抵消，不留下无主的锁定
+ * 版本与 MySQL 对齐：加载时取 inventory.version，每次操作 +1，提交时 MySQL 版本加上本批操作数，
+ * 交接给其他实例或切换回 MySQL 后事件版本仍连续递增。
+ * 热门商品的并发预占不再受限于 inventory 单行的行锁吞吐。
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.mode", havingValue = "ledger")
+@Slf4j
+public class InMemoryStockLedger implements StockReservationStrategy {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE inventory SET available_stock = available_stock + ?, locked_stock = locked_stock + ?, " +
+                    "sold_stock = sold_stock + ?, version = version + ?, updated_at = NOW() " +
+                    "WHERE product_id = ? AND available_stock + ? >= 0 AND locked_stock + ? >= 0";
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${inventory.reservation.ledger.stripes:64}")
+    private int stripeCount;
+
+    @Value("${inventory.reservation.ledger.commit-interval-ms:5}")
+    private long commitIntervalMs;
+
+    @Value("${inventory.reservation.ledger.commit-timeout-ms:5000}")
+    private long commitTimeoutMs;
+
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    /** 提交与重新加载互斥：保证加载时 MySQL 不包含“已取出但未提交”的增量 */
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private ReentrantLock[] stripes;
+    /** 当前批次的提交结果（被丢弃增量的商品），仅在持有全部分段锁时替换 */
+    private volatile CompletableFuture<Set<Long>> currentBatch = new CompletableFuture<>();
+
+    private Thread committer;
+    private volatile boolean running;
+    private Counter commitCounter;
+
+    @PostConstruct
+    void start() {
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        commitCounter = Counter.builder("inventory.ledger.commits")
+                .description("Transactions committed by the in-memory stock ledger")
+                .register(meterRegistry);
+
+        running = true;
+        committer = new Thread(this::runCommitter, "inventory-ledger-committer");
+        committer.setDaemon(true);
+        committer.start();
+        log.info("[Inventory] In-memory stock ledger started → stripes={}, commitIntervalMs={}",
+                stripeCount, commitIntervalMs);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(committer);
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    // -----------------------------------------------------------------------
+    // 内存操作
+    // -----------------------------------------------------------------------
+    @Override
+    public boolean lock(Map<Long, Integer> quantities) {
+        List<ReentrantLock> held = lockStripes(quantities.keySet());
+        Map<Long, int[]> applied = new TreeMap<>();
+        CompletableFuture<Set<Long>> batch;
+        try {
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                if (counter(entry.getKey()).available < entry.getValue()) {
+                    return false;
+                }
+            }
+            quantities.forEach((productId, quantity) -> {
+                counter(productId).apply(productId, -quantity, quantity, 0, dirty);
+                applied.put(productId, new int[]{-quantity, quantity, 0});
+            });
+            batch = currentBatch;
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+        awaitCommit(batch, applied);
+        return true;
+    }
+
+    @Override
+    public boolean confirm(Long productId, int quantity) {
+        return move(productId, quantity, 0, -quantity, quantity);
+    }
+
+    @Override
+    public boolean release(Long productId, int quantity) {
+        return move(productId, quantity, quantity, -quantity, 0);
+    }
+
+    /** 从 locked 转出 */
+    private boolean move(Long productId, int quantity, int availableDelta, int lockedDelta, int soldDelta) {
+        ReentrantLock stripe = stripe(productId);
+        CompletableFuture<Set<Long>> batch;
+        stripe.lock();
+        try {
+            StockCounter counter = counter(productId);
+            if (counter.locked < quantity) {
+                return false;
+            }
+            counter.apply(productId, availableDelta, lockedDelta, soldDelta, dirty);
+            batch = currentBatch;
+        } finally {
+            stripe.unlock();
+        }
+        awaitCommit(batch, Map.of(productId, new int[]{availableDelta, lockedDelta, soldDelta}));
+        return true;
+    }
+
+    @Override
+    public void reload(Long productId) {
+        commitLock.lock();
+        try {
+            ReentrantLock stripe = stripe(productId);
+            stripe.lock();
+            try {
+                StockCounter existing = counters.get(productId);
+                StockCounter loaded = load(productId);
+                if (existing != null) {
+                    // 尚未提交的增量（及其操作数）叠加在新基线上
+                    loaded.carry(productId, existing, dirty);
+                }
+                counters.put(productId, loaded);
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public void evict(Long productId) {
+        commitLock.lock();
+        try {
+            ReentrantLock stripe = stripe(productId);
+            stripe.lock();
+            try {
+                counters.remove(productId);
+                dirty.remove(productId);
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /**
+     * 归属变更交接：先提交已有增量，再丢弃不再由本实例持有的商品计数，新持有者从 MySQL 重新加载。
+     * 仍有未提交增量的计数（交接期间的在途请求）保留到下一次交接，返回保留的数量。
+     */
+    public int handOff(Predicate<Long> stillOwned) {
+        commitLock.lock();
+        try {
+            commit();
+            int retained = 0;
+            int dropped = 0;
+            for (Long productId : new ArrayList<>(counters.keySet())) {
+                if (stillOwned.test(productId)) {
+                    continue;
+                }
+                ReentrantLock stripe = stripe(productId);
+                stripe.lock();
+                try {
+                    StockCounter counter = counters.get(productId);
+                    if (counter != null && counter.hasPending()) {
+                        retained++;
+                    } else {
+                        counters.remove(productId);
+                        dropped++;
+                    }
+                } finally {
+                    stripe.unlock();
+                }
+            }
+            if (dropped > 0 || retained > 0) {
+                log.info("[Inventory] Ledger handed off {} product counters, {} still pending", dropped, retained);
+            }
+            return retained;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<StockLevels> current(Long productId) {
+        ReentrantLock stripe = stripe(productId);
+        stripe.lock();
+        try {
+            StockCounter counter = counter(productId);
+            return Optional.of(new StockLevels(counter.available, counter.locked, counter.sold, counter.version));
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /** 需持有对应分段锁 */
+    private StockCounter counter(Long productId) {
+        return counters.computeIfAbsent(productId, this::load);
+    }
+
+    private StockCounter load(Long productId) {
+        Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        StockCounter counter = new StockCounter();
+        counter.available = inventory.getAvailableStock();
+        counter.locked = inventory.getLockedStock();
+        counter.sold = inventory.getSoldStock();
+        counter.version = inventory.getVersion();
+        return counter;
+    }
+
+    private ReentrantLock stripe(Long productId) {
+        return stripes[Math.floorMod(productId.hashCode(), stripes.length)];
+    }
+
+    /** 按分段下标升序加锁，避免多商品锁定之间死锁 */
+    private List<ReentrantLock> lockStripes(Collection<Long> productIds) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        productIds.forEach(productId -> indexes.add(Math.floorMod(productId.hashCode(), stripes.length)));
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            held.add(stripes[index]);
+        }
+        return held;
+    }
+
+    /**
+     * 等待 applied 所在批次提交。调用方收到异常后会回滚自己的事务，
+     * 因此未能确认提交的增量要在这里抵消：整批失败的已随 revert 丢弃，
+     * 超时 / 中断的在批次结束后抵消，部分商品被丢弃的立即抵消其余已提交的商品。
+     */
+    private void awaitCommit(CompletableFuture<Set<Long>> batch, Map<Long, int[]> applied) {
+        LockSupport.unpark(committer);
+        Set<Long> discarded;
+        try {
+            discarded = batch.get(commitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            compensateWhenDone(batch, applied);
+            throw new ApiException("Interrupted while waiting for stock commit", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (TimeoutException e) {
+            compensateWhenDone(batch, applied);
+            throw new ApiException("Failed to persist stock change, please retry", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw new ApiException("Failed to persist stock change, please retry", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (applied.keySet().stream().anyMatch(discarded::contains)) {
+            compensate(applied, discarded);
+            throw new ApiException("Stock changed outside the ledger, please retry", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private void compensateWhenDone(CompletableFuture<Set<Long>> batch, Map<Long, int[]> applied) {
+        batch.whenComplete((discarded, failure) -> {
+            if (failure == null) {
+                compensate(applied, discarded);
+            }
+        });
+    }
+
+    /** 反向应用已提交的增量（不含被丢弃的商品），随下一批次写回 MySQL */
+    private void compensate(Map<Long, int[]> applied, Set<Long> discarded) {
+        applied.forEach((productId, delta) -> {
+            if (discarded.contains(productId)) {
+                return;
+            }
+            ReentrantLock stripe = stripe(productId);
+            stripe.lock();
+            try {
+                counter(productId).apply(productId, -delta[0], -delta[1], -delta[2], dirty);
+                log.warn("[Inventory] Reverted unacknowledged ledger change → productId={}, delta={}",
+                        productId, Arrays.toString(delta));
+            } catch (ResourceNotFoundException e) {
+                log.warn("[Inventory] Inventory removed before ledger change could be reverted → productId={}", productId);
+            } finally {
+                stripe.unlock();
+            }
+        });
+        LockSupport.unpark(committer);
+    }
+
+    // -----------------------------------------------------------------------
+    // 提交线程
+    // -----------------------------------------------------------------------
+    private void runCommitter() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMs);
+        while (running || !dirty.isEmpty()) {
+            LockSupport.parkNanos(intervalNanos);
+            try {
+                commit();
+            } catch (Throwable t) {
+                log.error("[Inventory] Unexpected ledger committer failure", t);
+            }
+        }
+    }
+
+    private void commit() {
+        commitLock.lock();
+        try {
+            if (dirty.isEmpty()) {
+                return;
+            }
+
+            // 持有全部分段锁取出增量并切换批次，保证“增量所在批次”与调用方等待的批次一致
+            Map<Long, int[]> deltas = new TreeMap<>();
+            CompletableFuture<Set<Long>> batch;
+            for (ReentrantLock stripe : stripes) {
+                stripe.lock();
+            }
+            try {
+                for (Long productId : dirty) {
+                    StockCounter counter = counters.get(productId);
+                    if (counter != null) {
+                        deltas.put(productId, counter.drainPending());
+                    }
+                }
+                dirty.clear();
+                batch = currentBatch;
+                currentBatch = new CompletableFuture<>();
+            } finally {
+                for (ReentrantLock stripe : stripes) {
+                    stripe.unlock();
+                }
+            }
+
+            try {
+                Set<Long> drifted = transactionTemplate.execute(status -> writeDeltas(deltas));
+                commitCounter.increment();
+                if (!drifted.isEmpty()) {
+                    log.error("[Inventory] Stock drifted from ledger, discarding their deltas and reloading → productIds={}",
+                            drifted);
+                    revert(drifted);
+                }
+                batch.complete(drifted);
+            } catch (Exception e) {
+                log.error("[Inventory] Ledger commit of {} products failed, reverting → {}",
+                        deltas.size(), e.getMessage(), e);
+                revert(deltas.keySet());
+                batch.completeExceptionally(e);
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    /** 逐商品条件更新，返回未命中（MySQL 已与台账不一致）的商品，其余商品照常提交 */
+    private Set<Long> writeDeltas(Map<Long, int[]> deltas) {
+        List<Long> productIds = new ArrayList<>(deltas.keySet());
+        int[] updated = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, productIds.stream()
+                .map(productId -> {
+                    int[] delta = deltas.get(productId);
+                    return new Object[]{delta[0], delta[1], delta[2], delta[3], productId, delta[0], delta[1]};
+                })
+                .toList());
+        Set<Long> drifted = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                drifted.add(productIds.get(i));
+            }
+        }
+        return drifted;
+    }
+
+    /** 丢弃未写入的增量：以 MySQL 为基线、叠加之后新产生的增量重新加载 */
+    private void revert(Collection<Long> productIds) {
+        productIds.forEach(productId -> {
+            try {
+                reload(productId);
+            } catch (ResourceNotFoundException e) {
+                evict(productId);
+            }
+        });
+    }
+
+    // -----------------------------------------------------------------------
+    // 单商品计数
+    // -----------------------------------------------------------------------
+    private static final class StockCounter {
+        private int available;
+        private int locked;
+        private int sold;
+        private int pendingAvailable;
+        private int pendingLocked;
+        private int pendingSold;
+        private int pendingOps;
+        /** = MySQL 版本 + 未提交操作数 */
+        private long version;
+
+        private void apply(Long productId, int availableDelta, int lockedDelta, int soldDelta, Set<Long> dirty) {
+            available += availableDelta;
+            locked += lockedDelta;
+            sold += soldDelta;
+            pendingAvailable += availableDelta;
+            pendingLocked += lockedDelta;
+            pendingSold += soldDelta;
+            pendingOps++;
+            version++;
+            dirty.add(productId);
+        }
+
+        private void carry(Long productId, StockCounter existing, Set<Long> dirty) {
+            available += existing.pendingAvailable;
+            locked += existing.pendingLocked;
+            sold += existing.pendingSold;
+            pendingAvailable = existing.pendingAvailable;
+            pendingLocked = existing.pendingLocked;
+            pendingSold = existing.pendingSold;
+            pendingOps = existing.pendingOps;
+            version += existing.pendingOps;
+            if (hasPending()) {
+                dirty.add(productId);
+            }
+        }
+
+        private boolean hasPending() {
+            return pendingOps != 0;
+        }
+
+        /** available, locked, sold, 操作数 */
+        private int[] drainPending() {
+            int[] delta = {pendingAvailable, pendingLocked, pendingSold, pendingOps};
+            pendingAvailable = 0;
+            pendingLocked = 0;
+            pendingSold = 0;
+            pendingOps = 0;
+            return delta;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.commerce.inventory.reservation;
+
+import com.commerce.inventory.exceptions.ResourceNotFoundException;
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.model.StockMovement;
+import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.repository.StockMovementJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 23:05
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * 流水记账（inventory.reservation.mode=journal，仅适用于单实例部署）：
+ * 1. 锁定 / 确认 / 释放只向 stock_movement 追加一行，与调用方同一事务提交，不更新 inventory 行
+ * 2. 余额 = inventory 快照 + 未压缩流水，首次访问时加载到内存，按 productId 分段加锁校验；
+ *    重新加载读不到未提交的流水，有在途事务时推迟到该商品的在途事务全部结束后执行
+ * 3. 内存中减少的一侧立即生效、回滚时加回，增加的一侧提交后才计入；StockMovementCompactor 定期把流水合并进快照
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.mode", havingValue = "journal")
+@Slf4j
+public class JournalStockReservation implements StockReservationStrategy {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockMovementJdbcRepository stockMovementJdbcRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.reservation.journal.stripes:64}")
+    private int stripeCount;
+
+    private final Map<Long, Balance> balances = new ConcurrentHashMap<>();
+    private ReentrantLock[] stripes;
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    void init() {
+        // 推迟的重新加载在其他事务的 afterCompletion 中执行，始终开启独立事务
+        requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public boolean lock(Map<Long, Integer> quantities) {
+        List<ReentrantLock> held = lockStripes(quantities.keySet());
+        try {
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                if (balance(entry.getKey()).available < entry.getValue()) {
+                    return false;
+                }
+            }
+            List<StockMovement> movements = new ArrayList<>(quantities.size());
+            quantities.forEach((productId, quantity) ->
+                    movements.add(movement(productId, StockMovement.TYPE_LOCK, -quantity, quantity, 0)));
+            append(movements);
+            return true;
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    @Override
+    public boolean confirm(Long productId, int quantity) {
+        return move(movement(productId, StockMovement.TYPE_CONFIRM, 0, -quantity, quantity), quantity);
+    }
+
+    @Override
+    public boolean release(Long productId, int quantity) {
+        return move(movement(productId, StockMovement.TYPE_RELEASE, quantity, -quantity, 0), quantity);
+    }
+
+    /** 从 locked 转出 */
+    private boolean move(StockMovement movement, int quantity) {
+        ReentrantLock stripe = stripe(movement.getProductId());
+        stripe.lock();
+        try {
+            Map<Long, Integer> ownLocked = ownPendingLocked();
+            int credit = ownLocked.getOrDefault(movement.getProductId(), 0);
+            if (balance(movement.getProductId()).locked + credit < quantity) {
+                return false;
+            }
+            append(List.of(movement));
+            if (credit > 0) {
+                ownLocked.put(movement.getProductId(), credit - Math.min(credit, quantity));
+            }
+            return true;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * 需持有相关分段锁。减少的一侧（如锁定时的 available、确认时的 locked）先扣内存再写流水，
+     * 写入失败或事务回滚时加回；增加的一侧在事务提交后才计入，未提交前其他线程看不到也用不到，
+     * 回滚后不会把已被别人用掉的库存扣成负数。
+     */
+    private void append(List<StockMovement> movements) {
+        movements.forEach(movement -> applyDecreases(movement, 1));
+        try {
+            stockMovementJdbcRepository.append(movements);
+        } catch (RuntimeException e) {
+            movements.forEach(movement -> applyDecreases(movement, -1));
+            throw e;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            movements.forEach(this::applyIncreases);
+            return;
+        }
+        movements.forEach(movement -> balance(movement.getProductId()).inFlight++);
+        Map<Long, Integer> ownLocked = ownPendingLocked();
+        movements.stream().filter(movement -> movement.getLockedDelta() > 0)
+                .forEach(movement -> ownLocked.merge(movement.getProductId(), movement.getLockedDelta(), Integer::sum));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                complete(movements, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    /**
+     * 本事务内已锁定但未提交的数量：同一事务内随后的确认 / 释放（如过期预占重新锁定后确认）可以使用，
+     * 其他事务看不到。无事务时为空。
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, Integer> ownPendingLocked() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new HashMap<>();
+        }
+        Map<Long, Integer> ownLocked = (Map<Long, Integer>) TransactionSynchronizationManager.getResource(this);
+        if (ownLocked == null) {
+            Map<Long, Integer> created = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(JournalStockReservation.this);
+                }
+            });
+            ownLocked = created;
+        }
+        return ownLocked;
+    }
+
+    private void complete(List<StockMovement> movements, boolean committed) {
+        List<ReentrantLock> held = lockStripes(movements.stream().map(StockMovement::getProductId).toList());
+        try {
+            movements.forEach(movement -> {
+                Balance balance = balances.get(movement.getProductId());
+                if (balance == null) {
+                    return;
+                }
+                if (committed) {
+                    applyIncreases(movement);
+                } else {
+                    applyDecreases(movement, -1);
+                }
+                balance.inFlight--;
+            });
+            movements.stream().map(StockMovement::getProductId).distinct().forEach(productId -> {
+                Balance balance = balances.get(productId);
+                if (balance != null && balance.inFlight == 0 && balance.reloadRequested) {
+                    try {
+                        balances.put(productId, load(productId));
+                    } catch (RuntimeException e) {
+                        // 保留请求，下一次在途归零时再试
+                        log.error("[Inventory] Deferred journal reload failed → productId={}", productId, e);
+                    }
+                }
+            });
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+        if (!committed) {
+            log.warn("[Inventory] Transaction rolled back, reverted {} journal movements", movements.size());
+        }
+    }
+
+    private void applyDecreases(StockMovement movement, int sign) {
+        Balance balance = balance(movement.getProductId());
+        balance.available += sign * Math.min(0, movement.getAvailableDelta());
+        balance.locked += sign * Math.min(0, movement.getLockedDelta());
+        balance.sold += sign * Math.min(0, movement.getSoldDelta());
+    }
+
+    // 版本只计已提交的操作
+    private void applyIncreases(StockMovement movement) {
+        Balance balance = balance(movement.getProductId());
+        balance.available += Math.max(0, movement.getAvailableDelta());
+        balance.locked += Math.max(0, movement.getLockedDelta());
+        balance.sold += Math.max(0, movement.getSoldDelta());
+        balance.version++;
+    }
+
+    @Override
+    public boolean transactional() {
+        return true;
+    }
+
+    @Override
+    public void reload(Long productId) {
+        ReentrantLock stripe = stripe(productId);
+        stripe.lock();
+        try {
+            Balance existing = balances.get(productId);
+            if (existing != null && existing.inFlight > 0) {
+                existing.reloadRequested = true;
+                return;
+            }
+            balances.put(productId, load(productId));
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public void evict(Long productId) {
+        ReentrantLock stripe = stripe(productId);
+        stripe.lock();
+        try {
+            balances.remove(productId);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public Optional<StockLevels> current(Long productId) {
+        ReentrantLock stripe = stripe(productId);
+        stripe.lock();
+        try {
+            Balance balance = balance(productId);
+            return Optional.of(new StockLevels(balance.available, balance.locked, balance.sold, balance.version));
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /** 需持有对应分段锁 */
+    private Balance balance(Long productId) {
+        return balances.computeIfAbsent(productId, this::load);
+    }
+
+    /** 同一只读事务内读取快照与未压缩流水，二者一致 */
+    private Balance load(Long productId) {
+        return requiresNew.execute(status -> {
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+            int[] tail = stockMovementJdbcRepository.sumUncompacted(productId);
+            Balance balance = new Balance();
+            balance.available = inventory.getAvailableStock() + tail[0];
+            balance.locked = inventory.getLockedStock() + tail[1];
+            balance.sold = inventory.getSoldStock() + tail[2];
+            // 版本 = 快照版本 + 未压缩流水条数，与压缩后的 MySQL 版本一致
+            balance.version = inventory.getVersion() + tail[3];
+            return balance;
+        });
+    }
+
+    private StockMovement movement(Long productId, String type, int availableDelta, int lockedDelta, int soldDelta) {
+        return new StockMovement(null, productId, type, availableDelta, lockedDelta, soldDelta, false,
+                LocalDateTime.now());
+    }
+
+    private ReentrantLock stripe(Long productId) {
+        return stripes[Math.floorMod(productId.hashCode(), stripes.length)];
+    }
+
+    /** 按分段下标升序加锁，避免多商品锁定之间死锁 */
+    private List<ReentrantLock> lockStripes(Collection<Long> productIds) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        productIds.forEach(productId -> indexes.add(Math.floorMod(productId.hashCode(), stripes.length)));
+        List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            held.add(stripes[index]);
+        }
+        return held;
+    }
+
+    private static final class Balance {
+        private int available;
+        private int locked;
+        private int sold;
+        private long version;
+        /** 已追加流水、所在事务尚未结束的操作数 */
+        private int inFlight;
+        /** 有在途操作时收到的重新加载请求，在途归零时执行 */
+        private boolean reloadRequested;
+    }
+}
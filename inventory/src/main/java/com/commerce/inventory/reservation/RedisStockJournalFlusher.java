@@ -0,0 +1,126 @@
+package com.commerce.inventory.reservation;
+
+import com.commerce.inventory.model.StockFlushCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 18:10
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * 写后落库：读取 checkpoint 之后的 journal，按商品合并增量，
+ * 一条 UPDATE 一个商品批量写回 inventory，并在同一事务内推进 checkpoint。
+ * 提交后再裁剪 journal；裁剪失败只会导致重复读取，已落库的条目会因 checkpoint 被跳过。
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.mode", havingValue = "redis")
+@Slf4j
+public class RedisStockJournalFlusher {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE inventory SET available_stock = available_stock + ?, locked_stock = locked_stock + ?, " +
+                    "sold_stock = sold_stock + ?, version = version + ?, updated_at = NOW() WHERE product_id = ?";
+
+    private final RedisScript<Long> trimScript =
+            RedisScript.of(new ClassPathResource("lua/journal_trim.lua"), Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private RedisStockReservation redisStockReservation;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.reservation.redis.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.redis.flush-interval-ms:200}")
+    public void flush() {
+        try {
+            // 积压时连续落库，直到追上 journal 尾部
+            while (flushBatch() >= flushBatchSize) {
+                log.debug("[Inventory] Journal backlog remaining, flushing next batch");
+            }
+        } catch (Exception e) {
+            log.error("[Inventory] Failed to flush stock journal → {}", e.getMessage(), e);
+        }
+    }
+
+    /** 落库一批，返回本批处理的 journal 条目数 */
+    private int flushBatch() {
+        String[] flushedTo = new String[1];
+        Integer flushed = transactionTemplate.execute(status -> {
+            StockFlushCheckpoint checkpoint = redisStockReservation.lockCheckpoint();
+            String position = checkpoint.getPosition();
+
+            // 起点含 checkpoint 本身，多取一条再跳过
+            List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().range(
+                    RedisStockReservation.JOURNAL_KEY,
+                    Range.rightUnbounded(Range.Bound.inclusive(position)),
+                    Limit.limit().count(flushBatchSize + 1));
+            if (records == null) {
+                return 0;
+            }
+            records = records.stream()
+                    .filter(record -> !record.getId().getValue().equals(position))
+                    .limit(flushBatchSize)
+                    .toList();
+            if (records.isEmpty()) {
+                return 0;
+            }
+
+            // 按 productId 排序合并，与批量锁库存的加锁顺序一致
+            Map<Long, int[]> deltas = new TreeMap<>();
+            for (MapRecord<String, Object, Object> record : records) {
+                Map<Object, Object> fields = record.getValue();
+                int[] delta = deltas.computeIfAbsent(Long.valueOf(fields.get("pid").toString()), pid -> new int[4]);
+                delta[0] += intField(fields, "available");
+                delta[1] += intField(fields, "locked");
+                delta[2] += intField(fields, "sold");
+                delta[3]++;
+            }
+            // 每条 journal 对应 hash 中 version 的一次递增，MySQL 版本按条数推进
+
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, deltas.entrySet().stream()
+                    .map(entry -> new Object[]{entry.getValue()[0], entry.getValue()[1],
+                            entry.getValue()[2], entry.getValue()[3], entry.getKey()})
+                    .toList());
+
+            flushedTo[0] = records.get(records.size() - 1).getId().getValue();
+            checkpoint.setPosition(flushedTo[0]);
+            log.info("[Inventory] Flushed {} journal entries as {} product updates → position={}",
+                    records.size(), deltas.size(), flushedTo[0]);
+            return records.size();
+        });
+
+        if (flushedTo[0] != null) {
+            redisTemplate.execute(trimScript, List.of(RedisStockReservation.JOURNAL_KEY), flushedTo[0]);
+        }
+        return flushed == null ? 0 : flushed;
+    }
+
+    private int intField(Map<Object, Object> fields, String name) {
+        Object value = fields.get(name);
+        return value == null ? 0 : Integer.parseInt(value.toString());
+    }
+}
@@ -0,0 +1,212 @@
+package com.commerce.inventory.reservation;
+
+import com.commerce.inventory.exceptions.ApiException;
+import com.commerce.inventory.exceptions.ResourceNotFoundException;
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.model.StockFlushCheckpoint;
+import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.repository.StockFlushCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:55
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * Redis 预扣库存（inventory.reservation.mode=redis）：
+ * 1. 每个商品一个 hash（available / locked / sold），由 Lua 脚本原子校验并加减，
+ *    同一脚本内把增量追加到 journal stream
+ * 2. RedisStockJournalFlusher 定时把 journal 增量按商品合并后批量写回 MySQL，
+ *    并在同一事务内推进 stock_flush_checkpoint
+ * 3. 重建 = MySQL 基线 + checkpoint 之后的 journal 增量，缺失的 key 在首次访问时按此加载
+ * Redis 需开启 AOF，否则宕机会丢失尚未落库的增量。
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.mode", havingValue = "redis")
+@Slf4j
+public class RedisStockReservation implements StockReservationStrategy {
+
+    static final String STOCK_KEY_PREFIX = "inventory:stock:";
+    static final String JOURNAL_KEY = "inventory:stock-journal";
+    static final String CHECKPOINT_NAME = "redis-stock-journal";
+    static final String INITIAL_POSITION = "0-0";
+
+    private static final String FIELD_AVAILABLE = "available";
+    private static final String FIELD_LOCKED = "locked";
+    private static final String FIELD_SOLD = "sold";
+    private static final String FIELD_VERSION = "version";
+
+    private final RedisScript<Long> lockScript =
+            RedisScript.of(new ClassPathResource("lua/stock_lock.lua"), Long.class);
+    private final RedisScript<Long> moveScript =
+            RedisScript.of(new ClassPathResource("lua/stock_move.lua"), Long.class);
+    private final RedisScript<Long> hydrateScript =
+            RedisScript.of(new ClassPathResource("lua/stock_hydrate.lua"), Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private StockFlushCheckpointRepository checkpointRepository;
+
+    @Value("${inventory.reservation.redis.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    private final TransactionTemplate requiresNew;
+
+    public RedisStockReservation(PlatformTransactionManager transactionManager) {
+        // 可能在 afterCommit 或外层事务中调用，始终开启独立事务
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public boolean lock(Map<Long, Integer> quantities) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<String> keys = new ArrayList<>(productIds.size() + 1);
+        List<String> args = new ArrayList<>(productIds.size() * 2);
+        for (Long productId : productIds) {
+            keys.add(stockKey(productId));
+            args.add(productId.toString());
+            args.add(quantities.get(productId).toString());
+        }
+        keys.add(JOURNAL_KEY);
+
+        // 每轮最多加载一个缺失的 key
+        for (int attempt = 0; attempt <= productIds.size(); attempt++) {
+            Long result = redisTemplate.execute(lockScript, keys, args.toArray());
+            if (result == null || result >= 0) {
+                return result != null && result == 1;
+            }
+            hydrate(productIds.get((int) (-result - 1)), false);
+        }
+        throw new ApiException("Failed to load stock into Redis", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Override
+    public boolean confirm(Long productId, int quantity) {
+        return move(productId, quantity, FIELD_LOCKED, FIELD_SOLD);
+    }
+
+    @Override
+    public boolean release(Long productId, int quantity) {
+        return move(productId, quantity, FIELD_LOCKED, FIELD_AVAILABLE);
+    }
+
+    private boolean move(Long productId, int quantity, String from, String to) {
+        List<String> keys = List.of(stockKey(productId), JOURNAL_KEY);
+        Long result = redisTemplate.execute(moveScript, keys,
+                productId.toString(), Integer.toString(quantity), from, to);
+        if (result != null && result == -1) {
+            hydrate(productId, false);
+            result = redisTemplate.execute(moveScript, keys,
+                    productId.toString(), Integer.toString(quantity), from, to);
+        }
+        return result != null && result == 1;
+    }
+
+    @Override
+    public void reload(Long productId) {
+        hydrate(productId, true);
+    }
+
+    @Override
+    public void evict(Long productId) {
+        redisTemplate.delete(stockKey(productId));
+    }
+
+    @Override
+    public Optional<StockLevels> current(Long productId) {
+        List<Object> values = readLevels(productId);
+        if (values.subList(0, 3).contains(null)) {
+            hydrate(productId, false);
+            values = readLevels(productId);
+        }
+        if (values.subList(0, 3).contains(null)) {
+            return Optional.empty();
+        }
+        return Optional.of(new StockLevels(
+                Integer.parseInt(values.get(0).toString()),
+                Integer.parseInt(values.get(1).toString()),
+                Integer.parseInt(values.get(2).toString()),
+                values.get(3) == null ? 0L : Long.parseLong(values.get(3).toString())));
+    }
+
+    private List<Object> readLevels(Long productId) {
+        return redisTemplate.opsForHash().multiGet(stockKey(productId),
+                List.of(FIELD_AVAILABLE, FIELD_LOCKED, FIELD_SOLD, FIELD_VERSION));
+    }
+
+    /**
+     * 按 MySQL 基线 + 未落库增量全量重建（Redis 故障切换 / 数据丢失后执行）。
+     */
+    public int rebuildAll() {
+        Integer rebuilt = requiresNew.execute(status -> {
+            String checkpoint = lockCheckpoint().getPosition();
+            List<Inventory> inventories = inventoryRepository.findAll();
+            inventories.forEach(inventory -> applyHydrate(inventory, checkpoint, true));
+            return inventories.size();
+        });
+        log.info("[Inventory] Rebuilt Redis stock from MySQL + journal → products={}", rebuilt);
+        return rebuilt == null ? 0 : rebuilt;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            rebuildAll();
+        }
+    }
+
+    /** 锁住 checkpoint 行读取基线，期间落库线程无法推进，MySQL 与 journal 位置一致 */
+    private void hydrate(Long productId, boolean force) {
+        requiresNew.executeWithoutResult(status -> {
+            String checkpoint = lockCheckpoint().getPosition();
+            Inventory inventory = inventoryRepository.findByProductId(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+            applyHydrate(inventory, checkpoint, force);
+        });
+    }
+
+    private void applyHydrate(Inventory inventory, String checkpoint, boolean force) {
+        redisTemplate.execute(hydrateScript, List.of(stockKey(inventory.getProductId()), JOURNAL_KEY),
+                inventory.getProductId().toString(),
+                inventory.getAvailableStock().toString(),
+                inventory.getLockedStock().toString(),
+                inventory.getSoldStock().toString(),
+                checkpoint,
+                inventory.getVersion().toString(),
+                force ? "1" : "0");
+    }
+
+    /** 需在事务内调用 */
+    StockFlushCheckpoint lockCheckpoint() {
+        checkpointRepository.createIfAbsent(CHECKPOINT_NAME, INITIAL_POSITION);
+        return checkpointRepository.findByNameForUpdate(CHECKPOINT_NAME)
+                .orElseThrow(() -> new IllegalStateException("Missing checkpoint " + CHECKPOINT_NAME));
+    }
+
+    static String stockKey(Long productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.commerce.inventory.reservation;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:42
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockLevels {
+    private int availableStock;
+    private int lockedStock;
+    private int soldStock;
+    /** 单调递增的库存版本，事件消费方据此丢弃乱序消息 */
+    private long version;
+}
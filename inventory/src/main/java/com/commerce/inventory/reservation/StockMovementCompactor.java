@@ -0,0 +1,87 @@
+package com.commerce.inventory.reservation;
+
+import com.commerce.inventory.model.StockMovement;
+import com.commerce.inventory.repository.StockMovementJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 23:15
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * 流水压缩：取一批未压缩流水，按商品合并后一条 UPDATE 写入 inventory 快照，
+ * 同一事务内标记为已压缩。余额 = 快照 + 未压缩流水，压缩前后不变。
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.reservation.mode", havingValue = "journal")
+@Slf4j
+public class StockMovementCompactor {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE inventory SET available_stock = available_stock + ?, locked_stock = locked_stock + ?, " +
+                    "sold_stock = sold_stock + ?, version = version + ?, updated_at = NOW() WHERE product_id = ?";
+
+    @Autowired
+    private StockMovementJdbcRepository stockMovementJdbcRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.reservation.journal.compact-batch-size:5000}")
+    private int compactBatchSize;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.journal.compact-interval-ms:1000}")
+    public void compact() {
+        try {
+            while (compactBatch() >= compactBatchSize) {
+                log.debug("[Inventory] Movement backlog remaining, compacting next batch");
+            }
+        } catch (Exception e) {
+            log.error("[Inventory] Failed to compact stock movements → {}", e.getMessage(), e);
+        }
+    }
+
+    /** 压缩一批，返回本批流水条数 */
+    private int compactBatch() {
+        Integer compacted = transactionTemplate.execute(status -> {
+            List<StockMovement> movements = stockMovementJdbcRepository.lockUncompacted(compactBatchSize);
+            if (movements.isEmpty()) {
+                return 0;
+            }
+
+            // 按 productId 排序合并，与批量锁库存的加锁顺序一致
+            Map<Long, int[]> deltas = new TreeMap<>();
+            for (StockMovement movement : movements) {
+                int[] delta = deltas.computeIfAbsent(movement.getProductId(), pid -> new int[4]);
+                delta[0] += movement.getAvailableDelta();
+                delta[1] += movement.getLockedDelta();
+                delta[2] += movement.getSoldDelta();
+                delta[3]++;
+            }
+            // 每条流水对应内存余额的一次版本递增，MySQL 版本按条数推进
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, deltas.entrySet().stream()
+                    .map(entry -> new Object[]{entry.getValue()[0], entry.getValue()[1],
+                            entry.getValue()[2], entry.getValue()[3], entry.getKey()})
+                    .toList());
+            stockMovementJdbcRepository.markCompacted(movements.stream().map(StockMovement::getMovementId).toList());
+
+            log.info("[Inventory] Compacted {} stock movements into {} product snapshots",
+                    movements.size(), deltas.size());
+            return movements.size();
+        });
+        return compacted == null ? 0 : compacted;
+    }
+}
@@ -0,0 +1,39 @@
+package com.commerce.inventory.reservation;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:40
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * 库存预占的替代实现（inventory.reservation.mode = redis / ledger / journal），
+ * 未配置时 InventoryServiceImpl 直接在 MySQL inventory 行上加减。
+ */
+public interface StockReservationStrategy {
+
+    /** 原子锁定一组商品（available → locked），全部成功返回 true，任一不足返回 false */
+    boolean lock(Map<Long, Integer> quantities);
+
+    /** locked → sold，已锁数量不足返回 false */
+    boolean confirm(Long productId, int quantity);
+
+    /** locked → available，已锁数量不足返回 false */
+    boolean release(Long productId, int quantity);
+
+    /** 管理端直接修改 MySQL 后，按 MySQL 重新加载该商品 */
+    void reload(Long productId);
+
+    /** 库存记录删除后清理 */
+    void evict(Long productId);
+
+    /** 当前实时库存（MySQL 可能尚未落盘） */
+    Optional<StockLevels> current(Long productId);
+
+    /** 增量是否随调用方事务提交 / 回滚；否则由调用方在事务回滚时补偿，或提交后再转移 */
+    default boolean transactional() {
+        return false;
+    }
+}
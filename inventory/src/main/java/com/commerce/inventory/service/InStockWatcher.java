@@ -0,0 +1,85 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.kafka.event.InStockEvent;
+import com.commerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 04:15
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 有货状态增量检查（与 LowStockWatcher 同一套做法）：库存事件发出时用同一份快照比较，
+ * 只有可用库存跨过 0（有货 ↔ 售罄）时才条件更新 in_stock，更新成功的实例发出 inventory-in-stock，
+ * 多实例下每次跨越只发一条。商品服务用它维护有货位图，全量位图见 GET /inventories/in-stock。
+ */
+@Component
+@Slf4j
+public class InStockWatcher {
+
+    private static final String TOPIC = "inventory-in-stock";
+
+    private final InventoryRepository inventoryRepository;
+    private final KafkaTemplate<String, InStockEvent> kafkaTemplate;
+    private final Counter inStockCounter;
+    private final Counter soldOutCounter;
+
+    public InStockWatcher(InventoryRepository inventoryRepository,
+                          KafkaTemplate<String, InStockEvent> kafkaTemplate,
+                          MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.inStockCounter = Counter.builder("inventory.in_stock.crossings")
+                .description("Available stock crossings of zero")
+                .tag("direction", "in_stock")
+                .register(meterRegistry);
+        this.soldOutCounter = Counter.builder("inventory.in_stock.crossings")
+                .description("Available stock crossings of zero")
+                .tag("direction", "sold_out")
+                .register(meterRegistry);
+    }
+
+    /** 库存事件发送时调用，O(1)：未跨越 0 时不访问数据库 */
+    public void evaluate(Long productId, InventorySnapshot snapshot) {
+        boolean inStock = snapshot.levels().getAvailableStock() > 0;
+        if (inStock == snapshot.inStock()) {
+            return;
+        }
+        long version = snapshot.levels().getVersion();
+        if (inventoryRepository.flipInStock(productId, inStock, version) == 0) {
+            // 其他实例已翻转，或快照已过时
+            return;
+        }
+        send(new InStockEvent(productId, inStock, version, LocalDateTime.now()));
+        (inStock ? inStockCounter : soldOutCounter).increment();
+    }
+
+    /** 新建库存提交后调用：insert 时已按可用库存写入 in_stock，有货的直接加入位图 */
+    public void created(Long productId, long version) {
+        send(new InStockEvent(productId, true, version, LocalDateTime.now()));
+        inStockCounter.increment();
+    }
+
+    /** 库存记录删除后调用：无条件从位图中移除 */
+    public void removed(Long productId) {
+        send(new InStockEvent(productId, false, null, LocalDateTime.now()));
+    }
+
+    private void send(InStockEvent event) {
+        try {
+            kafkaTemplate.send(TOPIC, event.getProductId().toString(), event);
+            log.info("[Kafka] InStockEvent sent → productId={}, inStock={}, version={}",
+                    event.getProductId(), event.getInStock(), event.getVersion());
+        } catch (Exception e) {
+            log.error("[Kafka] Failed to send InStockEvent → productId={}, inStock={}",
+                    event.getProductId(), event.getInStock(), e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.model.InventoryBucket;
+import com.commerce.inventory.reservation.StockLevels;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:50
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 库存分桶：lock / confirm / release 需在调用方事务内执行
+ */
+public interface InventoryBucketService {
+
+    boolean lock(Long productId, int bucketCount, int quantity, Long requesterKey);
+
+    boolean confirm(Long productId, int bucketCount, int quantity);
+
+    boolean release(Long productId, int bucketCount, int quantity);
+
+    /** 批量锁库存：加行锁读取分桶，按商品分组 */
+    Map<Long, List<InventoryBucket>> lockBuckets(Collection<Long> productIds);
+
+    /** 在已加锁的分桶上从首选桶开始依次扣减 */
+    boolean allocateLock(List<InventoryBucket> buckets, int quantity, Long requesterKey);
+
+    /** 分桶合计 */
+    Map<Long, StockLevels> totals(Collection<Long> productIds);
+
+    /** 主行已加锁：把 available / locked 平均拆到 N 个桶 */
+    void split(Inventory inventory, int buckets);
+
+    /** 主行已加锁：分桶合并回主行并删除 */
+    void merge(Inventory inventory);
+
+    /** 各桶可用库存重新均分 */
+    int rebalance();
+}
@@ -0,0 +1,268 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.model.InventoryBucket;
+import com.commerce.inventory.repository.InventoryBucketRepository;
+import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.reservation.StockLevels;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 19:55
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 分桶读写：
+ * 1. 快路径：按请求方（orderId）哈希选桶，单行条件 UPDATE；失败再试相邻的几个桶
+ * 2. 慢路径：单桶都不够时，对该商品全部分桶加行锁，跨桶凑足数量
+ * 3. 后台定时把各桶可用库存重新均分，避免某些桶被提前耗尽
+ */
+@Service
+@Slf4j
+public class InventoryBucketServiceImpl implements InventoryBucketService {
+
+    @Autowired
+    private InventoryBucketRepository inventoryBucketRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventory.bucket.probe-count:3}")
+    private int probeCount;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean lock(Long productId, int bucketCount, int quantity, Long requesterKey) {
+        int start = preferredBucket(requesterKey, bucketCount);
+        for (int i = 0; i < Math.min(probeCount, bucketCount); i++) {
+            if (inventoryBucketRepository.lockInBucket(productId, (start + i) % bucketCount, quantity) == 1) {
+                return true;
+            }
+        }
+        return moveAcrossBuckets(productId, start, quantity, Transfer.LOCK);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean confirm(Long productId, int bucketCount, int quantity) {
+        int start = preferredBucket(null, bucketCount);
+        for (int i = 0; i < Math.min(probeCount, bucketCount); i++) {
+            if (inventoryBucketRepository.confirmInBucket(productId, (start + i) % bucketCount, quantity) == 1) {
+                return true;
+            }
+        }
+        return moveAcrossBuckets(productId, start, quantity, Transfer.CONFIRM);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean release(Long productId, int bucketCount, int quantity) {
+        int start = preferredBucket(null, bucketCount);
+        for (int i = 0; i < Math.min(probeCount, bucketCount); i++) {
+            if (inventoryBucketRepository.releaseInBucket(productId, (start + i) % bucketCount, quantity) == 1) {
+                return true;
+            }
+        }
+        return moveAcrossBuckets(productId, start, quantity, Transfer.RELEASE);
+    }
+
+    private boolean moveAcrossBuckets(Long productId, int start, int quantity, Transfer transfer) {
+        List<InventoryBucket> buckets = inventoryBucketRepository.findAllByProductIdInForUpdate(List.of(productId));
+        return transfer.across(buckets, start, quantity);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, List<InventoryBucket>> lockBuckets(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return inventoryBucketRepository.findAllByProductIdInForUpdate(productIds).stream()
+                .collect(Collectors.groupingBy(InventoryBucket::getProductId, TreeMap::new, Collectors.toList()));
+    }
+
+    @Override
+    public boolean allocateLock(List<InventoryBucket> buckets, int quantity, Long requesterKey) {
+        return Transfer.LOCK.across(buckets, preferredBucket(requesterKey, buckets.size()), quantity);
+    }
+
+    @Override
+    public Map<Long, StockLevels> totals(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, StockLevels> totals = new HashMap<>();
+        for (Object[] row : inventoryBucketRepository.sumByProductIds(productIds)) {
+            totals.put((Long) row[0], new StockLevels(((Number) row[1]).intValue(),
+                    ((Number) row[2]).intValue(), ((Number) row[3]).intValue(), ((Number) row[4]).longValue()));
+        }
+        return totals;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void split(Inventory inventory, int buckets) {
+        int[] available = spread(inventory.getAvailableStock(), buckets);
+        int[] locked = spread(inventory.getLockedStock(), buckets);
+        List<InventoryBucket> rows = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            InventoryBucket bucket = new InventoryBucket();
+            bucket.setProductId(inventory.getProductId());
+            bucket.setBucketNo(i);
+            bucket.setAvailableStock(available[i]);
+            bucket.setLockedStock(locked[i]);
+            rows.add(bucket);
+        }
+        inventoryBucketRepository.saveAll(rows);
+
+        // 已售保留在主行，不再参与热点写入
+        inventory.setAvailableStock(0);
+        inventory.setLockedStock(0);
+        inventory.setBucketCount(buckets);
+        inventory.setVersion(inventory.getVersion() + 1);
+        log.info("[Inventory] Split stock into {} buckets → productId={}", buckets, inventory.getProductId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void merge(Inventory inventory) {
+        List<InventoryBucket> buckets = inventoryBucketRepository.findAllByProductIdInForUpdate(
+                List.of(inventory.getProductId()));
+        long bucketVersions = 0;
+        for (InventoryBucket bucket : buckets) {
+            inventory.setAvailableStock(inventory.getAvailableStock() + bucket.getAvailableStock());
+            inventory.setLockedStock(inventory.getLockedStock() + bucket.getLockedStock());
+            inventory.setSoldStock(inventory.getSoldStock() + bucket.getSoldStock());
+            bucketVersions += bucket.getVersion();
+        }
+        inventoryBucketRepository.deleteByProductId(inventory.getProductId());
+        inventory.setBucketCount(0);
+        // 分桶版本并入主行，保证商品版本不回退
+        inventory.setVersion(inventory.getVersion() + 1 + (int) bucketVersions);
+        log.info("[Inventory] Merged {} buckets back → productId={}", buckets.size(), inventory.getProductId());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.bucket.rebalance-interval-ms:30000}")
+    void scheduledRebalance() {
+        rebalance();
+    }
+
+    @Override
+    public int rebalance() {
+        int rebalanced = 0;
+        for (Long productId : inventoryRepository.findSplitProductIds()) {
+            try {
+                Boolean changed = transactionTemplate.execute(status -> rebalance(productId));
+                if (Boolean.TRUE.equals(changed)) {
+                    rebalanced++;
+                }
+            } catch (Exception e) {
+                log.warn("[Inventory] Bucket rebalance failed → productId={}, reason={}", productId, e.getMessage());
+            }
+        }
+        if (rebalanced > 0) {
+            log.info("[Inventory] Rebalanced buckets for {} products", rebalanced);
+        }
+        return rebalanced;
+    }
+
+    /** 每个商品单独一个短事务，只锁该商品的分桶 */
+    private boolean rebalance(Long productId) {
+        List<InventoryBucket> buckets = inventoryBucketRepository.findAllByProductIdInForUpdate(List.of(productId));
+        if (buckets.size() < 2) {
+            return false;
+        }
+        IntSummaryStatistics stats = buckets.stream().mapToInt(InventoryBucket::getAvailableStock).summaryStatistics();
+        if (stats.getMax() - stats.getMin() <= 1) {
+            return false;
+        }
+        int[] target = spread((int) stats.getSum(), buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            buckets.get(i).setAvailableStock(target[i]);
+        }
+        return true;
+    }
+
+    private int preferredBucket(Long requesterKey, int bucketCount) {
+        if (requesterKey == null) {
+            return ThreadLocalRandom.current().nextInt(bucketCount);
+        }
+        // 打散连续的 orderId
+        return Math.floorMod(Long.hashCode(requesterKey * 0x9E3779B97F4A7C15L), bucketCount);
+    }
+
+    private static int[] spread(int total, int buckets) {
+        int[] parts = new int[buckets];
+        for (int i = 0; i < buckets; i++) {
+            parts[i] = total / buckets + (i < total % buckets ? 1 : 0);
+        }
+        return parts;
+    }
+
+    /** 跨桶转移：从首选桶开始依次取，合计不足时不做任何修改 */
+    private enum Transfer {
+        LOCK {
+            int source(InventoryBucket b) {
+                return b.getAvailableStock();
+            }
+
+            void move(InventoryBucket b, int qty) {
+                b.setAvailableStock(b.getAvailableStock() - qty);
+                b.setLockedStock(b.getLockedStock() + qty);
+            }
+        },
+        CONFIRM {
+            int source(InventoryBucket b) {
+                return b.getLockedStock();
+            }
+
+            void move(InventoryBucket b, int qty) {
+                b.setLockedStock(b.getLockedStock() - qty);
+                b.setSoldStock(b.getSoldStock() + qty);
+            }
+        },
+        RELEASE {
+            int source(InventoryBucket b) {
+                return b.getLockedStock();
+            }
+
+            void move(InventoryBucket b, int qty) {
+                b.setLockedStock(b.getLockedStock() - qty);
+                b.setAvailableStock(b.getAvailableStock() + qty);
+            }
+        };
+
+        abstract int source(InventoryBucket bucket);
+
+        abstract void move(InventoryBucket bucket, int quantity);
+
+        boolean across(List<InventoryBucket> buckets, int start, int quantity) {
+            if (buckets.isEmpty() || buckets.stream().mapToInt(this::source).sum() < quantity) {
+                return false;
+            }
+            int remaining = quantity;
+            for (int i = 0; i < buckets.size() && remaining > 0; i++) {
+                InventoryBucket bucket = buckets.get((start + i) % buckets.size());
+                int taken = Math.min(remaining, source(bucket));
+                if (taken > 0) {
+                    move(bucket, taken);
+                    remaining -= taken;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.repository.InventoryBackfillRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 05:10
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 启动时补齐 inventory 状态列（分桶 / 分仓 / 低库存 / 有货）并校正翻转版本，每批一个短事务，直到没有待补的行。
+ * 可重复执行，多实例同时启动也不会冲突；补出的有货状态由商品服务的定时全量同步带走。
+ */
+@Component
+@Slf4j
+class InventoryColumnBackfill {
+
+    @Autowired
+    private InventoryBackfillRepository inventoryBackfillRepository;
+
+    @Value("${inventory.reservation.sweep-batch-size:200}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void backfill() {
+        try {
+            int filled = 0;
+            int updated;
+            while ((updated = inventoryBackfillRepository.fillDefaults(batchSize)) > 0) {
+                filled += updated;
+            }
+            int inStock = 0;
+            while ((updated = inventoryBackfillRepository.backfillInStock(batchSize)) > 0) {
+                inStock += updated;
+            }
+            int clamped = 0;
+            while ((updated = inventoryBackfillRepository.clampFlipVersions(batchSize)) > 0) {
+                clamped += updated;
+            }
+            if (filled > 0 || inStock > 0 || clamped > 0) {
+                log.info("[Inventory] Backfilled inventory state columns → defaulted={}, inStock={}, clampedVersions={}",
+                        filled, inStock, clamped);
+            }
+        } catch (Exception e) {
+            log.error("[Inventory] Inventory column backfill failed → {}", e.getMessage(), e);
+        }
+    }
+}
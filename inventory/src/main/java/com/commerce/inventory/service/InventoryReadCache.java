@@ -0,0 +1,65 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.dto.InventoryResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 23:55
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 单商品库存查询的本地缓存（按 productId）：
+ * 1. 本实例的库存变更在 afterCommit 中失效对应条目
+ * 2. 其他实例的变更通过 inventory-stock-updated 事件（每个实例独立消费组）按版本失效
+ * 3. expire-after-write 兜底，限制事件丢失时的最大陈旧时间
+ */
+@Component
+@Slf4j
+public class InventoryReadCache {
+
+    private final Cache<Long, InventoryResponse> cache;
+    private final boolean enabled;
+
+    public InventoryReadCache(@Value("${inventory.cache.enabled:true}") boolean enabled,
+                              @Value("${inventory.cache.max-size:100000}") long maxSize,
+                              @Value("${inventory.cache.ttl-seconds:30}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventory.read");
+    }
+
+    /** 未命中时调用 loader 加载，同一商品的并发未命中只加载一次；loader 抛出的异常不缓存 */
+    public InventoryResponse get(Long productId, Function<Long, InventoryResponse> loader) {
+        return enabled ? cache.get(productId, loader) : loader.apply(productId);
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    /** 远端事件：版本比缓存新（或为删除事件）时失效 */
+    public void invalidateIfOlder(Long productId, Long version) {
+        InventoryResponse cached = cache.getIfPresent(productId);
+        if (cached == null) {
+            return;
+        }
+        if (version == null || cached.getVersion() == null || cached.getVersion() < version) {
+            cache.invalidate(productId);
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package com.commerce.inventory.service;
 
+import com.commerce.inventory.dto.BatchStockLockRequest;
+import com.commerce.inventory.dto.BatchStockLockResponse;
+import com.commerce.inventory.dto.InventoryFilter;
+import com.commerce.inventory.dto.InventoryPageResponse;
 import com.commerce.inventory.dto.InventoryRequest;
 import com.commerce.inventory.dto.InventoryResponse;
+import com.commerce.inventory.dto.InventoryStock;
+import com.commerce.inventory.dto.LockedStockCorrection;
+import com.commerce.inventory.dto.LockedStockCorrectionResult;
+import com.commerce.inventory.dto.LowStockThresholdRequest;
+import com.commerce.inventory.dto.OrderStockMovement;
 import com.commerce.inventory.dto.StockOperationRequest;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author Yixi Wan
@@ -16,11 +27,19 @@ import java.util.List;
 public interface InventoryService {
     InventoryResponse getInventoryByProductId(Long productId);
 
+    Map<Long, InventoryStock> queryInventories(List<Long> productIds);
+
     void lockStock(StockOperationRequest request);
 
-    void confirmStock(Long productId, int quantity);
+    BatchStockLockResponse lockStockBatch(BatchStockLockRequest request);
+
+    void confirmStock(Long productId, int quantity, Long orderId);
+
+    void releaseStock(Long productId, int quantity, Long orderId);
 
-    void releaseStock(Long productId, int quantity);
+    int releaseExpiredReservations(int batchSize);
+
+    void applyOrderStockMovements(String eventType, List<OrderStockMovement> movements);
 
     void deleteInventory(Long productId);
 
@@ -28,5 +47,17 @@ public interface InventoryService {
 
     InventoryResponse createInventory(Long productId, InventoryRequest request);
 
-    List<InventoryResponse> getAllInventories();
+    InventoryPageResponse listInventories(Long afterId, int size, InventoryFilter filter);
+
+    void streamInventories(InventoryFilter filter, boolean orderByProduct, Consumer<InventoryResponse> consumer);
+
+    byte[] getInStockBitmap();
+
+    InventoryResponse splitInventory(Long productId, int buckets);
+
+    InventoryResponse mergeInventory(Long productId);
+
+    InventoryResponse setLowStockThreshold(Long productId, LowStockThresholdRequest request);
+
+    List<LockedStockCorrectionResult> correctLockedStock(List<LockedStockCorrection> corrections);
 }
@@ -1,24 +1,40 @@
 package com.commerce.inventory.service;
 
-import com.commerce.inventory.kafka.event.InventoryEvent;
-import com.commerce.inventory.dto.InventoryRequest;
-import com.commerce.inventory.dto.InventoryResponse;
-import com.commerce.inventory.dto.StockOperationRequest;
+import com.commerce.inventory.allocation.WarehouseLockSession;
+import com.commerce.inventory.dto.*;
+import com.commerce.inventory.kafka.producer.InventoryEventPublisher;
 import com.commerce.inventory.exceptions.ApiException;
 import com.commerce.inventory.exceptions.ResourceNotFoundException;
 import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.model.InventoryBucket;
+import com.commerce.inventory.model.StockReservation;
+import com.commerce.inventory.ownership.InventoryOwnership;
+import com.commerce.inventory.repository.InventoryListingRepository;
 import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.repository.InventorySplit;
+import com.commerce.inventory.repository.StockReservationJdbcRepository;
+import com.commerce.inventory.reservation.StockLevels;
+import com.commerce.inventory.reservation.StockReservationStrategy;
+import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -29,8 +45,13 @@ import java.util.stream.Collectors;
  * Description:
  */
 @Service
+@Slf4j
 public class InventoryServiceImpl implements InventoryService {
 
+    private static final String EVENT_LOCK = "LOCK";
+    private static final String EVENT_CONFIRM = "CONFIRM";
+    private static final String EVENT_RELEASE = "RELEASE";
+
     @Autowired
     private InventoryRepository inventoryRepository;
 
@@ -38,41 +59,167 @@ public class InventoryServiceImpl implements InventoryService {
     private ModelMapper modelMapper;
 
     @Autowired
-    private KafkaTemplate<String, InventoryEvent> kafkaTemplate;
+    private InventoryEventPublisher inventoryEventPublisher;
+
+    @Autowired
+    private StockOperationDeduplicator stockOperationDeduplicator;
+
+    @Autowired
+    private InventoryBucketService inventoryBucketService;
+
+    @Autowired
+    private StockReservationJdbcRepository stockReservationJdbcRepository;
+
+    @Autowired
+    private StockOperationRetrier stockOperationRetrier;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private InventorySnapshotReader inventorySnapshotReader;
+
+    @Autowired
+    private InventoryReadCache inventoryReadCache;
+
+    @Autowired
+    private InventoryListingRepository inventoryListingRepository;
+
+    @Autowired
+    private WarehouseService warehouseService;
+
+    @Autowired
+    private LowStockWatcher lowStockWatcher;
+
+    @Autowired
+    private InStockWatcher inStockWatcher;
+
+    @Value("${inventory.low-stock.hysteresis-ratio:0.2}")
+    private double lowStockHysteresisRatio;
+
+    @Value("${inventory.listing.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${inventory.query.max-product-ids:1000}")
+    private int maxQueryProductIds;
+
+    @Value("${inventory.reconcile.max-corrections:1000}")
+    private int maxCorrections;
+
+    @Value("${inventory.reservation.ttl-minutes:30}")
+    private long reservationTtlMinutes;
+
+    /** 配置了 inventory.reservation.mode 时由其接管锁定 / 确认 / 释放 */
+    @Autowired(required = false)
+    private StockReservationStrategy stockReservationStrategy;
+
+    /** 开启 inventory.ownership 时只有持有者使用内存计数，其余实例走 MySQL */
+    @Autowired(required = false)
+    private InventoryOwnership inventoryOwnership;
+
+    /** 分页查询库存（keyset：afterId 为上一页最后一条的 inventoryId） */
+    @Override
+    public InventoryPageResponse listInventories(Long afterId, int size, InventoryFilter filter) {
+        if (size <= 0 || size > maxPageSize) {
+            throw new ApiException("Page size must be between 1 and " + maxPageSize, HttpStatus.BAD_REQUEST);
+        }
+        // 多取一行判断是否还有下一页
+        List<InventoryListingRepository.Row> rows = inventoryListingRepository.findPage(filter,
+                afterId == null ? 0L : afterId, size + 1);
+        boolean lastPage = rows.size() <= size;
+        if (!lastPage) {
+            rows = rows.subList(0, size);
+        }
+        Long nextCursor = lastPage || rows.isEmpty() ? null : rows.get(rows.size() - 1).inventoryId();
+        return new InventoryPageResponse(rows.stream().map(InventoryListingRepository.Row::inventory).toList(),
+                nextCursor, lastPage);
+    }
+
+    /** 流式导出库存，逐行回调 */
+    @Override
+    public void streamInventories(InventoryFilter filter, boolean orderByProduct, Consumer<InventoryResponse> consumer) {
+        inventoryListingRepository.stream(filter, orderByProduct, consumer);
+    }
 
-    /** 查询所有库存 */
+    /** 有货商品位图：流式读出 in_stock 的 productId 构建 Roaring 位图，按 portable 格式序列化 */
     @Override
-    public List<InventoryResponse> getAllInventories() {
-        return inventoryRepository.findAll().stream()
-                .map(inventory -> {
-                    InventoryResponse dto = modelMapper.map(inventory, InventoryResponse.class);
-                    dto.setLastUpdated(inventory.getUpdatedAt().toString());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public byte[] getInStockBitmap() {
+        Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+        inventoryListingRepository.streamInStockProductIds(bitmap::addLong);
+        bitmap.runOptimize();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            bitmap.serializePortable(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("[Inventory] In-stock bitmap built → products={}, bytes={}",
+                bitmap.getLongCardinality(), bytes.size());
+        return bytes.toByteArray();
     }
 
-    /** 查询单个库存 */
+    /** 查询单个库存（本地缓存，变更提交后失效） */
     @Override
     public InventoryResponse getInventoryByProductId(Long productId) {
+        return inventoryReadCache.get(productId, this::loadInventory);
+    }
+
+    private InventoryResponse loadInventory(Long productId) {
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
         InventoryResponse dto = modelMapper.map(inventory, InventoryResponse.class);
         dto.setLastUpdated(inventory.getUpdatedAt().toString());
+        dto.setVersion(inventory.getVersion().longValue());
+        if (inventory.getBucketCount() > 0) {
+            addBucketTotals(dto, inventoryBucketService.totals(List.of(productId)).get(productId));
+        }
+        if (servesHot(productId)) {
+            // MySQL 可能尚未落盘，以实时库存为准
+            stockReservationStrategy.current(productId).ifPresent(levels -> {
+                dto.setAvailableStock(levels.getAvailableStock());
+                dto.setLockedStock(levels.getLockedStock());
+                dto.setSoldStock(levels.getSoldStock());
+                dto.setVersion(levels.getVersion());
+            });
+        }
         return dto;
     }
 
-    /** 新增库存 */
+    /** 批量查询库存：一次 IN 查询（分桶合计 / 实时库存同单个查询），不存在的商品不返回 */
+    @Override
+    public Map<Long, InventoryStock> queryInventories(List<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> distinct = productIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (distinct.size() > maxQueryProductIds) {
+            throw new ApiException("Too many productIds in one query, max is " + maxQueryProductIds,
+                    HttpStatus.BAD_REQUEST);
+        }
+        Map<Long, InventoryStock> result = new HashMap<>();
+        inventorySnapshotReader.read(distinct).forEach((productId, levels) -> result.put(productId,
+                new InventoryStock(levels.getAvailableStock(), levels.getLockedStock(), levels.getSoldStock())));
+        return result;
+    }
+
+    /** 新增库存：insert 时写入有货状态，提交后发库存事件并把有货商品加入位图 */
     @Override
+    @Transactional
     public InventoryResponse createInventory(Long productId, InventoryRequest inventoryRequest) {
         if (inventoryRepository.findByProductId(productId).isPresent()) {
             throw new ApiException("Inventory already exists for productId: " + productId, HttpStatus.BAD_REQUEST);
         }
         Inventory inventory = modelMapper.map(inventoryRequest, Inventory.class);
         inventory.setProductId(productId);
+        inventory.setInStock(inventory.getAvailableStock() != null && inventory.getAvailableStock() > 0);
+        inventory.setInStockVersion(inventory.getVersion().longValue());
         Inventory saved = inventoryRepository.save(inventory);
 
-//        publishEvent(productId, "CREATE");
+        publishEvent(productId, "CREATE");
+        if (saved.getInStock()) {
+            long version = saved.getVersion();
+            afterCommit(() -> inStockWatcher.created(productId, version));
+        }
 
         InventoryResponse response = modelMapper.map(saved, InventoryResponse.class);
         response.setLastUpdated(saved.getUpdatedAt().toString());
@@ -83,19 +230,37 @@ public class InventoryServiceImpl implements InventoryService {
     @Override
     @Transactional
     public InventoryResponse updateInventory(Long productId, InventoryRequest inventoryRequest) {
-        Inventory existing = inventoryRepository.findByProductId(productId)
+        // 加行锁：避免与落库 / 压缩线程的增量 UPDATE 交错导致增量被覆盖
+        Inventory existing = inventoryRepository.findByProductIdForUpdate(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        if (existing.getWarehouseCount() > 0) {
+            throw new ApiException("Inventory is managed per warehouse, update warehouse stock for productId: "
+                    + productId, HttpStatus.BAD_REQUEST);
+        }
+
+        // 已分桶：先合并回主行，按新数值重新拆分
+        int bucketCount = existing.getBucketCount();
+        if (bucketCount > 0) {
+            inventoryBucketService.merge(existing);
+        }
 
         existing.setAvailableStock(inventoryRequest.getAvailableStock());
         existing.setLockedStock(inventoryRequest.getLockedStock());
         existing.setSoldStock(inventoryRequest.getSoldStock());
+        existing.setVersion(existing.getVersion() + 1);
 
+        InventoryResponse response = modelMapper.map(existing, InventoryResponse.class);
+        if (bucketCount > 0) {
+            inventoryBucketService.split(existing, bucketCount);
+        }
         Inventory updated = inventoryRepository.save(existing);
 
-        // ✅ 不再携带库存数值，只发 productId + eventType
+        // ✅ 库存快照与版本在提交后由发送器读取并写入事件
         publishEvent(productId, "UPDATE");
+        if (servesHot(productId)) {
+            afterCommit(() -> stockReservationStrategy.reload(productId));
+        }
 
-        InventoryResponse response = modelMapper.map(updated, InventoryResponse.class);
         response.setLastUpdated(updated.getUpdatedAt().toString());
         return response;
     }
@@ -106,62 +271,792 @@ public class InventoryServiceImpl implements InventoryService {
     public void deleteInventory(Long productId) {
         Inventory existing = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        if (existing.getBucketCount() > 0) {
+            inventoryBucketService.merge(existing);
+        }
+        if (existing.getWarehouseCount() > 0) {
+            warehouseService.deleteStock(productId);
+        }
         inventoryRepository.delete(existing);
 
         publishEvent(productId, "DELETE");
+        if (stockReservationStrategy != null) {
+            afterCommit(() -> stockReservationStrategy.evict(productId));
+        }
     }
 
-    /** 锁库存 */
+    /** 锁库存：并发冲突时整段事务重试；带 orderId 的重复请求直接返回成功，不再扣减 */
     @Override
-    @Transactional
     public void lockStock(StockOperationRequest request) {
-        Inventory inventory = inventoryRepository.findByProductId(request.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", request.getProductId()));
+        if (request.getOrderId() != null
+                && stockOperationDeduplicator.seenRecently(EVENT_LOCK, List.of(toMovement(request)))) {
+            log.info("[Inventory] Duplicate LOCK ignored → orderId={}, productId={}",
+                    request.getOrderId(), request.getProductId());
+            return;
+        }
+        stockOperationRetrier.execute("lock", request.getProductId(), () -> transactionTemplate.execute(status -> {
+            lockStockInTransaction(request);
+            return null;
+        }));
+    }
 
-        if (inventory.getAvailableStock() < request.getQuantity()) {
+    private void lockStockInTransaction(StockOperationRequest request) {
+        if (request.getOrderId() != null
+                && !stockOperationDeduplicator.claim(EVENT_LOCK, List.of(toMovement(request)))[0]) {
+            log.info("[Inventory] Duplicate LOCK ignored → orderId={}, productId={}",
+                    request.getOrderId(), request.getProductId());
+            return;
+        }
+        if (!lockInStore(request.getProductId(), request.getQuantity(), request.getOrderId())) {
             throw new ApiException("Insufficient stock for productId: " + request.getProductId(), HttpStatus.BAD_REQUEST);
         }
+        if (request.getOrderId() != null) {
+            stockReservationJdbcRepository.reserve(List.of(toMovement(request)), reservationExpiry());
+        }
+        publishEvent(request.getProductId(), EVENT_LOCK);
+    }
+
+    /**
+     * 按当前存储模式锁定（available → locked），库存不足返回 false。
+     * 先不加锁读取拆分状态：主行的条件 UPDATE 即使不命中也会持有行锁到提交，
+     * 已分桶 / 分仓的商品直接走各自路径，不再在主行上串行。
+     */
+    private boolean lockInStore(Long productId, int quantity, Long requesterKey) {
+        if (servesHot(productId)) {
+            if (!stockReservationStrategy.lock(Map.of(productId, quantity))) {
+                return false;
+            }
+            releaseHotOnRollback(Map.of(productId, quantity));
+            return true;
+        }
+
+        InventorySplit split = inventoryRepository.findSplitByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        if (!split.split()) {
+            if (inventoryRepository.lockStock(productId, quantity) == 1) {
+                return true;
+            }
+            // 未命中：库存不足，或读取后刚被拆分（行锁已被 UPDATE 持有，加锁读取最新状态）
+            Inventory inventory = inventoryRepository.findByProductIdForUpdate(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+            split = new InventorySplit(productId, inventory.getBucketCount(), inventory.getWarehouseCount());
+            if (!split.split()) {
+                return false;
+            }
+        }
+        if (split.bucketed()) {
+            return inventoryBucketService.lock(productId, split.bucketCount(), quantity, requesterKey);
+        }
+        return lockAcrossWarehouses(productId, quantity, requesterKey);
+    }
+
+    /** 分仓商品：主行加锁后分仓，主行同步扣减 */
+    private boolean lockAcrossWarehouses(Long productId, int quantity, Long orderId) {
+        Inventory inventory = inventoryRepository.findByProductIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        if (inventory.getAvailableStock() < quantity) {
+            return false;
+        }
+        WarehouseLockSession session = warehouseService.openLockSession(List.of(inventory));
+        if (!session.reserve(orderId, Map.of(productId, quantity), null, null)) {
+            return false;
+        }
+        warehouseService.completeLockSession(session);
+        inventory.setAvailableStock(inventory.getAvailableStock() - quantity);
+        inventory.setLockedStock(inventory.getLockedStock() + quantity);
+        inventory.setVersion(inventory.getVersion() + 1);
+        return true;
+    }
+
+    /**
+     * 批量锁库存：一次 IN 查询加行锁，逐组（逐订单）在内存中扣减，
+     * 组内任一商品不足则整组拒绝；每个商品在提交时只产生一条 UPDATE。
+     */
+    @Override
+    public BatchStockLockResponse lockStockBatch(BatchStockLockRequest request) {
+        return stockOperationRetrier.execute("lock_batch", null,
+                () -> transactionTemplate.execute(status -> lockStockBatchInTransaction(request)));
+    }
+
+    private BatchStockLockResponse lockStockBatchInTransaction(BatchStockLockRequest request) {
+        if (stockReservationStrategy != null) {
+            return lockStockBatchWithStrategy(request);
+        }
+
+        Set<Long> productIds = request.getGroups().stream()
+                .flatMap(group -> group.getItems().stream())
+                .map(StockOperationRequest::getProductId)
+                .collect(Collectors.toCollection(TreeSet::new));
+
+        // 已分桶商品只锁分桶行，主行不参与写入也不加锁（拆分状态不加锁读取）
+        Set<Long> bucketed = inventoryRepository.findSplitByProductIdIn(productIds).stream()
+                .filter(InventorySplit::bucketed)
+                .map(InventorySplit::productId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        Set<Long> rowLocked = new TreeSet<>(productIds);
+        rowLocked.removeAll(bucketed);
+        Map<Long, Inventory> inventories = (rowLocked.isEmpty() ? List.<Inventory>of()
+                : inventoryRepository.findAllByProductIdInForUpdate(rowLocked)).stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+        Map<Long, List<InventoryBucket>> buckets = inventoryBucketService.lockBuckets(bucketed);
+        // 已分仓商品在内存中逐组分仓，主行照常扣减（主行 = 各仓之和）
+        WarehouseLockSession warehouses = warehouseService.openLockSession(inventories.values());
+
+        BatchStockLockResponse response = new BatchStockLockResponse();
+        Set<Long> touched = new TreeSet<>();
+        List<OrderStockMovement> reserved = new ArrayList<>();
+        for (StockLockGroup group : request.getGroups()) {
+            // 同一订单中同一商品可能出现多行，先合并
+            Map<Long, Integer> demand = new LinkedHashMap<>();
+            for (StockOperationRequest item : group.getItems()) {
+                demand.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+            List<OrderStockMovement> lines = toMovements(group.getOrderId(), demand);
+            StockLockGroupResult repeated = claimGroupLock(group.getOrderId(), lines);
+            if (repeated != null) {
+                response.getResults().add(repeated);
+                continue;
+            }
+
+            String reason = null;
+            for (Map.Entry<Long, Integer> entry : demand.entrySet()) {
+                // 主行被加锁读取后才发现已分桶（并发拆分）的商品本批不处理
+                Inventory inventory = inventories.get(entry.getKey());
+                if ((inventory == null || inventory.getBucketCount() > 0) && !buckets.containsKey(entry.getKey())) {
+                    reason = "Inventory not found for productId: " + entry.getKey();
+                    break;
+                }
+                if (entry.getValue() <= 0 || availableForLock(entry.getKey(), inventories, buckets) < entry.getValue()) {
+                    reason = "Insufficient stock for productId: " + entry.getKey();
+                    break;
+                }
+            }
+
+            if (reason == null && !warehouses.reserve(group.getOrderId(), demand,
+                    group.getShipToLatitude(), group.getShipToLongitude())) {
+                reason = "No warehouse combination can fulfil order: " + group.getOrderId();
+            }
+
+            if (reason != null) {
+                revokeGroupLock(group.getOrderId(), lines);
+                response.getResults().add(new StockLockGroupResult(group.getOrderId(), false, reason));
+                continue;
+            }
 
-        int result = inventoryRepository.lockStock(request.getProductId(), request.getQuantity(), inventory.getVersion());
-        if (result == 0) {
-            throw new ApiException("Failed to lock stock (possible concurrent modification)", HttpStatus.CONFLICT);
+            reserved.addAll(lines);
+            demand.forEach((productId, quantity) -> {
+                if (buckets.containsKey(productId)) {
+                    inventoryBucketService.allocateLock(buckets.get(productId), quantity, group.getOrderId());
+                } else {
+                    Inventory inventory = inventories.get(productId);
+                    inventory.setAvailableStock(inventory.getAvailableStock() - quantity);
+                    inventory.setLockedStock(inventory.getLockedStock() + quantity);
+                }
+                touched.add(productId);
+            });
+            response.getResults().add(new StockLockGroupResult(group.getOrderId(), true, null));
         }
 
-        publishEvent(request.getProductId(), "LOCK");
+        touched.forEach(productId -> {
+            if (!buckets.containsKey(productId)) {
+                Inventory inventory = inventories.get(productId);
+                inventory.setVersion(inventory.getVersion() + 1);
+            }
+            publishEvent(productId, EVENT_LOCK);
+        });
+        warehouseService.completeLockSession(warehouses);
+        stockReservationJdbcRepository.reserve(reserved, reservationExpiry());
+        return response;
+    }
+
+    private int availableForLock(Long productId, Map<Long, Inventory> inventories,
+                                 Map<Long, List<InventoryBucket>> buckets) {
+        List<InventoryBucket> productBuckets = buckets.get(productId);
+        if (productBuckets == null) {
+            return inventories.get(productId).getAvailableStock();
+        }
+        return productBuckets.stream().mapToInt(InventoryBucket::getAvailableStock).sum();
+    }
+
+    /**
+     * 批量锁定中按订单登记 LOCK 操作：返回 null 表示首次，继续锁定；
+     * 整组已登记过 → 重复请求，返回原来的成功结果；部分登记过 → 与之前的请求不一致，拒绝。
+     */
+    private StockLockGroupResult claimGroupLock(Long orderId, List<OrderStockMovement> lines) {
+        if (orderId == null || lines.isEmpty()) {
+            return null;
+        }
+        if (stockOperationDeduplicator.seenRecently(EVENT_LOCK, lines)) {
+            return new StockLockGroupResult(orderId, true, null);
+        }
+        boolean[] fresh = stockOperationDeduplicator.claim(EVENT_LOCK, lines);
+        List<OrderStockMovement> claimed = new ArrayList<>();
+        for (int i = 0; i < fresh.length; i++) {
+            if (fresh[i]) {
+                claimed.add(lines.get(i));
+            }
+        }
+        if (claimed.size() == lines.size()) {
+            return null;
+        }
+        if (claimed.isEmpty()) {
+            log.info("[Inventory] Duplicate LOCK ignored → orderId={}, lines={}", orderId, lines.size());
+            return new StockLockGroupResult(orderId, true, null);
+        }
+        stockOperationDeduplicator.revoke(EVENT_LOCK, claimed);
+        return new StockLockGroupResult(orderId, false, "Order " + orderId + " was already locked with different lines");
+    }
+
+    private void revokeGroupLock(Long orderId, List<OrderStockMovement> lines) {
+        if (orderId != null) {
+            stockOperationDeduplicator.revoke(EVENT_LOCK, lines);
+        }
+    }
+
+    private List<OrderStockMovement> toMovements(Long orderId, Map<Long, Integer> demand) {
+        List<OrderStockMovement> movements = new ArrayList<>(demand.size());
+        demand.forEach((productId, quantity) -> movements.add(new OrderStockMovement(orderId, productId, quantity)));
+        return movements;
+    }
+
+    private OrderStockMovement toMovement(StockOperationRequest request) {
+        return new OrderStockMovement(request.getOrderId(), request.getProductId(), request.getQuantity());
+    }
+
+    /** 逐组调用预占策略，每组一次原子锁定 */
+    private BatchStockLockResponse lockStockBatchWithStrategy(BatchStockLockRequest request) {
+        if (inventoryOwnership != null) {
+            // 非本实例持有的商品走 MySQL：先按 productId 升序一次加行锁，死锁只会发生在任何台账操作之前
+            Set<Long> foreign = request.getGroups().stream()
+                    .flatMap(group -> group.getItems().stream())
+                    .map(StockOperationRequest::getProductId)
+                    .filter(productId -> productId != null && !servesHot(productId))
+                    .collect(Collectors.toCollection(TreeSet::new));
+            if (!foreign.isEmpty()) {
+                inventoryRepository.findAllByProductIdInForUpdate(foreign);
+            }
+        }
+
+        BatchStockLockResponse response = new BatchStockLockResponse();
+        Set<Long> touched = new TreeSet<>();
+        List<OrderStockMovement> reserved = new ArrayList<>();
+        for (StockLockGroup group : request.getGroups()) {
+            Map<Long, Integer> demand = new LinkedHashMap<>();
+            for (StockOperationRequest item : group.getItems()) {
+                demand.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+            }
+            List<OrderStockMovement> lines = toMovements(group.getOrderId(), demand);
+            StockLockGroupResult repeated = claimGroupLock(group.getOrderId(), lines);
+            if (repeated != null) {
+                response.getResults().add(repeated);
+                continue;
+            }
+
+            String reason = null;
+            if (demand.values().stream().anyMatch(quantity -> quantity <= 0)) {
+                reason = "Invalid quantity in order: " + group.getOrderId();
+            } else {
+                try {
+                    if (!lockGroupWithStrategy(demand)) {
+                        reason = "Insufficient stock for order: " + group.getOrderId();
+                    }
+                } catch (ResourceNotFoundException e) {
+                    reason = e.getMessage();
+                }
+            }
+
+            if (reason != null) {
+                revokeGroupLock(group.getOrderId(), lines);
+                response.getResults().add(new StockLockGroupResult(group.getOrderId(), false, reason));
+                continue;
+            }
+            touched.addAll(demand.keySet());
+            reserved.addAll(lines);
+            response.getResults().add(new StockLockGroupResult(group.getOrderId(), true, null));
+        }
+
+        touched.forEach(productId -> publishEvent(productId, EVENT_LOCK));
+        stockReservationJdbcRepository.reserve(reserved, reservationExpiry());
+        return response;
     }
 
     /** 确认库存 */
     @Override
     @Transactional
-    public void confirmStock(Long productId, int quantity) {
-        int result = inventoryRepository.confirmStock(productId, quantity);
-        if (result == 0) {
+    public void confirmStock(Long productId, int quantity, Long orderId) {
+        if (!applyMovement(EVENT_CONFIRM, new OrderStockMovement(orderId, productId, quantity))) {
             throw new ApiException("Confirm stock failed for productId: " + productId, HttpStatus.INTERNAL_SERVER_ERROR);
         }
-
-        publishEvent(productId, "CONFIRM");
     }
 
     /** 释放库存 */
     @Override
     @Transactional
-    public void releaseStock(Long productId, int quantity) {
-        int result = inventoryRepository.releaseStock(productId, quantity);
-        if (result == 0) {
+    public void releaseStock(Long productId, int quantity, Long orderId) {
+        if (!applyMovement(EVENT_RELEASE, new OrderStockMovement(orderId, productId, quantity))) {
             throw new ApiException("Release stock failed for productId: " + productId, HttpStatus.INTERNAL_SERVER_ERROR);
         }
+    }
+
+    /**
+     * 一组商品的原子锁定：本实例持有的部分交给预占策略，其余在 MySQL 上条件扣减，
+     * MySQL 部分不足时撤回本组已做的扣减。
+     */
+    private boolean lockGroupWithStrategy(Map<Long, Integer> demand) {
+        Map<Long, Integer> hot = new TreeMap<>();
+        Map<Long, Integer> foreign = new TreeMap<>();
+        demand.forEach((productId, quantity) -> (servesHot(productId) ? hot : foreign).put(productId, quantity));
+
+        // 预占模式下不允许分桶 / 分仓，仍先核对拆分状态，不存在或已拆分的商品不对主行发 UPDATE
+        if (!foreign.isEmpty()) {
+            Map<Long, InventorySplit> splits = inventoryRepository.findSplitByProductIdIn(foreign.keySet()).stream()
+                    .collect(Collectors.toMap(InventorySplit::productId, Function.identity()));
+            for (Long productId : foreign.keySet()) {
+                InventorySplit split = splits.get(productId);
+                if (split == null) {
+                    throw new ResourceNotFoundException("Inventory", "ProductId", productId);
+                }
+                if (split.split()) {
+                    return false;
+                }
+            }
+        }
+        if (!hot.isEmpty() && !stockReservationStrategy.lock(hot)) {
+            return false;
+        }
+
+        Map<Long, Integer> locked = new TreeMap<>();
+        for (Map.Entry<Long, Integer> entry : foreign.entrySet()) {
+            if (inventoryRepository.lockStock(entry.getKey(), entry.getValue()) == 1) {
+                locked.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            locked.forEach(inventoryRepository::releaseStock);
+            hot.forEach(stockReservationStrategy::release);
+            return false;
+        }
+        if (!hot.isEmpty()) {
+            releaseHotOnRollback(hot);
+        }
+        return true;
+    }
+
+    /**
+     * 预占策略不在本事务内：锁定成功后本事务回滚（登记 / 预占记录失败、冲突重试等）时释放回去；
+     * 随事务回滚的策略（journal）已自行撤销，不再重复释放
+     */
+    private void releaseHotOnRollback(Map<Long, Integer> quantities) {
+        if (stockReservationStrategy.transactional()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                quantities.forEach((productId, quantity) -> {
+                    try {
+                        stockReservationStrategy.release(productId, quantity);
+                    } catch (Exception e) {
+                        log.error("[Inventory] Failed to release reservation store lock after rollback → " +
+                                "productId={}, quantity={}", productId, quantity, e);
+                    }
+                });
+            }
+        });
+    }
+
+    /** 单条确认 / 释放：先登记操作 ID（重复直接返回成功），再消费预占记录，最后按存储模式转移库存 */
+    private boolean applyMovement(String eventType, OrderStockMovement movement) {
+        if (movement.getOrderId() != null) {
+            if (stockOperationDeduplicator.seenRecently(eventType, List.of(movement))
+                    || !stockOperationDeduplicator.claim(eventType, List.of(movement))[0]) {
+                log.info("[Inventory] Duplicate {} ignored → orderId={}, productId={}",
+                        eventType, movement.getOrderId(), movement.getProductId());
+                return true;
+            }
+            String previous = stockReservationJdbcRepository.consume(List.of(movement), consumedStatus(eventType))[0];
+            if (isAlreadyHandled(eventType, previous, movement)) {
+                return true;
+            }
+        }
+        if (!moveInStore(eventType, movement.getProductId(), movement.getQuantity(), List.of(movement))) {
+            return false;
+        }
+        publishEvent(movement.getProductId(), eventType);
+        return true;
+    }
+
+    /**
+     * 批量应用订单事件（CONFIRM / RELEASE）：去重表跳过已处理的 (orderId, productId, eventType)（与接口调用共用），
+     * 消费对应预占记录后按商品合并净数量，每个商品一条 UPDATE，与去重记录同一事务提交。
+     */
+    @Override
+    @Transactional
+    public void applyOrderStockMovements(String eventType, List<OrderStockMovement> movements) {
+        boolean[] fresh = stockOperationDeduplicator.claim(eventType, movements);
+        List<OrderStockMovement> pending = new ArrayList<>();
+        for (int i = 0; i < movements.size(); i++) {
+            if (fresh[i]) {
+                pending.add(movements.get(i));
+            }
+        }
+        if (pending.isEmpty()) {
+            log.info("[Inventory] All {} {} events were duplicates", movements.size(), eventType);
+            return;
+        }
+
+        String[] previous = stockReservationJdbcRepository.consume(pending, consumedStatus(eventType));
+        Map<Long, Integer> netByProduct = new TreeMap<>();
+        Map<Long, List<OrderStockMovement>> byProduct = new HashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            OrderStockMovement movement = pending.get(i);
+            if (!isAlreadyHandled(eventType, previous[i], movement)) {
+                netByProduct.merge(movement.getProductId(), movement.getQuantity(), Integer::sum);
+                byProduct.computeIfAbsent(movement.getProductId(), k -> new ArrayList<>()).add(movement);
+            }
+        }
+        if (netByProduct.size() < movements.size()) {
+            log.info("[Inventory] {} {} events coalesced into {} product updates ({} duplicates skipped)",
+                    movements.size(), eventType, netByProduct.size(), movements.size() - pending.size());
+        }
+
+        netByProduct.forEach((productId, quantity) -> {
+            if (moveInStore(eventType, productId, quantity, byProduct.get(productId))) {
+                publishEvent(productId, eventType);
+            } else {
+                log.warn("[Inventory] {} not applied, locked stock insufficient or missing → productId={}, quantity={}",
+                        eventType, productId, quantity);
+            }
+        });
+    }
+
+    /**
+     * 根据预占记录之前的状态判断是否已处理：
+     * 已确认 / 已释放 → 重复请求；已过期 → 库存已被清理任务释放，
+     * 此时释放为空操作，确认则需重新从可用库存中扣减后再确认。
+     */
+    private boolean isAlreadyHandled(String eventType, String previousStatus, OrderStockMovement movement) {
+        if (previousStatus == null || StockReservation.STATUS_ACTIVE.equals(previousStatus)) {
+            return false;
+        }
+        if (StockReservation.STATUS_EXPIRED.equals(previousStatus) && EVENT_CONFIRM.equals(eventType)) {
+            log.warn("[Inventory] Confirming an expired reservation, re-locking → orderId={}, productId={}",
+                    movement.getOrderId(), movement.getProductId());
+            try {
+                if (lockInStore(movement.getProductId(), movement.getQuantity(), movement.getOrderId())) {
+                    return false;
+                }
+            } catch (ApiException | ResourceNotFoundException e) {
+                log.warn("[Inventory] Re-lock failed → {}", e.getMessage());
+            }
+            log.error("[Inventory] Paid order could not re-lock expired stock, manual review needed → orderId={}, " +
+                    "productId={}, quantity={}", movement.getOrderId(), movement.getProductId(), movement.getQuantity());
+            return true;
+        }
+        log.info("[Inventory] Reservation already {}, skipping {} → orderId={}, productId={}",
+                previousStatus, eventType, movement.getOrderId(), movement.getProductId());
+        return true;
+    }
+
+    /** 清理过期预占：加锁取出一批，按商品合并后释放，返回本批条数 */
+    @Override
+    @Transactional
+    public int releaseExpiredReservations(int batchSize) {
+        List<OrderStockMovement> expired = stockReservationJdbcRepository.lockExpired(LocalDateTime.now(), batchSize);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        stockReservationJdbcRepository.consume(expired, StockReservation.STATUS_EXPIRED);
+
+        Map<Long, Integer> netByProduct = new TreeMap<>();
+        expired.forEach(m -> netByProduct.merge(m.getProductId(), m.getQuantity(), Integer::sum));
+        Map<Long, List<OrderStockMovement>> byProduct = expired.stream()
+                .collect(Collectors.groupingBy(OrderStockMovement::getProductId));
+        netByProduct.forEach((productId, quantity) -> {
+            if (moveInStore(EVENT_RELEASE, productId, quantity, byProduct.get(productId))) {
+                publishEvent(productId, EVENT_RELEASE);
+            } else {
+                log.warn("[Inventory] Expired reservation release not applied → productId={}, quantity={}",
+                        productId, quantity);
+            }
+        });
+        log.info("[Inventory] Released {} expired reservations across {} products", expired.size(), netByProduct.size());
+        return expired.size();
+    }
+
+    private String consumedStatus(String eventType) {
+        return EVENT_CONFIRM.equals(eventType) ? StockReservation.STATUS_CONFIRMED : StockReservation.STATUS_RELEASED;
+    }
+
+    private LocalDateTime reservationExpiry() {
+        return LocalDateTime.now().plusMinutes(reservationTtlMinutes);
+    }
 
-        publishEvent(productId, "RELEASE");
+    /** movements 为该商品本次合并的订单明细，分仓商品据此回到锁定时的仓库 */
+    private boolean moveInStore(String eventType, Long productId, int quantity, List<OrderStockMovement> movements) {
+        boolean confirm = EVENT_CONFIRM.equals(eventType);
+        if (servesHot(productId)) {
+            if (stockReservationStrategy.transactional()) {
+                return moveInReservationStore(eventType, productId, quantity);
+            }
+            // 预占策略不在本事务内：先按实时库存校验，提交后再转移；
+            // 去重登记 / 预占记录随事务回滚时库存未动，消费端重投不会重复转移
+            StockLevels levels = stockReservationStrategy.current(productId).orElse(null);
+            if (levels == null || levels.getLockedStock() < quantity) {
+                return false;
+            }
+            afterCommit(() -> {
+                if (!moveInReservationStore(eventType, productId, quantity)) {
+                    log.error("[Inventory] {} not applied after commit, manual review needed → productId={}, quantity={}",
+                            eventType, productId, quantity);
+                }
+            });
+            return true;
+        }
+        return confirm
+                ? confirmInDatabase(productId, quantity, movements)
+                : releaseInDatabase(productId, quantity, movements);
     }
 
-    /** ✅ 事务提交后异步触发 Kafka 消息 */
+    // 单个商品失败只记录日志，不让整批重投造成其他商品重复扣减
+    private boolean moveInReservationStore(String eventType, Long productId, int quantity) {
+        try {
+            return EVENT_CONFIRM.equals(eventType)
+                    ? stockReservationStrategy.confirm(productId, quantity)
+                    : stockReservationStrategy.release(productId, quantity);
+        } catch (Exception e) {
+            log.error("[Inventory] {} failed in reservation store → productId={}, quantity={}",
+                    eventType, productId, quantity, e);
+            return false;
+        }
+    }
+
+    /**
+     * 主行条件 UPDATE 先拿到行锁，再同步分仓行；锁定库存不足或记录不存在时返回 false。
+     * 拆分状态为不加锁读取，UPDATE 未命中时加锁重读，读取后刚被拆分 / 合并的按最新状态重走一次。
+     */
+    private boolean confirmInDatabase(Long productId, int quantity, List<OrderStockMovement> movements) {
+        return moveInDatabase(productId, quantity, movements, true);
+    }
+
+    private boolean releaseInDatabase(Long productId, int quantity, List<OrderStockMovement> movements) {
+        return moveInDatabase(productId, quantity, movements, false);
+    }
+
+    private boolean moveInDatabase(Long productId, int quantity, List<OrderStockMovement> movements, boolean confirm) {
+        InventorySplit split = inventoryRepository.findSplitByProductId(productId).orElse(null);
+        if (split == null) {
+            return false;
+        }
+        if (moveWithSplit(split, quantity, movements, confirm)) {
+            return true;
+        }
+        Inventory inventory = inventoryRepository.findByProductIdForUpdate(productId).orElse(null);
+        if (inventory == null) {
+            return false;
+        }
+        InventorySplit current = new InventorySplit(productId, inventory.getBucketCount(),
+                inventory.getWarehouseCount());
+        return !current.equals(split) && moveWithSplit(current, quantity, movements, confirm);
+    }
+
+    private boolean moveWithSplit(InventorySplit split, int quantity, List<OrderStockMovement> movements,
+                                  boolean confirm) {
+        Long productId = split.productId();
+        if (split.bucketed()) {
+            return confirm
+                    ? inventoryBucketService.confirm(productId, split.bucketCount(), quantity)
+                    : inventoryBucketService.release(productId, split.bucketCount(), quantity);
+        }
+        if (!split.warehoused()) {
+            return (confirm
+                    ? inventoryRepository.confirmStock(productId, quantity)
+                    : inventoryRepository.releaseStock(productId, quantity)) == 1;
+        }
+        if ((confirm
+                ? inventoryRepository.confirmWarehousedStock(productId, quantity)
+                : inventoryRepository.releaseWarehousedStock(productId, quantity)) == 0) {
+            return false;
+        }
+        if (confirm) {
+            warehouseService.confirm(productId, movements);
+        } else {
+            warehouseService.release(productId, movements);
+        }
+        return true;
+    }
+
+    /** 拆分热门商品库存 */
+    @Override
+    @Transactional
+    public InventoryResponse splitInventory(Long productId, int buckets) {
+        if (stockReservationStrategy != null) {
+            throw new ApiException("Bucket split is not available with inventory.reservation.mode enabled",
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (buckets < 2) {
+            throw new ApiException("Bucket count must be at least 2", HttpStatus.BAD_REQUEST);
+        }
+        Inventory inventory = inventoryRepository.findByProductIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        if (inventory.getWarehouseCount() > 0) {
+            throw new ApiException("Bucket split is not available for inventory managed per warehouse",
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (inventory.getBucketCount() > 0) {
+            inventoryBucketService.merge(inventory);
+        }
+        inventoryBucketService.split(inventory, buckets);
+        afterCommit(() -> inventoryReadCache.invalidate(productId));
+        return loadInventory(productId);
+    }
+
+    /** 合并分桶 */
+    @Override
+    @Transactional
+    public InventoryResponse mergeInventory(Long productId) {
+        Inventory inventory = inventoryRepository.findByProductIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        if (inventory.getBucketCount() > 0) {
+            inventoryBucketService.merge(inventory);
+        }
+        afterCommit(() -> inventoryReadCache.invalidate(productId));
+        return loadInventory(productId);
+    }
+
+    /** 设置 / 清除低库存阈值（threshold 为空表示关闭），设置后按当前库存立即检查一次 */
+    @Override
+    @Transactional
+    public InventoryResponse setLowStockThreshold(Long productId, LowStockThresholdRequest request) {
+        Integer threshold = request.getThreshold();
+        Integer clearAt = null;
+        if (threshold != null) {
+            if (threshold <= 0) {
+                throw new ApiException("Low-stock threshold must be positive", HttpStatus.BAD_REQUEST);
+            }
+            clearAt = request.getClearAt() != null
+                    ? request.getClearAt()
+                    : threshold + Math.max(1, (int) Math.ceil(threshold * lowStockHysteresisRatio));
+            if (clearAt < threshold) {
+                throw new ApiException("clearAt must not be below the threshold", HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        Inventory inventory = inventoryRepository.findByProductIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        inventory.setLowStockThreshold(threshold);
+        inventory.setLowStockClearAt(clearAt);
+        // 阈值变更后重新开始判断
+        inventory.setLowStock(false);
+        inventory.setLowStockVersion(0L);
+        inventoryRepository.save(inventory);
+
+        afterCommit(() -> {
+            inventoryReadCache.invalidate(productId);
+            if (threshold != null) {
+                lowStockWatcher.check(productId);
+            }
+        });
+        return loadInventory(productId);
+    }
+
+    /**
+     * 对账修正：释放扫描时多锁的库存。只处理未分桶 / 未分仓的 MySQL 主行；
+     * 扫描后库存有变更的跳过，仍有 ACTIVE 预占覆盖的部分不释放（对应的确认 / 释放事件可能还在途中）。
+     */
+    @Override
+    @Transactional
+    public List<LockedStockCorrectionResult> correctLockedStock(List<LockedStockCorrection> corrections) {
+        if (corrections.size() > maxCorrections) {
+            throw new ApiException("Too many corrections in one batch, max is " + maxCorrections,
+                    HttpStatus.BAD_REQUEST);
+        }
+        List<LockedStockCorrectionResult> results = new ArrayList<>();
+        if (stockReservationStrategy != null) {
+            corrections.forEach(c -> results.add(new LockedStockCorrectionResult(c.getProductId(), 0,
+                    "Corrections are not available with inventory.reservation.mode enabled")));
+            return results;
+        }
+
+        Map<Long, Inventory> inventories = inventoryRepository.findAllByProductIdInForUpdate(corrections.stream()
+                        .map(LockedStockCorrection::getProductId)
+                        .collect(Collectors.toCollection(TreeSet::new)))
+                .stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+        for (LockedStockCorrection correction : corrections) {
+            Long productId = correction.getProductId();
+            Inventory inventory = inventories.get(productId);
+            String reason = null;
+            int released = 0;
+            if (inventory == null) {
+                reason = "Inventory not found";
+            } else if (inventory.getBucketCount() > 0 || inventory.getWarehouseCount() > 0) {
+                reason = "Bucketed or warehouse-managed inventory is not corrected automatically";
+            } else if (!Objects.equals(correction.getVersion(), inventory.getVersion().longValue())) {
+                reason = "Stock changed since the scan";
+            } else if (correction.getExcessLocked() == null || correction.getExcessLocked() <= 0) {
+                reason = "Nothing to release";
+            } else {
+                int unreserved = inventory.getLockedStock() - stockReservationJdbcRepository.sumActive(productId);
+                released = Math.max(0, Math.min(correction.getExcessLocked(), unreserved));
+                if (released < correction.getExcessLocked()) {
+                    reason = "Remaining locked stock is covered by active reservations";
+                }
+                if (released > 0) {
+                    inventory.setLockedStock(inventory.getLockedStock() - released);
+                    inventory.setAvailableStock(inventory.getAvailableStock() + released);
+                    inventory.setVersion(inventory.getVersion() + 1);
+                    publishEvent(productId, EVENT_RELEASE);
+                    log.warn("[Inventory] Reconciliation released drifted locked stock → productId={}, released={}",
+                            productId, released);
+                }
+            }
+            results.add(new LockedStockCorrectionResult(productId, released, reason));
+        }
+        return results;
+    }
+
+    private void addBucketTotals(InventoryResponse dto, StockLevels totals) {
+        if (totals == null) {
+            return;
+        }
+        dto.setAvailableStock(dto.getAvailableStock() + totals.getAvailableStock());
+        dto.setLockedStock(dto.getLockedStock() + totals.getLockedStock());
+        dto.setSoldStock(dto.getSoldStock() + totals.getSoldStock());
+        dto.setVersion(dto.getVersion() + totals.getVersion());
+    }
+
+    /** 配置了预占策略，且（开启归属时）本实例持有该商品 */
+    private boolean servesHot(Long productId) {
+        return stockReservationStrategy != null
+                && (inventoryOwnership == null || inventoryOwnership.isOwner(productId));
+    }
+
+    /**
+     * ✅ 事务提交后交给合并发送器，窗口内同一商品只发一条；
+     * 归属模式下非持有者改了 MySQL，另外通知持有者重新加载内存计数
+     */
     private void publishEvent(Long productId, String eventType) {
-        InventoryEvent event = new InventoryEvent(productId, eventType, LocalDateTime.now());
+        boolean foreign = inventoryOwnership != null && !inventoryOwnership.isOwner(productId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inventoryReadCache.invalidate(productId);
+                inventoryEventPublisher.publish(productId, eventType);
+                if (foreign) {
+                    inventoryOwnership.requestReload(productId);
+                }
+            }
+        });
+    }
 
+    private void afterCommit(Runnable action) {
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
-                kafkaTemplate.send("inventory-stock-updated", event);
+                action.run();
             }
         });
     }
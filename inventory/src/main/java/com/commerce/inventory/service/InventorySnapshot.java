@@ -0,0 +1,20 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.reservation.StockLevels;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:40
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 提交后的库存快照，附带低库存阈值与当前告警状态、有货状态（与库存同一次查询读出）
+ */
+public record InventorySnapshot(StockLevels levels,
+                                Integer lowStockThreshold,
+                                Integer lowStockClearAt,
+                                boolean lowStock,
+                                long lowStockVersion,
+                                boolean inStock,
+                                long inStockVersion) {
+}
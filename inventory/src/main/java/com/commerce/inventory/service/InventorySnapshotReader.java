@@ -0,0 +1,90 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.exceptions.ResourceNotFoundException;
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.ownership.InventoryOwnership;
+import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.reservation.StockLevels;
+import com.commerce.inventory.reservation.StockReservationStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 21:55
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 读取商品当前库存及版本（主行 + 分桶合计，配置了预占模式时以实时库存为准，归属模式下仅限本实例持有的商品），
+ * 供库存事件携带快照、低库存 / 有货检查使用。不存在的商品不出现在结果中。
+ */
+@Component
+@Slf4j
+public class InventorySnapshotReader {
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryBucketService inventoryBucketService;
+    @Autowired(required = false)
+    private StockReservationStrategy stockReservationStrategy;
+    @Autowired(required = false)
+    private InventoryOwnership inventoryOwnership;
+
+    public Map<Long, StockLevels> read(Collection<Long> productIds) {
+        Map<Long, StockLevels> levels = new HashMap<>();
+        readSnapshots(productIds).forEach((productId, snapshot) -> levels.put(productId, snapshot.levels()));
+        return levels;
+    }
+
+    /** 库存快照 + 低库存阈值 / 状态 + 有货状态 */
+    public Map<Long, InventorySnapshot> readSnapshots(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Inventory> inventories = inventoryRepository.findAllByProductIdIn(productIds);
+        Map<Long, StockLevels> bucketTotals = inventoryBucketService.totals(inventories.stream()
+                .filter(inventory -> inventory.getBucketCount() > 0)
+                .map(Inventory::getProductId)
+                .toList());
+
+        Map<Long, InventorySnapshot> snapshots = new HashMap<>();
+        for (Inventory inventory : inventories) {
+            Long productId = inventory.getProductId();
+            StockLevels levels = new StockLevels(inventory.getAvailableStock(), inventory.getLockedStock(),
+                    inventory.getSoldStock(), inventory.getVersion());
+            StockLevels buckets = bucketTotals.get(productId);
+            if (buckets != null) {
+                levels.setAvailableStock(levels.getAvailableStock() + buckets.getAvailableStock());
+                levels.setLockedStock(levels.getLockedStock() + buckets.getLockedStock());
+                levels.setSoldStock(levels.getSoldStock() + buckets.getSoldStock());
+                levels.setVersion(levels.getVersion() + buckets.getVersion());
+            }
+            if (stockReservationStrategy != null
+                    && (inventoryOwnership == null || inventoryOwnership.isOwner(productId))) {
+                try {
+                    // MySQL 可能尚未落盘，以预占存储中的实时库存与版本为准
+                    levels = stockReservationStrategy.current(productId).orElse(levels);
+                } catch (ResourceNotFoundException e) {
+                    continue;
+                } catch (Exception e) {
+                    log.warn("[Inventory] Failed to read live stock, skipping snapshot → productId={}, reason={}",
+                            productId, e.getMessage());
+                    continue;
+                }
+            }
+            snapshots.put(productId, new InventorySnapshot(levels, inventory.getLowStockThreshold(),
+                    inventory.getLowStockClearAt(), Boolean.TRUE.equals(inventory.getLowStock()),
+                    inventory.getLowStockVersion() == null ? 0L : inventory.getLowStockVersion(),
+                    Boolean.TRUE.equals(inventory.getInStock()),
+                    inventory.getInStockVersion() == null ? 0L : inventory.getInStockVersion()));
+        }
+        return snapshots;
+    }
+}
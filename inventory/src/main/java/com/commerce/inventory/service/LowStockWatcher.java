@@ -0,0 +1,99 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.kafka.event.LowStockEvent;
+import com.commerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:50
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 低库存增量检查：每次库存变更的事件发出时，用同一份快照比较阈值与当前告警状态，
+ * 不查表、不轮询。只有跨越阈值（正常 → 低于阈值、低库存 → 回升到解除值）时才条件更新告警状态，
+ * 更新成功的实例发出 inventory-low-stock，多实例下每次跨越只发一条。
+ */
+@Component
+@Slf4j
+public class LowStockWatcher {
+
+    private static final String TOPIC = "inventory-low-stock";
+    public static final String EVENT_LOW_STOCK = "LOW_STOCK";
+    public static final String EVENT_RECOVERED = "RECOVERED";
+
+    private final InventoryRepository inventoryRepository;
+    private final InventorySnapshotReader snapshotReader;
+    private final KafkaTemplate<String, LowStockEvent> kafkaTemplate;
+    private final Counter lowCounter;
+    private final Counter recoveredCounter;
+
+    public LowStockWatcher(InventoryRepository inventoryRepository,
+                           InventorySnapshotReader snapshotReader,
+                           KafkaTemplate<String, LowStockEvent> kafkaTemplate,
+                           MeterRegistry meterRegistry) {
+        this.inventoryRepository = inventoryRepository;
+        this.snapshotReader = snapshotReader;
+        this.kafkaTemplate = kafkaTemplate;
+        this.lowCounter = Counter.builder("inventory.low_stock.crossings")
+                .description("Low-stock threshold crossings")
+                .tag("direction", "low")
+                .register(meterRegistry);
+        this.recoveredCounter = Counter.builder("inventory.low_stock.crossings")
+                .description("Low-stock threshold crossings")
+                .tag("direction", "recovered")
+                .register(meterRegistry);
+    }
+
+    /** 库存事件发送时调用，O(1)：未跨越阈值时不访问数据库 */
+    public void evaluate(Long productId, InventorySnapshot snapshot) {
+        Integer threshold = snapshot.lowStockThreshold();
+        if (threshold == null) {
+            return;
+        }
+        int available = snapshot.levels().getAvailableStock();
+        int clearAt = snapshot.lowStockClearAt() == null ? threshold : snapshot.lowStockClearAt();
+
+        boolean low;
+        if (!snapshot.lowStock() && available < threshold) {
+            low = true;
+        } else if (snapshot.lowStock() && available >= clearAt) {
+            low = false;
+        } else {
+            return;
+        }
+
+        long version = snapshot.levels().getVersion();
+        if (inventoryRepository.flipLowStock(productId, low, version) == 0) {
+            // 其他实例已翻转，或快照已过时
+            return;
+        }
+
+        LowStockEvent event = new LowStockEvent(productId, low ? EVENT_LOW_STOCK : EVENT_RECOVERED,
+                available, threshold, clearAt, version, LocalDateTime.now());
+        try {
+            kafkaTemplate.send(TOPIC, productId.toString(), event);
+            (low ? lowCounter : recoveredCounter).increment();
+            log.info("[Kafka] LowStockEvent sent → productId={}, eventType={}, available={}, threshold={}",
+                    productId, event.getEventType(), available, threshold);
+        } catch (Exception e) {
+            log.error("[Kafka] Failed to send LowStockEvent → productId={}, eventType={}",
+                    productId, event.getEventType(), e);
+        }
+    }
+
+    /** 阈值变更后立即按当前库存检查一次 */
+    public void check(Long productId) {
+        InventorySnapshot snapshot = snapshotReader.readSnapshots(List.of(productId)).get(productId);
+        if (snapshot != null) {
+            evaluate(productId, snapshot);
+        }
+    }
+}
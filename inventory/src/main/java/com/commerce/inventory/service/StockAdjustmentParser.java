@@ -0,0 +1,130 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.dto.StockAdjustmentRow;
+import com.commerce.inventory.exceptions.ApiException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.HttpStatus;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:50
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 批量调整文件的逐行解析，只持有当前一行：
+ * 1. CSV：首行为表头（productId / availableStock / delta，大小写及下划线不敏感），字段不含逗号
+ * 2. NDJSON：每行一个 {"productId":1,"availableStock":10} 或 {"productId":1,"delta":-2}
+ * 空行与 # 开头的行跳过；单行格式错误只拒绝该行，CSV 表头错误拒绝整个文件。
+ */
+final class StockAdjustmentParser {
+
+    record ParsedRow(long line, StockAdjustmentRow row, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final boolean ndjson;
+    private final ObjectReader rowReader;
+
+    private long line;
+    private int productIdColumn = -1;
+    private int availableColumn = -1;
+    private int deltaColumn = -1;
+    private int columnCount;
+
+    StockAdjustmentParser(BufferedReader reader, boolean ndjson, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.ndjson = ndjson;
+        this.rowReader = objectMapper.readerFor(StockAdjustmentRow.class);
+    }
+
+    /** 下一行数据，文件结束返回 null */
+    ParsedRow next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            text = text.strip();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            if (!ndjson && productIdColumn < 0) {
+                readHeader(text);
+                continue;
+            }
+            return ndjson ? parseJson(text) : parseCsv(text);
+        }
+        if (!ndjson && productIdColumn < 0) {
+            throw new ApiException("CSV file has no header line", HttpStatus.BAD_REQUEST);
+        }
+        return null;
+    }
+
+    private void readHeader(String text) {
+        String[] columns = text.split(",", -1);
+        columnCount = columns.length;
+        for (int i = 0; i < columns.length; i++) {
+            switch (columns[i].strip().replace("_", "").toLowerCase(Locale.ROOT)) {
+                case "productid" -> productIdColumn = i;
+                case "availablestock" -> availableColumn = i;
+                case "delta" -> deltaColumn = i;
+                default -> {
+                    // 其他列忽略
+                }
+            }
+        }
+        if (productIdColumn < 0 || (availableColumn < 0 && deltaColumn < 0)) {
+            throw new ApiException("CSV header must contain productId and availableStock or delta, got: " + text,
+                    HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private ParsedRow parseCsv(String text) {
+        String[] fields = text.split(",", -1);
+        if (fields.length != columnCount) {
+            return new ParsedRow(line, null, "Expected " + columnCount + " columns but got " + fields.length);
+        }
+        try {
+            StockAdjustmentRow row = new StockAdjustmentRow(parseLong(fields[productIdColumn]),
+                    availableColumn < 0 ? null : parseInt(fields[availableColumn]),
+                    deltaColumn < 0 ? null : parseInt(fields[deltaColumn]));
+            return validate(row);
+        } catch (NumberFormatException e) {
+            return new ParsedRow(line, null, "Invalid number: " + e.getMessage());
+        }
+    }
+
+    private ParsedRow parseJson(String text) {
+        try {
+            return validate(rowReader.readValue(text));
+        } catch (JsonProcessingException e) {
+            return new ParsedRow(line, null, "Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private ParsedRow validate(StockAdjustmentRow row) {
+        String error = null;
+        if (row.getProductId() == null) {
+            error = "productId is required";
+        } else if ((row.getAvailableStock() == null) == (row.getDelta() == null)) {
+            error = "Exactly one of availableStock and delta is required";
+        } else if (row.getAvailableStock() != null && row.getAvailableStock() < 0) {
+            error = "availableStock must not be negative";
+        }
+        return error == null ? new ParsedRow(line, row, null) : new ParsedRow(line, row, error);
+    }
+
+    private static Long parseLong(String value) {
+        String trimmed = value.strip();
+        return trimmed.isEmpty() ? null : Long.valueOf(trimmed);
+    }
+
+    private static Integer parseInt(String value) {
+        String trimmed = value.strip();
+        return trimmed.isEmpty() ? null : Integer.valueOf(trimmed);
+    }
+}
@@ -0,0 +1,18 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.dto.StockAdjustmentResult;
+
+import java.io.Reader;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 04:00
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ */
+public interface StockAdjustmentService {
+
+    /** 流式导入批量调整文件（CSV 或 NDJSON），逐行解析、按批写入 */
+    StockAdjustmentResult bulkAdjust(Reader body, boolean ndjson);
+}
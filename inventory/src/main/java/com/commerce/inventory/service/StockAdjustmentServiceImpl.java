@@ -0,0 +1,210 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.dto.StockAdjustmentError;
+import com.commerce.inventory.dto.StockAdjustmentResult;
+import com.commerce.inventory.exceptions.ApiException;
+import com.commerce.inventory.kafka.producer.InventoryEventPublisher;
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.ownership.InventoryOwnership;
+import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.repository.StockAdjustmentJdbcRepository;
+import com.commerce.inventory.reservation.StockReservationStrategy;
+import com.commerce.inventory.service.StockAdjustmentParser.ParsedRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 04:00
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 批量调整可用库存（仓库每日库存文件 / 全量对齐）：
+ * 1. 边读边解析，每攒满 batch-size 行按商品合并（最后一次设置值 + 其后的增量），一个事务一次 JDBC batch 写入
+ * 2. 批次之间各自提交，中途失败时已提交的批次保留，结果中给出被拒绝的行
+ * 3. 全部写完后每个有变更的商品只发一条库存事件（并失效缓存 / 重新加载预占存储）
+ */
+@Service
+@Slf4j
+public class StockAdjustmentServiceImpl implements StockAdjustmentService {
+
+    private static final String EVENT_UPDATE = "UPDATE";
+
+    @Autowired
+    private StockAdjustmentJdbcRepository stockAdjustmentJdbcRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private StockOperationRetrier stockOperationRetrier;
+    @Autowired
+    private InventoryReadCache inventoryReadCache;
+    @Autowired
+    private InventoryEventPublisher inventoryEventPublisher;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired(required = false)
+    private StockReservationStrategy stockReservationStrategy;
+    @Autowired(required = false)
+    private InventoryOwnership inventoryOwnership;
+
+    @Value("${inventory.bulk-adjust.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${inventory.bulk-adjust.max-errors:100}")
+    private int maxErrors;
+
+    @Override
+    public StockAdjustmentResult bulkAdjust(Reader body, boolean ndjson) {
+        long start = System.nanoTime();
+        StockAdjustmentParser parser = new StockAdjustmentParser(new BufferedReader(body), ndjson, objectMapper);
+        StockAdjustmentResult result = new StockAdjustmentResult();
+        Set<Long> touched = new LinkedHashSet<>();
+        List<ParsedRow> batch = new ArrayList<>(batchSize);
+        try {
+            ParsedRow parsed;
+            while ((parsed = parser.next()) != null) {
+                result.setRows(result.getRows() + 1);
+                if (parsed.error() != null) {
+                    reject(result, parsed, parsed.error());
+                    continue;
+                }
+                batch.add(parsed);
+                if (batch.size() >= batchSize) {
+                    applyBatch(batch, result, touched);
+                    batch.clear();
+                }
+            }
+            applyBatch(batch, result, touched);
+        } catch (IOException e) {
+            throw new ApiException("Failed to read stock file after " + result.getRows() + " rows, "
+                    + result.getApplied() + " rows already applied: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        } finally {
+            // 已提交的批次无论后续是否失败都要通知下游
+            publishChanges(touched);
+        }
+
+        result.setProducts(touched.size());
+        result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("[Inventory] Bulk stock adjustment finished → rows={}, applied={}, rejected={}, products={}, {}ms",
+                result.getRows(), result.getApplied(), result.getRejected(), result.getProducts(), result.getElapsedMs());
+        return result;
+    }
+
+    /** 按商品合并后一次 batch 写入，商品按 productId 升序加锁，避免与其他库存事务死锁 */
+    private void applyBatch(List<ParsedRow> batch, StockAdjustmentResult result, Set<Long> touched) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Long, Adjustment> byProduct = new TreeMap<>();
+        for (ParsedRow parsed : batch) {
+            byProduct.computeIfAbsent(parsed.row().getProductId(), k -> new Adjustment()).add(parsed);
+        }
+        List<Long> productIds = new ArrayList<>(byProduct.keySet());
+        List<Object[]> adjustments = productIds.stream()
+                .map(productId -> new Object[]{productId, byProduct.get(productId).absolute,
+                        byProduct.get(productId).delta})
+                .toList();
+
+        int[] updated = stockOperationRetrier.execute("bulk_adjust", null,
+                () -> transactionTemplate.execute(status -> stockAdjustmentJdbcRepository.adjust(adjustments)));
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            Adjustment adjustment = byProduct.get(productIds.get(i));
+            if (updated[i] > 0) {
+                touched.add(productIds.get(i));
+                result.setApplied(result.getApplied() + adjustment.rows.size());
+            } else {
+                failed.add(productIds.get(i));
+            }
+        }
+        if (!failed.isEmpty()) {
+            Map<Long, String> reasons = rejectReasons(failed);
+            failed.forEach(productId -> byProduct.get(productId).rows
+                    .forEach(parsed -> reject(result, parsed, reasons.get(productId))));
+        }
+    }
+
+    /** 只对失败的商品查询一次 */
+    private Map<Long, String> rejectReasons(List<Long> productIds) {
+        Map<Long, String> reasons = new HashMap<>();
+        productIds.forEach(productId -> reasons.put(productId, "Inventory not found"));
+        for (Inventory inventory : inventoryRepository.findAllByProductIdIn(productIds)) {
+            String reason;
+            if (inventory.getBucketCount() > 0) {
+                reason = "Bucketed inventory must be merged before adjusting";
+            } else if (inventory.getWarehouseCount() > 0) {
+                reason = "Inventory is managed per warehouse, adjust warehouse stock instead";
+            } else {
+                reason = "Available stock would become negative";
+            }
+            reasons.put(inventory.getProductId(), reason);
+        }
+        return reasons;
+    }
+
+    private void reject(StockAdjustmentResult result, ParsedRow parsed, String reason) {
+        result.setRejected(result.getRejected() + 1);
+        if (result.getErrors().size() < maxErrors) {
+            Long productId = parsed.row() == null ? null : parsed.row().getProductId();
+            result.getErrors().add(new StockAdjustmentError(parsed.line(), productId, reason));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    /** 每个商品一条事件（发送器按窗口合并后读取最终快照），预占存储按 MySQL 重新加载 */
+    private void publishChanges(Set<Long> productIds) {
+        for (Long productId : productIds) {
+            inventoryReadCache.invalidate(productId);
+            inventoryEventPublisher.publish(productId, EVENT_UPDATE);
+            if (stockReservationStrategy == null) {
+                continue;
+            }
+            try {
+                if (inventoryOwnership == null || inventoryOwnership.isOwner(productId)) {
+                    stockReservationStrategy.reload(productId);
+                } else {
+                    inventoryOwnership.requestReload(productId);
+                }
+            } catch (Exception e) {
+                log.error("[Inventory] Failed to reload reservation store after bulk adjustment → productId={}",
+                        productId, e);
+            }
+        }
+    }
+
+    // -----------------------------------------------------------------------
+    // 同一批次内单个商品的合并结果
+    // -----------------------------------------------------------------------
+    private static final class Adjustment {
+        private final List<ParsedRow> rows = new ArrayList<>(1);
+        /** 最后一次设置值，之前的行被覆盖 */
+        private Integer absolute;
+        /** 最后一次设置值之后的增量合计 */
+        private int delta;
+
+        private void add(ParsedRow parsed) {
+            rows.add(parsed);
+            if (parsed.row().getAvailableStock() != null) {
+                absolute = parsed.row().getAvailableStock();
+                delta = 0;
+            } else {
+                delta += parsed.row().getDelta();
+            }
+        }
+    }
+}
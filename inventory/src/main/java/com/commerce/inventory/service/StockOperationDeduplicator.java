@@ -0,0 +1,119 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.dto.OrderStockMovement;
+import com.commerce.inventory.repository.StockEventDedupRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 04:40
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 库存操作幂等（操作 ID = orderId + productId + LOCK / CONFIRM / RELEASE）：
+ * 1. 与库存变更同一事务 INSERT IGNORE 登记到 processed_stock_event，登记失败（已存在）即为重复，不再改库存
+ * 2. 并发的相同操作在唯一键上等待先到者提交 / 回滚，只有一个会执行
+ * 3. 已提交的操作 ID 放入有界本地缓存，近期窗口内的重试不访问数据库直接返回
+ * 没有 orderId 的操作无法识别，照常执行。
+ */
+@Component
+class StockOperationDeduplicator {
+
+    private final StockEventDedupRepository stockEventDedupRepository;
+    private final Cache<OperationKey, Boolean> recent;
+    private final Counter cachedDuplicateCounter;
+    private final Counter storedDuplicateCounter;
+
+    StockOperationDeduplicator(StockEventDedupRepository stockEventDedupRepository,
+                               @Value("${inventory.idempotency.cache-size:100000}") long cacheSize,
+                               @Value("${inventory.idempotency.cache-ttl-minutes:30}") long cacheTtlMinutes,
+                               MeterRegistry meterRegistry) {
+        this.stockEventDedupRepository = stockEventDedupRepository;
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .build();
+        this.cachedDuplicateCounter = Counter.builder("inventory.operations.duplicates")
+                .description("Repeated stock operations answered without touching stock")
+                .tag("source", "cache")
+                .register(meterRegistry);
+        this.storedDuplicateCounter = Counter.builder("inventory.operations.duplicates")
+                .description("Repeated stock operations answered without touching stock")
+                .tag("source", "table")
+                .register(meterRegistry);
+    }
+
+    /** 近期窗口内全部已处理（已提交），无需开启事务 */
+    boolean seenRecently(String operation, List<OrderStockMovement> movements) {
+        for (OrderStockMovement movement : movements) {
+            if (recent.getIfPresent(OperationKey.of(operation, movement)) == null) {
+                return false;
+            }
+        }
+        cachedDuplicateCounter.increment(movements.size());
+        return true;
+    }
+
+    /**
+     * 事务内登记，返回每条是否为首次（同批内重复的也只有第一条为 true）。
+     * 首次的在提交后进入本地窗口；重复的说明已被其他事务提交，直接进入本地窗口。
+     */
+    boolean[] claim(String operation, List<OrderStockMovement> movements) {
+        boolean[] fresh = stockEventDedupRepository.markProcessed(operation, movements);
+        Set<OperationKey> claimed = new HashSet<>();
+        for (int i = 0; i < fresh.length; i++) {
+            OperationKey key = OperationKey.of(operation, movements.get(i));
+            if (fresh[i]) {
+                claimed.add(key);
+                continue;
+            }
+            // 同批内的重复要等本事务提交后才算数
+            if (!claimed.contains(key)) {
+                recent.put(key, Boolean.TRUE);
+            }
+            storedDuplicateCounter.increment();
+        }
+        if (!claimed.isEmpty()) {
+            afterCommit(() -> claimed.forEach(key -> recent.put(key, Boolean.TRUE)));
+        }
+        return fresh;
+    }
+
+    /** 同一事务内撤回登记（操作最终被拒绝，之后的重试应重新执行） */
+    void revoke(String operation, List<OrderStockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        stockEventDedupRepository.unmark(operation, movements);
+        List<OperationKey> revoked = movements.stream().map(movement -> OperationKey.of(operation, movement)).toList();
+        // 在 claim 注册的回调之后执行
+        afterCommit(() -> recent.invalidateAll(revoked));
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record OperationKey(long orderId, long productId, String operation) {
+        static OperationKey of(String operation, OrderStockMovement movement) {
+            return new OperationKey(movement.getOrderId(), movement.getProductId(), operation);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.exceptions.ApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 21:10
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 并发冲突（死锁 / 锁等待超时 / 乐观锁失败）有界重试，退避时间指数增长并加随机抖动。
+ * 需在事务外包裹整段事务，每次重试都是一个新事务。
+ * 指标：inventory.stock.conflicts（按操作 + 商品计数），inventory.stock.attempts（每次调用的尝试次数）。
+ * 商品标签基数有界：白名单中的商品始终单独计数，其余按首次冲突的先后最多单独计数 conflict-tag-limit 个，
+ * 之后的商品归入 "other"（真正被争抢的商品通常最先出现冲突）。
+ */
+@Component
+@Slf4j
+public class StockOperationRetrier {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${inventory.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${inventory.retry.base-backoff-ms:5}")
+    private long baseBackoffMs;
+
+    @Value("${inventory.retry.max-backoff-ms:100}")
+    private long maxBackoffMs;
+
+    @Value("${inventory.retry.conflict-tag-limit:100}")
+    private int conflictTagLimit;
+
+    @Value("${inventory.retry.conflict-tag-products:}")
+    private Set<Long> conflictTagProducts;
+
+    /** 已单独计数的商品（不含白名单） */
+    private final Set<Long> taggedProducts = ConcurrentHashMap.newKeySet();
+
+    public <T> T execute(String operation, Long productId, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = action.get();
+                recordAttempts(operation, attempt, true);
+                return result;
+            } catch (ConcurrencyFailureException e) {
+                conflictCounter(operation, productId).increment();
+                log.debug("[Inventory] {} hit a concurrency conflict on attempt {} → productId={}",
+                        operation, attempt, productId);
+                if (attempt >= maxAttempts) {
+                    recordAttempts(operation, attempt, false);
+                    log.warn("[Inventory] {} gave up after {} conflicting attempts → productId={}",
+                            operation, attempt, productId);
+                    throw new ApiException("Stock is under heavy contention, please retry", HttpStatus.CONFLICT);
+                }
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    /** full jitter：[0, min(max, base * 2^(n-1))] */
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrupted while retrying stock operation", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private Counter conflictCounter(String operation, Long productId) {
+        return Counter.builder("inventory.stock.conflicts")
+                .description("Concurrency conflicts hit by stock operations")
+                .tag("operation", operation)
+                .tag("productId", productTag(productId))
+                .register(meterRegistry);
+    }
+
+    // 名额用尽后不再新增标签，已单独计数的商品保持不变，时序数不超过 白名单 + limit + 2
+    private String productTag(Long productId) {
+        if (productId == null) {
+            return "none";
+        }
+        if (conflictTagProducts.contains(productId) || taggedProducts.contains(productId)) {
+            return productId.toString();
+        }
+        if (taggedProducts.size() < conflictTagLimit && taggedProducts.add(productId)) {
+            return productId.toString();
+        }
+        return "other";
+    }
+
+    private void recordAttempts(String operation, int attempts, boolean success) {
+        DistributionSummary.builder("inventory.stock.attempts")
+                .description("Attempts needed per stock operation")
+                .tag("operation", operation)
+                .tag("outcome", success ? "success" : "exhausted")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(attempts);
+    }
+}
@@ -0,0 +1,55 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.repository.StockEventDedupRepository;
+import com.commerce.inventory.repository.StockReservationJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 20:50
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 定时释放过期预占（每批一个短事务，直到取空），并清理已消费的历史记录和过期的去重登记
+ */
+@Component
+@Slf4j
+class StockReservationSweeper {
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private StockReservationJdbcRepository stockReservationJdbcRepository;
+    @Autowired
+    private StockEventDedupRepository stockEventDedupRepository;
+
+    @Value("${inventory.reservation.sweep-batch-size:200}")
+    private int sweepBatchSize;
+
+    @Value("${inventory.reservation.retention-days:7}")
+    private int retentionDays;
+
+    @Scheduled(fixedDelayString = "${inventory.reservation.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            while (inventoryService.releaseExpiredReservations(sweepBatchSize) >= sweepBatchSize) {
+                log.debug("[Inventory] More expired reservations pending, sweeping next batch");
+            }
+            LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+            while (stockReservationJdbcRepository.purgeConsumed(before, sweepBatchSize) >= sweepBatchSize) {
+                log.debug("[Inventory] Purging next batch of consumed reservations");
+            }
+            while (stockEventDedupRepository.purgeProcessed(before, sweepBatchSize) >= sweepBatchSize) {
+                log.debug("[Inventory] Purging next batch of processed stock operations");
+            }
+        } catch (Exception e) {
+            log.error("[Inventory] Reservation sweep failed → {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.allocation.WarehouseLockSession;
+import com.commerce.inventory.dto.*;
+import com.commerce.inventory.model.Inventory;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:12
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 分仓库存：锁定 / 确认 / 释放需在调用方事务内、持有 inventory 主行行锁后执行
+ */
+public interface WarehouseService {
+
+    WarehouseResponse createWarehouse(WarehouseRequest request);
+
+    List<WarehouseResponse> getWarehouses();
+
+    List<WarehouseStockResponse> getWarehouseStock(Long productId);
+
+    WarehouseStockResponse setWarehouseStock(Long productId, Long warehouseId, WarehouseStockRequest request);
+
+    /** 主行已加锁：为其中已分仓的商品准备分配上下文 */
+    WarehouseLockSession openLockSession(Collection<Inventory> inventories);
+
+    /** 写回本事务的分仓锁定并登记订单分仓记录 */
+    void completeLockSession(WarehouseLockSession session);
+
+    /** 主行已确认：按订单分仓记录确认到对应仓库 */
+    void confirm(Long productId, List<OrderStockMovement> movements);
+
+    /** 主行已释放：按订单分仓记录释放回对应仓库 */
+    void release(Long productId, List<OrderStockMovement> movements);
+
+    void deleteStock(Long productId);
+}
@@ -0,0 +1,283 @@
+package com.commerce.inventory.service;
+
+import com.commerce.inventory.allocation.WarehouseLockSession;
+import com.commerce.inventory.allocation.WarehousePick;
+import com.commerce.inventory.allocation.WarehouseStockIndex;
+import com.commerce.inventory.dto.*;
+import com.commerce.inventory.exceptions.ApiException;
+import com.commerce.inventory.exceptions.ResourceNotFoundException;
+import com.commerce.inventory.kafka.producer.InventoryEventPublisher;
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.model.Warehouse;
+import com.commerce.inventory.model.WarehouseStock;
+import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.repository.WarehouseAllocationJdbcRepository;
+import com.commerce.inventory.repository.WarehouseRepository;
+import com.commerce.inventory.repository.WarehouseStockRepository;
+import com.commerce.inventory.reservation.StockReservationStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 01:15
+ * @package com.commerce.inventory.service
+ * <p>
+ * Description:
+ * 分仓库存读写：
+ * 1. 锁定：主行加锁后从 WarehouseStockIndex 取各仓库存（版本不一致的商品才回库加载），内存中分仓，
+ *    事务末尾每个 (商品, 仓库) 一条条件 UPDATE
+ * 2. 确认 / 释放：按 warehouse_allocation 回到锁定时的仓库；没有记录的（无 orderId）从锁定最多的仓库扣
+ * 3. 主行始终等于各仓之和，商品服务看到的总库存不受影响
+ */
+@Service
+@Slf4j
+public class WarehouseServiceImpl implements WarehouseService {
+
+    @Autowired
+    private WarehouseRepository warehouseRepository;
+    @Autowired
+    private WarehouseStockRepository warehouseStockRepository;
+    @Autowired
+    private WarehouseAllocationJdbcRepository warehouseAllocationJdbcRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private WarehouseStockIndex warehouseStockIndex;
+    @Autowired
+    private InventoryReadCache inventoryReadCache;
+    @Autowired
+    private InventoryEventPublisher inventoryEventPublisher;
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Autowired(required = false)
+    private StockReservationStrategy stockReservationStrategy;
+
+    @Override
+    @Transactional
+    public WarehouseResponse createWarehouse(WarehouseRequest request) {
+        if (request.getCode() == null || request.getCode().isBlank()) {
+            throw new ApiException("Warehouse code is required", HttpStatus.BAD_REQUEST);
+        }
+        if (warehouseRepository.existsByCode(request.getCode())) {
+            throw new ApiException("Warehouse already exists with code: " + request.getCode(), HttpStatus.BAD_REQUEST);
+        }
+        if (request.getLatitude() != null && Math.abs(request.getLatitude()) > 90
+                || request.getLongitude() != null && Math.abs(request.getLongitude()) > 180) {
+            throw new ApiException("Invalid warehouse coordinates", HttpStatus.BAD_REQUEST);
+        }
+        Warehouse warehouse = modelMapper.map(request, Warehouse.class);
+        warehouse.setActive(true);
+        Warehouse saved = warehouseRepository.save(warehouse);
+        afterCommit(warehouseStockIndex::refreshWarehouses);
+        return modelMapper.map(saved, WarehouseResponse.class);
+    }
+
+    @Override
+    public List<WarehouseResponse> getWarehouses() {
+        return warehouseRepository.findAll().stream()
+                .map(warehouse -> modelMapper.map(warehouse, WarehouseResponse.class))
+                .toList();
+    }
+
+    @Override
+    public List<WarehouseStockResponse> getWarehouseStock(Long productId) {
+        return warehouseStockRepository.findAllByProductIdOrderByWarehouseId(productId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+
+    /** 设置某仓可用库存，主行可用库存重算为各仓之和 */
+    @Override
+    @Transactional
+    public WarehouseStockResponse setWarehouseStock(Long productId, Long warehouseId, WarehouseStockRequest request) {
+        if (stockReservationStrategy != null) {
+            throw new ApiException("Warehouse stock is not available with inventory.reservation.mode enabled",
+                    HttpStatus.BAD_REQUEST);
+        }
+        if (request.getAvailableStock() == null || request.getAvailableStock() < 0) {
+            throw new ApiException("Available stock must not be negative", HttpStatus.BAD_REQUEST);
+        }
+        if (!warehouseRepository.existsById(warehouseId)) {
+            throw new ResourceNotFoundException("Warehouse", "WarehouseId", warehouseId);
+        }
+        Inventory inventory = inventoryRepository.findByProductIdForUpdate(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Inventory", "ProductId", productId));
+        if (inventory.getBucketCount() > 0) {
+            throw new ApiException("Merge buckets before assigning warehouse stock for productId: " + productId,
+                    HttpStatus.BAD_REQUEST);
+        }
+
+        List<WarehouseStock> rows = new ArrayList<>(
+                warehouseStockRepository.findAllByProductIdInForUpdate(List.of(productId)));
+        WarehouseStock row = rows.stream()
+                .filter(r -> r.getWarehouseId().equals(warehouseId))
+                .findFirst()
+                .orElse(null);
+        if (row == null) {
+            row = new WarehouseStock();
+            row.setProductId(productId);
+            row.setWarehouseId(warehouseId);
+            if (rows.isEmpty()) {
+                // 首个仓库接管主行已有的锁定 / 已售，保持主行 = 各仓之和
+                row.setLockedStock(inventory.getLockedStock());
+                row.setSoldStock(inventory.getSoldStock());
+            }
+            rows.add(row);
+        }
+        row.setAvailableStock(request.getAvailableStock());
+        WarehouseStock saved = warehouseStockRepository.save(row);
+
+        inventory.setAvailableStock(rows.stream().mapToInt(WarehouseStock::getAvailableStock).sum());
+        inventory.setWarehouseCount(rows.size());
+        inventory.setVersion(inventory.getVersion() + 1);
+
+        afterCommit(() -> {
+            warehouseStockIndex.evict(productId);
+            inventoryReadCache.invalidate(productId);
+            inventoryEventPublisher.publish(productId, "UPDATE");
+        });
+        log.info("[Inventory] Warehouse stock set → productId={}, warehouseId={}, available={}, total available={}",
+                productId, warehouseId, request.getAvailableStock(), inventory.getAvailableStock());
+        return toResponse(saved);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public WarehouseLockSession openLockSession(Collection<Inventory> inventories) {
+        Map<Long, Map<Long, Integer>> working = new HashMap<>();
+        Map<Long, Integer> versions = new HashMap<>();
+        List<Long> stale = new ArrayList<>();
+        for (Inventory inventory : inventories) {
+            if (inventory.getWarehouseCount() == 0) {
+                continue;
+            }
+            versions.put(inventory.getProductId(), inventory.getVersion());
+            WarehouseStockIndex.Entry entry = warehouseStockIndex.get(inventory.getProductId(), inventory.getVersion());
+            if (entry != null) {
+                working.put(inventory.getProductId(), new HashMap<>(entry.available()));
+            } else {
+                stale.add(inventory.getProductId());
+            }
+        }
+        if (!stale.isEmpty()) {
+            warehouseStockRepository.findAllByProductIdInForUpdate(stale).forEach(row ->
+                    working.computeIfAbsent(row.getProductId(), k -> new HashMap<>())
+                            .put(row.getWarehouseId(), row.getAvailableStock()));
+            log.debug("[Inventory] Warehouse index reloaded for {} products", stale.size());
+        }
+        return new WarehouseLockSession(warehouseStockIndex, working, versions);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void completeLockSession(WarehouseLockSession session) {
+        if (session.isEmpty()) {
+            return;
+        }
+        session.lockedDeltas().forEach((productId, byWarehouse) -> byWarehouse.forEach((warehouseId, quantity) -> {
+            if (warehouseStockRepository.lockInWarehouse(productId, warehouseId, quantity) != 1) {
+                // 主行行锁下索引与库不一致：丢弃索引并回滚，重试时从库里重新加载
+                warehouseStockIndex.evict(productId);
+                throw new OptimisticLockingFailureException("Warehouse stock changed outside the index → productId="
+                        + productId + ", warehouseId=" + warehouseId);
+            }
+        }));
+        session.picksByOrder().forEach(warehouseAllocationJdbcRepository::insert);
+        afterCommit(session::publishToIndex);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void confirm(Long productId, List<OrderStockMovement> movements) {
+        move(productId, movements, true);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long productId, List<OrderStockMovement> movements) {
+        move(productId, movements, false);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteStock(Long productId) {
+        warehouseStockRepository.deleteByProductId(productId);
+        afterCommit(() -> warehouseStockIndex.evict(productId));
+    }
+
+    private void move(Long productId, List<OrderStockMovement> movements, boolean confirm) {
+        if (inventoryRepository.findWarehouseCountByProductId(productId).orElse(0) == 0) {
+            return;
+        }
+
+        // 1️⃣ 有订单分仓记录的回到原仓库
+        int unassigned = 0;
+        for (OrderStockMovement movement : movements) {
+            int remaining = movement.getQuantity();
+            if (movement.getOrderId() != null) {
+                for (WarehousePick pick : warehouseAllocationJdbcRepository.take(movement.getOrderId(), productId)) {
+                    int quantity = Math.min(pick.quantity(), remaining);
+                    if (quantity > 0 && moveInWarehouse(productId, pick.warehouseId(), quantity, confirm)) {
+                        remaining -= quantity;
+                    }
+                }
+            }
+            unassigned += remaining;
+        }
+
+        // 2️⃣ 其余从锁定最多的仓库依次扣
+        if (unassigned > 0) {
+            List<WarehouseStock> rows = new ArrayList<>(
+                    warehouseStockRepository.findAllByProductIdInForUpdate(List.of(productId)));
+            rows.sort(Comparator.comparing(WarehouseStock::getLockedStock).reversed());
+            for (WarehouseStock row : rows) {
+                int quantity = Math.min(row.getLockedStock(), unassigned);
+                if (quantity > 0 && moveInWarehouse(productId, row.getWarehouseId(), quantity, confirm)) {
+                    unassigned -= quantity;
+                }
+                if (unassigned == 0) {
+                    break;
+                }
+            }
+        }
+        if (unassigned > 0) {
+            log.error("[Inventory] Warehouse locked stock short of inventory total, manual review needed → " +
+                    "productId={}, {}={}", productId, confirm ? "confirm" : "release", unassigned);
+        }
+    }
+
+    private boolean moveInWarehouse(Long productId, Long warehouseId, int quantity, boolean confirm) {
+        return (confirm
+                ? warehouseStockRepository.confirmInWarehouse(productId, warehouseId, quantity)
+                : warehouseStockRepository.releaseInWarehouse(productId, warehouseId, quantity)) == 1;
+    }
+
+    private WarehouseStockResponse toResponse(WarehouseStock stock) {
+        WarehouseStockResponse response = modelMapper.map(stock, WarehouseStockResponse.class);
+        if (stock.getUpdatedAt() != null) {
+            response.setLastUpdated(stock.getUpdatedAt().toString());
+        }
+        return response;
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
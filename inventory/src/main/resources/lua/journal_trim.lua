@@ -0,0 +1,2 @@
+-- 删除已落库的 journal 条目（保留 ARGV[1] 及之后）
+return redis.call('XTRIM', KEYS[1], 'MINID', ARGV[1])
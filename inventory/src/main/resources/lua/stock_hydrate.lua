@@ -0,0 +1,22 @@
+-- 由 MySQL 基线 + 未落库 journal 增量重建单个商品的库存 hash
+-- KEYS[1]: inventory:stock:{productId}，KEYS[2]: journal stream
+-- ARGV: productId, available, locked, sold, checkpoint, version, force(1 覆盖 / 0 仅在不存在时)
+-- 在脚本内读取 journal，期间不会有新的锁定/释放插入
+-- version = MySQL 版本 + 未落库的 journal 条数（每条对应一次 HINCRBY），落库后与 MySQL 版本一致
+if ARGV[7] == '0' and redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+local stock = { available = tonumber(ARGV[2]), locked = tonumber(ARGV[3]), sold = tonumber(ARGV[4]) }
+local version = tonumber(ARGV[6])
+for _, entry in ipairs(redis.call('XRANGE', KEYS[2], ARGV[5], '+')) do
+    local fields = entry[2]
+    if entry[1] ~= ARGV[5] and fields[2] == ARGV[1] then
+        for i = 3, #fields, 2 do
+            stock[fields[i]] = stock[fields[i]] + tonumber(fields[i + 1])
+        end
+        version = version + 1
+    end
+end
+redis.call('HSET', KEYS[1], 'available', stock.available, 'locked', stock.locked, 'sold', stock.sold,
+    'version', string.format('%.0f', version))
+return 1
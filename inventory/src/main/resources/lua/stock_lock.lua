@@ -0,0 +1,21 @@
+-- 批量锁库存（available -> locked），全部满足才扣减，并追加增量 journal
+-- KEYS[1..n]: inventory:stock:{productId}，KEYS[n+1]: journal stream
+-- ARGV: productId1, qty1, productId2, qty2 ...
+-- 返回：1 成功；0 库存不足；-i 第 i 个 key 尚未加载
+local n = #KEYS - 1
+for i = 1, n do
+    if redis.call('EXISTS', KEYS[i]) == 0 then
+        return -i
+    end
+    if tonumber(redis.call('HGET', KEYS[i], 'available')) < tonumber(ARGV[2 * i]) then
+        return 0
+    end
+end
+for i = 1, n do
+    local qty = tonumber(ARGV[2 * i])
+    redis.call('HINCRBY', KEYS[i], 'available', -qty)
+    redis.call('HINCRBY', KEYS[i], 'locked', qty)
+    redis.call('HINCRBY', KEYS[i], 'version', 1)
+    redis.call('XADD', KEYS[n + 1], '*', 'pid', ARGV[2 * i - 1], 'available', -qty, 'locked', qty)
+end
+return 1
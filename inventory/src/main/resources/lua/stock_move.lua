@@ -0,0 +1,16 @@
+-- 单商品库存转移（locked -> sold / locked -> available），并追加增量 journal
+-- KEYS[1]: inventory:stock:{productId}，KEYS[2]: journal stream
+-- ARGV: productId, qty, fromField, toField
+-- 返回：1 成功；0 来源字段不足；-1 尚未加载
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local qty = tonumber(ARGV[2])
+if tonumber(redis.call('HGET', KEYS[1], ARGV[3])) < qty then
+    return 0
+end
+redis.call('HINCRBY', KEYS[1], ARGV[3], -qty)
+redis.call('HINCRBY', KEYS[1], ARGV[4], qty)
+redis.call('HINCRBY', KEYS[1], 'version', 1)
+redis.call('XADD', KEYS[2], '*', 'pid', ARGV[1], ARGV[3], -qty, ARGV[4], qty)
+return 1
@@ -0,0 +1,49 @@
+package com.commerce.inventory.bench;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 23:30
+ * @package com.commerce.inventory.bench
+ * <p>
+ * Description:
+ * 单线程写入的延迟记录（纳秒），结束后合并排序计算分位数
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1 << 14];
+    private int size;
+
+    void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size << 1);
+        }
+        samples[size++] = nanos;
+    }
+
+    int count() {
+        return size;
+    }
+
+    static long[] merge(List<LatencyRecorder> recorders) {
+        long[] merged = new long[recorders.stream().mapToInt(LatencyRecorder::count).sum()];
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.samples, 0, merged, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /** sorted 需已排序，返回微秒 */
+    static double percentileMicros(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000.0;
+    }
+}
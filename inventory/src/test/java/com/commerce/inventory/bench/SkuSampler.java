@@ -0,0 +1,48 @@
+package com.commerce.inventory.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 23:30
+ * @package com.commerce.inventory.bench
+ * <p>
+ * Description:
+ * 按分布抽取商品下标：uniform 均匀；zipf 第 k 个商品的概率正比于 1 / k^exponent（少数热门商品承担大部分请求）
+ */
+final class SkuSampler {
+
+    private final double[] cumulative;
+
+    private SkuSampler(double[] cumulative) {
+        this.cumulative = cumulative;
+    }
+
+    static SkuSampler of(String skew, int skus, double exponent) {
+        double[] weights = new double[skus];
+        for (int k = 0; k < skus; k++) {
+            weights[k] = "zipf".equalsIgnoreCase(skew) ? 1.0 / Math.pow(k + 1, exponent) : 1.0;
+        }
+        double total = Arrays.stream(weights).sum();
+        double[] cumulative = new double[skus];
+        double running = 0;
+        for (int k = 0; k < skus; k++) {
+            running += weights[k] / total;
+            cumulative[k] = running;
+        }
+        cumulative[skus - 1] = 1.0;
+        return new SkuSampler(cumulative);
+    }
+
+    /** 返回 [0, skus) 的商品下标 */
+    int next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /** 最热门商品承担的请求占比 */
+    double hottestShare() {
+        return cumulative[0];
+    }
+}
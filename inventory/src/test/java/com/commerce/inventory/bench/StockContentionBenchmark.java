@@ -0,0 +1,242 @@
+package com.commerce.inventory.bench;
+
+import com.commerce.inventory.dto.InventoryRequest;
+import com.commerce.inventory.dto.InventoryResponse;
+import com.commerce.inventory.dto.StockOperationRequest;
+import com.commerce.inventory.exceptions.ApiException;
+import com.commerce.inventory.kafka.event.InventoryEvent;
+import com.commerce.inventory.reservation.StockReservationStrategy;
+import com.commerce.inventory.service.InventoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 23:40
+ * @package com.commerce.inventory.bench
+ * <p>
+ * Description:
+ * 库存预占争用基准：数百线程对少量商品反复执行 锁定 → 确认 / 释放，
+ * 输出各操作吞吐、冲突率与延迟分位数，并校验每个商品 available + locked + sold 守恒。
+ * 默认跳过，运行方式：
+ * mvn test -Dtest=StockContentionBenchmark -Dinventory.bench=true
+ *     [-Dbench.threads=200 -Dbench.skus=100 -Dbench.skew=zipf -Dbench.zipf-exponent=1.1
+ *      -Dbench.duration-seconds=15 -Dinventory.reservation.mode=ledger]
+ * inventory.reservation.mode 为空时测的是 MySQL 行上的条件更新路径，设置为 ledger / journal / redis 即对比替代实现。
+ */
+@SpringBootTest
+@ActiveProfiles("bench")
+@EnabledIfSystemProperty(named = "inventory.bench", matches = "true")
+@Slf4j
+class StockContentionBenchmark {
+
+    private static final long PRODUCT_ID_BASE = 1_000_000L;
+
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private Optional<StockReservationStrategy> stockReservationStrategy;
+    @MockitoBean
+    private KafkaTemplate<String, InventoryEvent> kafkaTemplate;
+
+    @Value("${bench.threads:200}")
+    private int threads;
+    @Value("${bench.skus:100}")
+    private int skus;
+    @Value("${bench.skew:uniform}")
+    private String skew;
+    @Value("${bench.zipf-exponent:1.1}")
+    private double zipfExponent;
+    @Value("${bench.warmup-seconds:3}")
+    private int warmupSeconds;
+    @Value("${bench.duration-seconds:15}")
+    private int durationSeconds;
+    @Value("${bench.initial-stock:10000000}")
+    private int initialStock;
+    @Value("${bench.confirm-ratio:0.5}")
+    private double confirmRatio;
+
+    private enum Op { LOCK, CONFIRM, RELEASE }
+
+    private enum Outcome { OK, INSUFFICIENT, CONFLICT, ERROR }
+
+    private volatile boolean measuring;
+    private volatile boolean running;
+
+    @Test
+    void reservationPathUnderContention() throws InterruptedException {
+        seedInventory();
+        SkuSampler sampler = SkuSampler.of(skew, skus, zipfExponent);
+
+        Map<Op, List<LatencyRecorder>> latencies = new EnumMap<>(Op.class);
+        Map<Op, Map<Outcome, LongAdder>> outcomes = new EnumMap<>(Op.class);
+        for (Op op : Op.values()) {
+            latencies.put(op, new ArrayList<>());
+            Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                counts.put(outcome, new LongAdder());
+            }
+            outcomes.put(op, counts);
+        }
+
+        running = true;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Map<Op, LatencyRecorder> local = new EnumMap<>(Op.class);
+            for (Op op : Op.values()) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                local.put(op, recorder);
+                synchronized (latencies) {
+                    latencies.get(op).add(recorder);
+                }
+            }
+            Thread worker = new Thread(() -> {
+                try {
+                    runWorker(sampler, local, outcomes);
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-worker-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        double conflictsBefore = retrierConflicts();
+        measuring = true;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        measuring = false;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        double retrierConflicts = retrierConflicts() - conflictsBefore;
+        running = false;
+        done.await();
+
+        report(latencies, outcomes, elapsedSeconds, retrierConflicts, sampler);
+        assertStockConserved();
+    }
+
+    private void runWorker(SkuSampler sampler, Map<Op, LatencyRecorder> latencies,
+                           Map<Op, Map<Outcome, LongAdder>> outcomes) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            Long productId = PRODUCT_ID_BASE + sampler.next();
+            // 不带 orderId：只测库存行本身的争用，不经过预占记录表
+            boolean locked = execute(Op.LOCK, latencies, outcomes,
+                    () -> inventoryService.lockStock(new StockOperationRequest(productId, 1, null)));
+            if (!locked) {
+                continue;
+            }
+            if (random.nextDouble() < confirmRatio) {
+                execute(Op.CONFIRM, latencies, outcomes, () -> inventoryService.confirmStock(productId, 1, null));
+            } else {
+                execute(Op.RELEASE, latencies, outcomes, () -> inventoryService.releaseStock(productId, 1, null));
+            }
+        }
+    }
+
+    private boolean execute(Op op, Map<Op, LatencyRecorder> latencies, Map<Op, Map<Outcome, LongAdder>> outcomes,
+                            Runnable action) {
+        long begin = System.nanoTime();
+        Outcome outcome;
+        try {
+            action.run();
+            outcome = Outcome.OK;
+        } catch (ApiException e) {
+            outcome = e.getStatus() == HttpStatus.CONFLICT ? Outcome.CONFLICT : Outcome.INSUFFICIENT;
+        } catch (ConcurrencyFailureException e) {
+            outcome = Outcome.CONFLICT;
+        } catch (RuntimeException e) {
+            outcome = Outcome.ERROR;
+        }
+        if (measuring) {
+            latencies.get(op).record(System.nanoTime() - begin);
+            outcomes.get(op).get(outcome).increment();
+        }
+        return outcome == Outcome.OK;
+    }
+
+    private void seedInventory() {
+        for (int k = 0; k < skus; k++) {
+            InventoryRequest request = new InventoryRequest();
+            request.setAvailableStock(initialStock);
+            request.setLockedStock(0);
+            request.setSoldStock(0);
+            inventoryService.createInventory(PRODUCT_ID_BASE + k, request);
+        }
+    }
+
+    private double retrierConflicts() {
+        return meterRegistry.find("inventory.stock.conflicts").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private void report(Map<Op, List<LatencyRecorder>> latencies, Map<Op, Map<Outcome, LongAdder>> outcomes,
+                        double elapsedSeconds, double retrierConflicts, SkuSampler sampler) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%n=== Inventory contention benchmark ===%n"));
+        out.append(String.format("strategy=%s threads=%d skus=%d skew=%s (hottest sku %.1f%% of traffic) duration=%.1fs%n",
+                stockReservationStrategy.map(s -> s.getClass().getSimpleName()).orElse("mysql-row"),
+                threads, skus, skew, sampler.hottestShare() * 100, elapsedSeconds));
+        out.append(String.format("%-8s %10s %10s %9s %9s %9s %9s %10s %10s %10s %10s%n",
+                "op", "ops/s", "ok", "insuff", "conflict", "error", "conflict%",
+                "p50(us)", "p95(us)", "p99(us)", "p99.9(us)"));
+
+        long totalOps = 0;
+        long totalConflicts = 0;
+        for (Op op : Op.values()) {
+            Map<Outcome, LongAdder> counts = outcomes.get(op);
+            long ops = counts.values().stream().mapToLong(LongAdder::sum).sum();
+            long conflicts = counts.get(Outcome.CONFLICT).sum();
+            totalOps += ops;
+            totalConflicts += conflicts;
+            long[] sorted = LatencyRecorder.merge(latencies.get(op));
+            out.append(String.format("%-8s %10.0f %10d %9d %9d %9d %8.2f%% %10.0f %10.0f %10.0f %10.0f%n",
+                    op, ops / elapsedSeconds, counts.get(Outcome.OK).sum(), counts.get(Outcome.INSUFFICIENT).sum(),
+                    conflicts, counts.get(Outcome.ERROR).sum(), ops == 0 ? 0 : conflicts * 100.0 / ops,
+                    LatencyRecorder.percentileMicros(sorted, 50), LatencyRecorder.percentileMicros(sorted, 95),
+                    LatencyRecorder.percentileMicros(sorted, 99), LatencyRecorder.percentileMicros(sorted, 99.9)));
+        }
+        long lockOps = outcomes.get(Op.LOCK).values().stream().mapToLong(LongAdder::sum).sum();
+        out.append(String.format("total %.0f ops/s, failed on conflict %.2f%%, conflicts absorbed by retrier %.0f (%.3f per lock)%n",
+                totalOps / elapsedSeconds, totalOps == 0 ? 0 : totalConflicts * 100.0 / totalOps, retrierConflicts,
+                lockOps == 0 ? 0 : retrierConflicts / lockOps));
+        log.info("{}", out);
+    }
+
+    /** 锁定 / 确认 / 释放只在三者之间转移，总量必须保持不变 */
+    private void assertStockConserved() {
+        for (int k = 0; k < skus; k++) {
+            InventoryResponse inventory = inventoryService.getInventoryByProductId(PRODUCT_ID_BASE + k);
+            assertEquals(initialStock,
+                    inventory.getAvailableStock() + inventory.getLockedStock() + inventory.getSoldStock(),
+                    "Stock not conserved for productId " + inventory.getProductId());
+        }
+    }
+}
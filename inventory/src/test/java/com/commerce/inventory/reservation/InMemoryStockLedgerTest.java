@@ -0,0 +1,169 @@
+package com.commerce.inventory.reservation;
+
+import com.commerce.inventory.exceptions.ApiException;
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 08:10
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * 台账的提交 / 回滚 / 抵消路径：MySQL 用 mock 代替，提交线程照常运行。
+ */
+class InMemoryStockLedgerTest {
+
+    private static final long PRODUCT_A = 1L;
+    private static final long PRODUCT_B = 2L;
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private InMemoryStockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        when(inventoryRepository.findByProductId(PRODUCT_A)).thenReturn(Optional.of(inventory(PRODUCT_A, 10, 0, 5)));
+        when(inventoryRepository.findByProductId(PRODUCT_B)).thenReturn(Optional.of(inventory(PRODUCT_B, 10, 0, 5)));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> allUpdated(invocation.getArgument(1)));
+
+        ledger = new InMemoryStockLedger();
+        ReflectionTestUtils.setField(ledger, "inventoryRepository", inventoryRepository);
+        ReflectionTestUtils.setField(ledger, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(ledger, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(ledger, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ledger, "stripeCount", 4);
+        ReflectionTestUtils.setField(ledger, "commitIntervalMs", 1L);
+        ReflectionTestUtils.setField(ledger, "commitTimeoutMs", 2000L);
+        ledger.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ledger.stop();
+    }
+
+    @Test
+    void lockWaitsForCommitAndAdvancesVersionByOperationCount() {
+        assertThat(ledger.lock(Map.of(PRODUCT_A, 3))).isTrue();
+
+        assertThat(ledger.current(PRODUCT_A)).contains(new StockLevels(7, 3, 0, 6));
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat(batch -> hasDelta(batch, PRODUCT_A, -3, 3, 0, 1)));
+    }
+
+    @Test
+    void failedBatchRevertsCountersToMySql() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"));
+
+        assertThatThrownBy(() -> ledger.lock(Map.of(PRODUCT_A, 3)))
+                .isInstanceOf(ApiException.class);
+        assertThat(ledger.current(PRODUCT_A)).contains(new StockLevels(10, 0, 0, 5));
+    }
+
+    @Test
+    void driftedProductIsReloadedAndCommittedPartnerIsCompensated() {
+        // 批次按 productId 升序：A 未命中（MySQL 已被外部修改），B 照常提交
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenReturn(new int[]{0, 1})
+                .thenAnswer(invocation -> allUpdated(invocation.getArgument(1)));
+
+        assertThatThrownBy(() -> ledger.lock(Map.of(PRODUCT_A, 3, PRODUCT_B, 4)))
+                .isInstanceOf(ApiException.class)
+                .hasMessageContaining("outside the ledger");
+
+        assertThat(ledger.current(PRODUCT_A)).contains(new StockLevels(10, 0, 0, 5));
+        // B 的锁定已写入 MySQL，抵消增量随下一批次写回
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(anyString(),
+                argThat(batch -> hasDelta(batch, PRODUCT_B, 4, -4, 0, 1)));
+        StockLevels levels = ledger.current(PRODUCT_B).orElseThrow();
+        assertThat(levels.getAvailableStock()).isEqualTo(10);
+        assertThat(levels.getLockedStock()).isZero();
+    }
+
+    @Test
+    void timedOutCallerIsCompensatedOnceTheBatchCommits() {
+        ReflectionTestUtils.setField(ledger, "commitTimeoutMs", 50L);
+        CountDownLatch slowCommit = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenAnswer(invocation -> {
+                    slowCommit.await(5, TimeUnit.SECONDS);
+                    return allUpdated(invocation.getArgument(1));
+                })
+                .thenAnswer(invocation -> allUpdated(invocation.getArgument(1)));
+
+        assertThatThrownBy(() -> ledger.lock(Map.of(PRODUCT_A, 3)))
+                .isInstanceOf(ApiException.class);
+        slowCommit.countDown();
+
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(anyString(),
+                argThat(batch -> hasDelta(batch, PRODUCT_A, 3, -3, 0, 1)));
+        StockLevels levels = ledger.current(PRODUCT_A).orElseThrow();
+        assertThat(levels.getAvailableStock()).isEqualTo(10);
+        assertThat(levels.getLockedStock()).isZero();
+    }
+
+    @Test
+    void confirmAndReleaseRequireLockedStock() {
+        assertThat(ledger.confirm(PRODUCT_A, 1)).isFalse();
+        assertThat(ledger.lock(Map.of(PRODUCT_A, 4))).isTrue();
+        assertThat(ledger.confirm(PRODUCT_A, 3)).isTrue();
+        assertThat(ledger.release(PRODUCT_A, 2)).isFalse();
+        assertThat(ledger.release(PRODUCT_A, 1)).isTrue();
+
+        assertThat(ledger.current(PRODUCT_A)).contains(new StockLevels(7, 0, 3, 8));
+    }
+
+    private static Inventory inventory(long productId, int available, int locked, int version) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(productId);
+        inventory.setAvailableStock(available);
+        inventory.setLockedStock(locked);
+        inventory.setSoldStock(0);
+        inventory.setVersion(version);
+        return inventory;
+    }
+
+    private static int[] allUpdated(List<Object[]> batch) {
+        int[] updated = new int[batch.size()];
+        Arrays.fill(updated, 1);
+        return updated;
+    }
+
+    /** 参数顺序：available, locked, sold, 操作数, productId, ... */
+    private static boolean hasDelta(List<Object[]> batch, long productId, int available, int locked, int sold, int ops) {
+        return batch != null && batch.stream().anyMatch(args -> args[4].equals(productId)
+                && args[0].equals(available) && args[1].equals(locked) && args[2].equals(sold) && args[3].equals(ops));
+    }
+}
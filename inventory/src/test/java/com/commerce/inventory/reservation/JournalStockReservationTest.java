@@ -0,0 +1,171 @@
+package com.commerce.inventory.reservation;
+
+import com.commerce.inventory.model.Inventory;
+import com.commerce.inventory.repository.InventoryRepository;
+import com.commerce.inventory.repository.StockMovementJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 08:30
+ * @package com.commerce.inventory.reservation
+ * <p>
+ * Description:
+ * 流水记账的提交 / 回滚 / 重新加载路径：调用方事务用 TransactionSynchronizationManager 模拟，
+ * 其他线程上的调用没有事务同步，按自动提交处理。
+ */
+class JournalStockReservationTest {
+
+    private static final long PRODUCT_ID = 1L;
+
+    private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    private final StockMovementJdbcRepository stockMovementJdbcRepository = mock(StockMovementJdbcRepository.class);
+    private JournalStockReservation journal;
+
+    @BeforeEach
+    void setUp() {
+        when(inventoryRepository.findByProductId(PRODUCT_ID)).thenReturn(Optional.of(inventory(10, 5, 5)));
+        when(stockMovementJdbcRepository.sumUncompacted(PRODUCT_ID)).thenReturn(new int[]{0, 0, 0, 0});
+
+        journal = new JournalStockReservation();
+        ReflectionTestUtils.setField(journal, "inventoryRepository", inventoryRepository);
+        ReflectionTestUtils.setField(journal, "stockMovementJdbcRepository", stockMovementJdbcRepository);
+        ReflectionTestUtils.setField(journal, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(journal, "stripeCount", 4);
+        journal.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(journal);
+    }
+
+    @Test
+    void uncommittedReleaseIsNotAvailableToOtherLockers() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(journal.release(PRODUCT_ID, 2)).isTrue();
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(10, 3, 0, 5));
+
+        assertThat(lockOnOtherThread(11)).isFalse();
+        assertThat(lockOnOtherThread(10)).isTrue();
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        // 回滚只加回释放时扣掉的 locked，available 不会被扣成负数
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(0, 15, 0, 6));
+    }
+
+    @Test
+    void committedReleaseCreditsAvailableAndVersion() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(journal.release(PRODUCT_ID, 2)).isTrue();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(12, 3, 0, 6));
+    }
+
+    @Test
+    void rolledBackLockRestoresAvailable() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(journal.lock(Map.of(PRODUCT_ID, 3))).isTrue();
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(7, 5, 0, 5));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(10, 5, 0, 5));
+    }
+
+    @Test
+    void failedAppendRestoresAvailable() {
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(stockMovementJdbcRepository).append(anyList());
+
+        assertThatThrownBy(() -> journal.lock(Map.of(PRODUCT_ID, 3)))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(10, 5, 0, 5));
+    }
+
+    @Test
+    void confirmCanUseLockFromTheSameTransaction() {
+        when(inventoryRepository.findByProductId(PRODUCT_ID)).thenReturn(Optional.of(inventory(10, 0, 5)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(journal.lock(Map.of(PRODUCT_ID, 3))).isTrue();
+        assertThat(journal.confirm(PRODUCT_ID, 3)).isTrue();
+        assertThat(journal.confirm(PRODUCT_ID, 1)).isFalse();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(7, 0, 3, 7));
+    }
+
+    @Test
+    void reloadWaitsForInFlightMovements() {
+        when(inventoryRepository.findByProductId(PRODUCT_ID)).thenReturn(Optional.of(inventory(10, 0, 5)));
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(journal.lock(Map.of(PRODUCT_ID, 3))).isTrue();
+
+        // 管理端把快照改为 20；本事务的流水提交后才在 MySQL 中可见
+        when(inventoryRepository.findByProductId(PRODUCT_ID)).thenReturn(Optional.of(inventory(20, 0, 6)));
+        journal.reload(PRODUCT_ID);
+        verify(inventoryRepository, times(1)).findByProductId(PRODUCT_ID);
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(7, 0, 0, 5));
+
+        when(stockMovementJdbcRepository.sumUncompacted(PRODUCT_ID)).thenReturn(new int[]{-3, 3, 0, 1});
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(17, 3, 0, 7));
+    }
+
+    @Test
+    void reloadWithoutInFlightMovementsIsImmediate() {
+        journal.current(PRODUCT_ID);
+        when(inventoryRepository.findByProductId(PRODUCT_ID)).thenReturn(Optional.of(inventory(20, 5, 6)));
+
+        journal.reload(PRODUCT_ID);
+        assertThat(journal.current(PRODUCT_ID)).contains(new StockLevels(20, 5, 0, 6));
+    }
+
+    private boolean lockOnOtherThread(int quantity) {
+        return CompletableFuture.supplyAsync(() -> journal.lock(Map.of(PRODUCT_ID, quantity))).join();
+    }
+
+    /** 模拟事务结束：依次触发登记的 afterCompletion */
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static Inventory inventory(int available, int locked, int version) {
+        Inventory inventory = new Inventory();
+        inventory.setProductId(PRODUCT_ID);
+        inventory.setAvailableStock(available);
+        inventory.setLockedStock(locked);
+        inventory.setSoldStock(0);
+        inventory.setVersion(version);
+        return inventory;
+    }
+}
@@ -1,9 +1,26 @@
 package com.commerce.order.clients;
 
+import com.commerce.order.dto.BatchStockLockRequest;
+import com.commerce.order.dto.BatchStockLockResponse;
+import com.commerce.order.dto.InventoryQueryRequest;
+import com.commerce.order.dto.InventoryStock;
+import com.commerce.order.dto.LockedStockCorrection;
+import com.commerce.order.dto.LockedStockCorrectionResult;
 import com.commerce.order.dto.StockOperationRequest;
+import com.commerce.order.exceptions.ApiException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 /**
  * @author Yixi Wan
  * @date 2025/11/3 17:57
@@ -15,8 +32,59 @@ import org.springframework.stereotype.Service;
 public class InventoryClientService {
     @Autowired
     private InventoryFeignClient inventoryFeignClient;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${order.bulk.stock-query-batch-size:1000}")
+    private int stockQueryBatchSize;
+
+    /** 批量查询库存，按库存侧单次上限分块请求；不存在库存记录的商品不在结果中 */
+    public Map<Long, InventoryStock> getStockByProductIds(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        if (productIds.size() <= stockQueryBatchSize) {
+            return inventoryFeignClient.queryInventories(new InventoryQueryRequest(productIds));
+        }
+        Map<Long, InventoryStock> stock = new HashMap<>(productIds.size());
+        for (int from = 0; from < productIds.size(); from += stockQueryBatchSize) {
+            stock.putAll(inventoryFeignClient.queryInventories(new InventoryQueryRequest(
+                    productIds.subList(from, Math.min(from + stockQueryBatchSize, productIds.size())))));
+        }
+        return stock;
+    }
+
+    public void lockStock(Long orderId, Long productId, Integer quantity) {
+        inventoryFeignClient.lockStock(productId, new StockOperationRequest(productId, quantity, orderId));
+    }
+
+    /** 以首个商品作为路由键：同一商品的批量订单落在其持有实例上，其余商品由库存侧走 MySQL */
+    public BatchStockLockResponse lockStockBatch(BatchStockLockRequest request) {
+        Long ownerKey = request.getGroups().stream()
+                .flatMap(group -> group.getItems().stream())
+                .map(StockOperationRequest::getProductId)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        return inventoryFeignClient.lockStockBatch(ownerKey, request);
+    }
+
+    /** 按 productId 升序流式读取全部库存，调用方负责关闭 */
+    public InventoryStockStream openStockStreamByProduct() {
+        Response response = inventoryFeignClient.streamInventories("product");
+        if (response.status() != HttpStatus.OK.value() || response.body() == null) {
+            response.close();
+            throw new ApiException("Inventory stream failed with status " + response.status(), HttpStatus.BAD_GATEWAY);
+        }
+        try {
+            return new InventoryStockStream(response, objectMapper);
+        } catch (IOException e) {
+            response.close();
+            throw new ApiException("Failed to open inventory stream: " + e.getMessage(), HttpStatus.BAD_GATEWAY);
+        }
+    }
 
-    public void lockStock(Long productId, Integer quantity) {
-        inventoryFeignClient.lockStock(new StockOperationRequest(productId, quantity));
+    public List<LockedStockCorrectionResult> correctLockedStock(List<LockedStockCorrection> corrections) {
+        return inventoryFeignClient.correctLockedStock(corrections);
     }
 }
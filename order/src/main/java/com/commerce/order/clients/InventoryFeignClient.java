@@ -1,10 +1,24 @@
 package com.commerce.order.clients;
 
+import com.commerce.order.clients.routing.InventoryOwnerLoadBalancer;
+import com.commerce.order.dto.BatchStockLockRequest;
+import com.commerce.order.dto.BatchStockLockResponse;
+import com.commerce.order.dto.InventoryQueryRequest;
+import com.commerce.order.dto.InventoryStock;
+import com.commerce.order.dto.LockedStockCorrection;
+import com.commerce.order.dto.LockedStockCorrectionResult;
 import com.commerce.order.dto.StockOperationRequest;
+import feign.Response;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Yixi Wan
@@ -15,6 +29,22 @@ import org.springframework.web.bind.annotation.RequestBody;
  */
 @FeignClient(name = "inventory-service", path = "/api/v1/inventories")
 public interface InventoryFeignClient {
+    @PostMapping("/query")
+    Map<Long, InventoryStock> queryInventories(@RequestBody InventoryQueryRequest request);
+
+    // ownerKey 为路由用的 productId，开启归属路由时发往持有该商品的库存实例
     @PostMapping("/lock")
-    ResponseEntity<String> lockStock(@RequestBody StockOperationRequest request);
-}
\ No newline at end of file
+    ResponseEntity<String> lockStock(@RequestHeader(InventoryOwnerLoadBalancer.OWNER_KEY_HEADER) Long ownerKey,
+                                     @RequestBody StockOperationRequest request);
+
+    @PostMapping("/lock/batch")
+    BatchStockLockResponse lockStockBatch(@RequestHeader(InventoryOwnerLoadBalancer.OWNER_KEY_HEADER) Long ownerKey,
+                                          @RequestBody BatchStockLockRequest request);
+
+    // NDJSON 流式导出，返回原始响应由调用方逐行读取
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    Response streamInventories(@RequestParam("sort") String sort);
+
+    @PostMapping("/reconcile/locked")
+    List<LockedStockCorrectionResult> correctLockedStock(@RequestBody List<LockedStockCorrection> corrections);
+}
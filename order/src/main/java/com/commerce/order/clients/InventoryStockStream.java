@@ -0,0 +1,47 @@
+package com.commerce.order.clients;
+
+import com.commerce.order.dto.InventoryStockRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:30
+ * @package com.commerce.order.clients
+ * <p>
+ * Description:
+ * 库存 NDJSON 导出的逐行读取器：每次 next() 只解析一行，读完返回 null
+ */
+public class InventoryStockStream implements Closeable {
+
+    private final Response response;
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+
+    InventoryStockStream(Response response, ObjectMapper objectMapper) throws IOException {
+        this.response = response;
+        this.objectMapper = objectMapper;
+        this.reader = new BufferedReader(new InputStreamReader(response.body().asInputStream(), StandardCharsets.UTF_8));
+    }
+
+    public InventoryStockRow next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                return objectMapper.readValue(line, InventoryStockRow.class);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        response.close();
+    }
+}
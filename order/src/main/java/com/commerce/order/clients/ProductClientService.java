@@ -2,8 +2,12 @@ package com.commerce.order.clients;
 
 import com.commerce.order.dto.ProductDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Yixi Wan
  * @date 2025/11/2 23:38
@@ -16,7 +20,23 @@ public class ProductClientService {
     @Autowired
     private ProductFeignClient productFeignClient;
 
+    @Value("${order.bulk.product-batch-size:1000}")
+    private int productBatchSize;
+
     public ProductDTO getProductById(Long productId) {
         return productFeignClient.getProductById(productId);
     }
+
+    /** 按商品侧单次上限分块请求 */
+    public List<ProductDTO> getProductsByIds(List<Long> productIds) {
+        if (productIds.size() <= productBatchSize) {
+            return productFeignClient.getProductsByIds(productIds);
+        }
+        List<ProductDTO> products = new ArrayList<>(productIds.size());
+        for (int from = 0; from < productIds.size(); from += productBatchSize) {
+            products.addAll(productFeignClient.getProductsByIds(
+                    productIds.subList(from, Math.min(from + productBatchSize, productIds.size()))));
+        }
+        return products;
+    }
 }
@@ -4,6 +4,10 @@ import com.commerce.order.dto.ProductDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 /**
  * @author Yixi Wan
@@ -17,4 +21,7 @@ public interface ProductFeignClient {
 
     @GetMapping("/products/{productId}")
     ProductDTO getProductById(@PathVariable Long productId);
+
+    @PostMapping("/products/batch")
+    List<ProductDTO> getProductsByIds(@RequestBody List<Long> productIds);
 }
\ No newline at end of file
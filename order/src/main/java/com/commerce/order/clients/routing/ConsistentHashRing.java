@@ -0,0 +1,73 @@
+package com.commerce.order.clients.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:15
+ * @package com.commerce.order.clients.routing
+ * <p>
+ * Description:
+ * productId → 库存实例的一致性哈希环（不可变），与 inventory 服务判定归属使用的环一致。
+ * 每个实例按 instanceId 放置固定数量的虚拟节点，增删一个实例只迁移约 1/N 的商品。
+ * ⚠️ inventory / product 使用同一份算法（FNV-1a 64 + fmix64，虚拟节点数一致），由各模块相同的 ConsistentHashRingGoldenTest 固定。
+ */
+final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 160;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final List<String> members;
+
+    ConsistentHashRing(Collection<String> instanceIds) {
+        this.members = List.copyOf(new TreeSet<>(instanceIds));
+        for (String instanceId : members) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hashNode(instanceId + "#" + i), instanceId);
+            }
+        }
+    }
+
+    /** 没有实例时返回 null */
+    String ownerOf(long productId) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(mix(productId));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    List<String> members() {
+        return members;
+    }
+
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    private static long hashNode(String key) {
+        long hash = FNV_OFFSET;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,26 @@
+package com.commerce.order.clients.routing;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:25
+ * @package com.commerce.order.clients.routing
+ * <p>
+ * Description:
+ * inventory-service 子上下文中的负载均衡器配置（不加 @Configuration，避免被主上下文扫描后作用于所有服务）
+ */
+class InventoryOwnerLoadBalancerConfig {
+
+    @Bean
+    ReactorLoadBalancer<ServiceInstance> inventoryOwnerLoadBalancer(Environment environment,
+                                                                   LoadBalancerClientFactory clientFactory) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new InventoryOwnerLoadBalancer(clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class));
+    }
+}
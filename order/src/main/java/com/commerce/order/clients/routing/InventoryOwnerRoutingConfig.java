@@ -0,0 +1,20 @@
+package com.commerce.order.clients.routing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:25
+ * @package com.commerce.order.clients.routing
+ * <p>
+ * Description:
+ * order.inventory-routing.owner-hash=true 时，inventory-service 的 Feign 调用按商品路由到持有实例
+ * （库存侧需开启 inventory.ownership.enabled）
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.inventory-routing.owner-hash", havingValue = "true")
+@LoadBalancerClient(name = "inventory-service", configuration = InventoryOwnerLoadBalancerConfig.class)
+public class InventoryOwnerRoutingConfig {
+}
@@ -1,5 +1,7 @@
 package com.commerce.order.config;
 
+import com.commerce.order.dto.OrderResponse;
+import com.commerce.order.model.Order;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -16,6 +18,10 @@ class MapperConfig {
 
     @Bean
     public ModelMapper modelMapper() {
-        return new ModelMapper();
+        ModelMapper modelMapper = new ModelMapper();
+        // 订单明细由 lineSnapshot 组装，避免触发 orderItems 懒加载
+        modelMapper.typeMap(Order.class, OrderResponse.class)
+                .addMappings(mapper -> mapper.skip(OrderResponse::setOrderItems));
+        return modelMapper;
     }
 }
@@ -8,5 +8,5 @@ package com.commerce.order.config;
  * Description:
  */
 public enum OrderEvent {
-    PAYMENT_SUCCEEDED, PAYMENT_FAILED, PAYMENT_EXPIRED, ORDER_SHIPPED, ORDER_COMPLETED
+    PAYMENT_SUCCEEDED, PAYMENT_FAILED, PAYMENT_EXPIRED, STOCK_LOCK_FAILED, ORDER_SHIPPED, ORDER_COMPLETED
 }
@@ -40,6 +40,9 @@ public class OrderStateMachineConfig extends StateMachineConfigurerAdapter<Order
                 .withExternal().source(OrderState.CREATED).target(OrderState.CANCELLED)
                 .event(OrderEvent.PAYMENT_EXPIRED)
                 .and()
+                .withExternal().source(OrderState.CREATED).target(OrderState.CANCELLED)
+                .event(OrderEvent.STOCK_LOCK_FAILED)
+                .and()
                 .withExternal().source(OrderState.PAID).target(OrderState.SHIPPED)
                 .event(OrderEvent.ORDER_SHIPPED)
                 .and()
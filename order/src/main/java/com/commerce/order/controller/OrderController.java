@@ -1,14 +1,20 @@
 package com.commerce.order.controller;
 
+import com.commerce.order.dto.BulkOrderRequest;
+import com.commerce.order.dto.BulkOrderResponse;
 import com.commerce.order.dto.OrderResponse;
+import com.commerce.order.service.BulkOrderService;
 import com.commerce.order.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
-import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 
 /**
@@ -22,8 +28,14 @@ import java.net.URI;
 @RequestMapping("/api/v1/orders")
 class OrderController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private OrderService orderService;
+    @Autowired
+    private BulkOrderService bulkOrderService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<OrderResponse> createOrder(@RequestHeader("X-User-Id") String keycloakId,
@@ -31,4 +43,42 @@ class OrderController {
         OrderResponse orderResponse = orderService.createOrder(keycloakId, userEmail);
         return ResponseEntity.created(URI.create("/api/v1/orders/" + orderResponse.getKeycloakId())).body(orderResponse);
     }
+
+    @GetMapping("/{orderId}")
+    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long orderId,
+                                                      @RequestHeader("X-User-Id") String keycloakId) {
+        return ResponseEntity.ok(orderService.getOrderById(orderId, keycloakId));
+    }
+
+    // B2B 批量下单
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkOrderResponse> submitBulkOrders(@RequestHeader("X-User-Id") String keycloakId,
+                                                              @RequestHeader("X-User-Email") String userEmail,
+                                                              @RequestBody BulkOrderRequest request) {
+        return ResponseEntity.ok(bulkOrderService.submitBulkOrders(keycloakId, userEmail, request, progress -> {
+        }));
+    }
+
+    // B2B 批量下单（NDJSON 流式返回：先逐行输出进度，最后逐行输出每笔订单结果）
+    @PostMapping(value = "/bulk/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> submitBulkOrdersStream(@RequestHeader("X-User-Id") String keycloakId,
+                                                                        @RequestHeader("X-User-Email") String userEmail,
+                                                                        @RequestBody BulkOrderRequest request) {
+        StreamingResponseBody body = out -> {
+            BulkOrderResponse response = bulkOrderService.submitBulkOrders(keycloakId, userEmail, request,
+                    progress -> writeLine(out, progress));
+            response.getResults().forEach(result -> writeLine(out, result));
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
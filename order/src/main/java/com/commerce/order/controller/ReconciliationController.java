@@ -0,0 +1,51 @@
+package com.commerce.order.controller;
+
+import com.commerce.order.service.ReconciliationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:40
+ * @package com.commerce.order.controller
+ * <p>
+ * Description:
+ */
+@RestController
+@RequestMapping("/api/v1/orders/reconcile")
+class ReconciliationController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 锁定库存对账：逐行输出差异，最后一行为汇总
+    @PostMapping(value = "/locked-stock", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> reconcileLockedStock(@RequestParam(defaultValue = "false") boolean autoFix) {
+        StreamingResponseBody body = out -> writeLine(out,
+                reconciliationService.reconcileLockedStock(autoFix, discrepancy -> writeLine(out, discrepancy)));
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
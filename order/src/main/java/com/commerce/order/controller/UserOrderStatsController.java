@@ -0,0 +1,44 @@
+package com.commerce.order.controller;
+
+import com.commerce.order.dto.UserOrderStatsResponse;
+import com.commerce.order.service.UserOrderStatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:25
+ * @package com.commerce.order.controller
+ * <p>
+ * Description:
+ */
+@RestController
+@RequestMapping("/api/v1/orders/stats")
+class UserOrderStatsController {
+
+    @Autowired
+    private UserOrderStatsService userOrderStatsService;
+
+    // 当前用户的订单统计（账户页）
+    @GetMapping("/me")
+    public ResponseEntity<UserOrderStatsResponse> getMyStats(@RequestHeader("X-User-Id") String keycloakId) {
+        return ResponseEntity.ok(userOrderStatsService.getStats(keycloakId));
+    }
+
+    // 指定用户的订单统计（风控等内部调用）
+    @GetMapping("/users/{keycloakId}")
+    @PreAuthorize("hasRole('INTERNAL')")
+    public ResponseEntity<UserOrderStatsResponse> getUserStats(@PathVariable String keycloakId) {
+        return ResponseEntity.ok(userOrderStatsService.getStats(keycloakId));
+    }
+
+    // 从 orders 全量重建统计
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> rebuild() {
+        int rows = userOrderStatsService.rebuildAll();
+        return ResponseEntity.ok("User order stats rebuilt, affected rows: " + rows);
+    }
+}
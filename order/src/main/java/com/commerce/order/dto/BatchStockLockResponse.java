@@ -0,0 +1,22 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:46
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStockLockResponse {
+    private List<StockLockGroupResult> results = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:40
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 批量下单中的一笔订单，clientReference 由调用方提供，用于对应结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderEntry {
+    private String clientReference;
+    private List<BulkOrderLine> lines = new ArrayList<>();
+}
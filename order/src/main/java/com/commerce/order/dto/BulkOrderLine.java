@@ -0,0 +1,20 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:40
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderLine {
+    private Long productId;
+    private Integer quantity;
+}
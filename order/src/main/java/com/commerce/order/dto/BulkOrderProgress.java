@@ -0,0 +1,22 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:43
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 批量下单进度（流式接口逐行输出）：VALIDATED / INSERTED / RESERVED / COMMITTED
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderProgress {
+    private String phase;
+    private int completed;
+    private int total;
+}
@@ -0,0 +1,25 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:42
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResponse {
+    private int submitted;
+    private int created;
+    private int rejected;
+    private List<BulkOrderResult> results = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 15:42
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 单笔订单的处理结果：CREATED / REJECTED
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResult {
+    private String clientReference;
+    private Long orderId;
+    private String status;
+    private Double totalAmount;
+    private String message;
+}
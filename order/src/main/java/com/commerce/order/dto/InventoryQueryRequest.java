@@ -0,0 +1,23 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 22:20
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 按商品 ID 批量查询库存
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryQueryRequest {
+    private List<Long> productIds = new ArrayList<>();
+}
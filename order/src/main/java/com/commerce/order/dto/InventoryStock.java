@@ -0,0 +1,22 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 22:20
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 库存服务批量查询返回的精简库存
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryStock {
+    private Integer availableStock;
+    private Integer lockedStock;
+    private Integer soldStock;
+}
@@ -0,0 +1,24 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:20
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 库存服务 NDJSON 导出中的一行（对账只用到这些字段）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryStockRow {
+    private Long productId;
+    private Integer availableStock;
+    private Integer lockedStock;
+    private Integer soldStock;
+    private Long version;
+}
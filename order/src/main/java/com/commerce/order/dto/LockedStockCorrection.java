@@ -0,0 +1,22 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:10
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 对账修正：释放多锁的库存；version 为对账扫描时读到的库存版本，之后有变更则跳过
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LockedStockCorrection {
+    private Long productId;
+    private Integer excessLocked;
+    private Long version;
+}
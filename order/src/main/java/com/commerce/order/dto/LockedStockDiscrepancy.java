@@ -0,0 +1,31 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:22
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 对账报告中的一行：
+ * EXCESS_LOCKED = 锁定库存多于未支付订单所需；MISSING_LOCK = 少于所需；NO_INVENTORY = 有未支付订单但无库存记录
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LockedStockDiscrepancy {
+    public static final String EXCESS_LOCKED = "EXCESS_LOCKED";
+    public static final String MISSING_LOCK = "MISSING_LOCK";
+    public static final String NO_INVENTORY = "NO_INVENTORY";
+
+    private Long productId;
+    private String type;
+    private Integer lockedStock;
+    private Long expectedLocked;
+    private Integer openOrders;
+    /** lockedStock - expectedLocked */
+    private Long drift;
+}
@@ -0,0 +1,23 @@
+package com.commerce.order.dto;
+
+import lombok.Data;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:24
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ * 锁定库存对账汇总
+ */
+@Data
+public class ReconciliationSummary {
+    private long inventoryRows;
+    private long openOrderProducts;
+    private long discrepancies;
+    private long excessLocked;
+    private long missingLocked;
+    private long released;
+    private long correctionBatches;
+    private long durationMs;
+}
@@ -0,0 +1,26 @@
+package com.commerce.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:15
+ * @package com.commerce.order.dto
+ * <p>
+ * Description:
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderStatsResponse {
+    private String keycloakId;
+    private long orderCount;
+    private long paidOrderCount;
+    private long cancelledOrderCount;
+    private double lifetimeSpend;
+    private LocalDateTime lastOrderAt;
+}
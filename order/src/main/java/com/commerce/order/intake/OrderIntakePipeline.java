@@ -0,0 +1,255 @@
+package com.commerce.order.intake;
+
+import com.commerce.order.exceptions.ApiException;
+import com.commerce.order.model.Order;
+import com.commerce.order.repository.OrderRepository;
+import com.commerce.order.service.UserOrderStatsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 11:20
+ * @package com.commerce.order.intake
+ * <p>
+ * Description:
+ * 订单写入合并提交（group commit）：
+ * 请求线程把校验好的订单放入环形缓冲区，单个写线程按微批取出，
+ * 一个事务内写入多笔 Order / OrderItem，commit 之后再唤醒各自的调用方。
+ * 高峰期 commit（fsync）次数随批量大小成倍下降，单请求额外延迟不超过 max-batch-delay。
+ */
+@Component
+@ConditionalOnProperty(name = "order.intake.enabled", havingValue = "true")
+@Slf4j
+public class OrderIntakePipeline {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long LINGER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserOrderStatsService userOrderStatsService;
+
+    @Value("${order.intake.buffer-size:4096}")
+    private int bufferSize;
+
+    @Value("${order.intake.max-batch-size:128}")
+    private int maxBatchSize;
+
+    @Value("${order.intake.max-batch-delay-ms:5}")
+    private long maxBatchDelayMs;
+
+    @Value("${order.intake.submit-timeout-ms:3000}")
+    private long submitTimeoutMs;
+
+    private OrderIntakeRingBuffer<PendingOrder> ringBuffer;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter commitCounter;
+    private DistributionSummary batchSizeSummary;
+
+    @PostConstruct
+    void start() {
+        ringBuffer = new OrderIntakeRingBuffer<>(bufferSize);
+        commitCounter = Counter.builder("order.intake.commits")
+                .description("Transactions committed by the order intake writer")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("order.intake.batch.size")
+                .description("Orders written per intake transaction")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::runWriter, "order-intake-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("[Intake] Order intake pipeline started → capacity={}, maxBatchSize={}, maxBatchDelayMs={}",
+                ringBuffer.capacity(), maxBatchSize, maxBatchDelayMs);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * 提交订单并等待其所在批次 commit，返回已持久化（带 orderId）的订单。
+     */
+    public Order submit(Order order) {
+        PendingOrder pending = new PendingOrder(order);
+        if (!running || !ringBuffer.offer(pending)) {
+            throw new ApiException("Order intake is saturated, please retry", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        LockSupport.unpark(writer);
+
+        try {
+            return pending.future.get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 写线程尚未取走 → 放弃，保证不会出现“调用方已超时但订单仍被写入”的情况
+            if (pending.abandon()) {
+                throw new ApiException("Timed out waiting for order commit", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            // 已在写入中：commit 很快完成，直接等待结果
+            return await(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrupted while waiting for order commit", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private Order await(PendingOrder pending) {
+        try {
+            return pending.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Interrupted while waiting for order commit", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new ApiException("Failed to persist order", HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    // -----------------------------------------------------------------------
+    // 写线程
+    // -----------------------------------------------------------------------
+    private void runWriter() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        long maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+
+        while (running || !ringBuffer.isEmpty()) {
+            if (ringBuffer.drainTo(batch, maxBatchSize) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            // 攒批：直到批满或达到 max-batch-delay
+            long deadline = System.nanoTime() + maxBatchDelayNanos;
+            while (running && batch.size() < maxBatchSize && System.nanoTime() < deadline) {
+                if (ringBuffer.drainTo(batch, maxBatchSize - batch.size()) == 0) {
+                    LockSupport.parkNanos(LINGER_PARK_NANOS);
+                }
+            }
+
+            try {
+                flush(batch);
+            } catch (Throwable t) {
+                log.error("[Intake] Unexpected writer failure, failing {} pending orders", batch.size(), t);
+                batch.forEach(p -> p.future.completeExceptionally(t));
+            }
+            batch.clear();
+        }
+    }
+
+    private void flush(List<PendingOrder> batch) {
+        List<PendingOrder> claimed = batch.stream().filter(PendingOrder::claim).toList();
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Order> orders = claimed.stream().map(p -> p.order).toList();
+                orderRepository.saveAll(orders);
+                recordCreated(orders);
+            });
+            commitCounter.increment();
+            batchSizeSummary.record(claimed.size());
+            claimed.forEach(p -> p.future.complete(p.order));
+        } catch (Exception e) {
+            log.warn("[Intake] Batch of {} orders failed, retrying one by one → {}", claimed.size(), e.getMessage());
+            // 逐笔重试，避免一笔坏数据拖垮整个批次
+            for (PendingOrder pending : claimed) {
+                resetGeneratedIds(pending.order);
+                try {
+                    Order saved = transactionTemplate.execute(status -> {
+                        Order order = orderRepository.save(pending.order);
+                        recordCreated(List.of(order));
+                        return order;
+                    });
+                    commitCounter.increment();
+                    batchSizeSummary.record(1);
+                    pending.future.complete(saved);
+                } catch (Exception ex) {
+                    pending.future.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    /** 同一批次内按用户合并，每个用户一条统计 upsert */
+    private void recordCreated(List<Order> orders) {
+        orders.stream()
+                .collect(Collectors.groupingBy(Order::getKeycloakId))
+                .forEach((keycloakId, userOrders) -> userOrderStatsService.recordCreated(keycloakId,
+                        userOrders.size(),
+                        userOrders.stream().map(Order::getCreatedAt).max(Comparator.naturalOrder()).orElse(null)));
+    }
+
+    /** 回滚后 IDENTITY 主键已被回填，需要清空后才能重新 insert */
+    private void resetGeneratedIds(Order order) {
+        order.setOrderId(null);
+        order.getOrderItems().forEach(item -> item.setOrderItemId(null));
+    }
+
+    // -----------------------------------------------------------------------
+    // 缓冲区槽位内容
+    // -----------------------------------------------------------------------
+    private static final class PendingOrder {
+        private static final int NEW = 0;
+        private static final int CLAIMED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Order order;
+        private final CompletableFuture<Order> future = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(NEW);
+
+        private PendingOrder(Order order) {
+            this.order = order;
+        }
+
+        private boolean claim() {
+            return state.compareAndSet(NEW, CLAIMED);
+        }
+
+        private boolean abandon() {
+            return state.compareAndSet(NEW, ABANDONED);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.commerce.order.intake;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 11:05
+ * @package com.commerce.order.intake
+ * <p>
+ * Description:
+ * 预分配的有界环形缓冲区：多生产者（请求线程）/ 单消费者（写线程）。
+ * 每个槽位带一个序号，生产者 CAS 抢占写入位置，消费者按序号判断槽位是否就绪，
+ * 全程无锁、不扩容。
+ */
+final class OrderIntakeRingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** 仅写线程访问 */
+    private long head;
+
+    OrderIntakeRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /** 写入一个元素，缓冲区已满时返回 false */
+    boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+        }
+        slots[index] = element;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /** 批量取出至多 max 个已就绪元素，返回实际取出数量 */
+    @SuppressWarnings("unchecked")
+    int drainTo(List<E> sink, int max) {
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            sink.add((E) slots[index]);
+            slots[index] = null;
+            sequences.lazySet(index, head + slots.length);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,88 @@
+package com.commerce.order.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 10:12
+ * @package com.commerce.order.metrics
+ * <p>
+ * Description:
+ * 下单链路分步耗时统计（cart / product / inventory / cart clear / JPA save）
+ * 指标通过 actuator 暴露：/actuator/metrics/order.checkout.step
+ */
+@Component
+public class CheckoutMetrics {
+
+    public static final String STEP_CART_FETCH = "cart_fetch";
+    public static final String STEP_PRODUCT_FETCH = "product_fetch";
+    public static final String STEP_ORDER_SAVE = "order_save";
+    public static final String STEP_INVENTORY_LOCK = "inventory_lock";
+    public static final String STEP_CART_CLEAR = "cart_clear";
+    public static final String STEP_ORDER_COMMIT = "order_commit";
+    public static final String STEP_TOTAL = "total";
+
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_FAILURE = "failure";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary cartLines;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public CheckoutMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cartLines = DistributionSummary.builder("order.checkout.cart.lines")
+                .description("Number of cart lines per checkout")
+                .baseUnit("lines")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /** 记录一个有返回值的步骤 */
+    public <T> T record(String step, Supplier<T> action) {
+        long start = System.nanoTime();
+        String outcome = OUTCOME_FAILURE;
+        try {
+            T result = action.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } finally {
+            timer(step, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** 记录一个无返回值的步骤 */
+    public void record(String step, Runnable action) {
+        record(step, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /** 记录已测得的耗时（如事务提交，无法用 Supplier 包裹） */
+    public void recordDuration(String step, long nanos, boolean success) {
+        timer(step, success ? OUTCOME_SUCCESS : OUTCOME_FAILURE).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordCartLines(int lines) {
+        cartLines.record(lines);
+    }
+
+    private Timer timer(String step, String outcome) {
+        return timers.computeIfAbsent(step + ":" + outcome, key -> Timer.builder("order.checkout.step")
+                .description("Latency of each checkout step")
+                .tag("step", step)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -18,7 +18,7 @@ import java.util.List;
  * Description:
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status", columnList = "order_status"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -42,6 +42,7 @@ public class Order {
     private Double totalAmount;
 
     /** 订单状态：CREATED / PAID / SHIPPED / DELIVERED / CANCELLED */
+    @Column(name = "order_status")
     private String orderStatus;
 
     /** 收货地址信息（来自 Address Service 的快照） */
@@ -53,7 +54,12 @@ public class Order {
     private String shippingCountry;
     private String shippingZipCode;
 
-    /** 与订单项的内部关系（同服务内可保留） */
+    /** 订单行快照（下单时写入，读订单 / 发事件时直接使用，无需加载 order_items） */
+    @Convert(converter = OrderLineSnapshotConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private List<OrderLineSnapshot> lineSnapshot;
+
+    /** 与订单项的内部关系（同服务内可保留，供报表查询） */
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems = new ArrayList<>();
 
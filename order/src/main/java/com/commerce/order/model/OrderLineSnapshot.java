@@ -0,0 +1,56 @@
+package com.commerce.order.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 14:02
+ * @package com.commerce.order.model
+ * <p>
+ * Description:
+ * 订单行不可变快照，下单时写入 orders.line_snapshot。
+ * 使用短字段名序列化，读订单 / 构建事件时无需再关联 order_items。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLineSnapshot implements Serializable {
+
+    @JsonProperty("p")
+    private Long productId;
+
+    @JsonProperty("n")
+    private String productName;
+
+    @JsonProperty("i")
+    private String image;
+
+    @JsonProperty("u")
+    private double productPrice;
+
+    @JsonProperty("q")
+    private Integer quantity;
+
+    @JsonProperty("d")
+    private double discount;
+
+    @JsonProperty("t")
+    private double orderedProductPrice;
+
+    public static OrderLineSnapshot of(OrderItem item) {
+        return new OrderLineSnapshot(
+                item.getProductId(),
+                item.getProductName(),
+                item.getImage(),
+                item.getProductPrice(),
+                item.getQuantity(),
+                item.getDiscount(),
+                item.getOrderedProductPrice()
+        );
+    }
+}
@@ -0,0 +1,49 @@
+package com.commerce.order.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 14:05
+ * @package com.commerce.order.model
+ * <p>
+ * Description:
+ * List&lt;OrderLineSnapshot&gt; ⇄ 紧凑 JSON 文本
+ */
+@Converter
+public class OrderLineSnapshotConverter implements AttributeConverter<List<OrderLineSnapshot>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<OrderLineSnapshot>> TYPE = new TypeReference<>() {
+    };
+
+    @Override
+    public String convertToDatabaseColumn(List<OrderLineSnapshot> lines) {
+        if (lines == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(lines);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize order line snapshot", e);
+        }
+    }
+
+    @Override
+    public List<OrderLineSnapshot> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(column, TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to deserialize order line snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.commerce.order.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:10
+ * @package com.commerce.order.model
+ * <p>
+ * Description:
+ * 用户订单统计（增量维护），与订单状态变更在同一事务内更新，读取为主键查询
+ */
+@Entity
+@Table(name = "user_order_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserOrderStats {
+
+    @Id
+    @Column(length = 64)
+    private String keycloakId;
+
+    /** 下单总数 */
+    private long orderCount;
+
+    /** 已支付订单数 */
+    private long paidOrderCount;
+
+    /** 已取消订单数 */
+    private long cancelledOrderCount;
+
+    /** 累计消费金额（已支付订单） */
+    private double lifetimeSpend;
+
+    /** 最近一次下单时间 */
+    private LocalDateTime lastOrderAt;
+
+    private LocalDateTime updatedAt;
+}
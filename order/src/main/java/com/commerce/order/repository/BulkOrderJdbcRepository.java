@@ -0,0 +1,115 @@
+package com.commerce.order.repository;
+
+import com.commerce.order.model.Order;
+import com.commerce.order.model.OrderItem;
+import com.commerce.order.model.OrderLineSnapshotConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 16:20
+ * @package com.commerce.order.repository
+ * <p>
+ * Description:
+ * 批量下单的 JDBC 批量写入（orders 使用 IDENTITY 主键，Hibernate 无法批量 insert）。
+ * 需在 JDBC URL 中开启 rewriteBatchedStatements 才会合并为多值 INSERT。
+ */
+@Repository
+public class BulkOrderJdbcRepository {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (keycloak_id, email, total_amount, order_status, created_at, line_snapshot) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ORDER_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, product_name, image, product_price, quantity, " +
+                    "discount, ordered_product_price) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_ORDER_ITEMS_SQL = "DELETE FROM order_items WHERE order_id = ?";
+    private static final String DELETE_ORDER_SQL = "DELETE FROM orders WHERE order_id = ?";
+
+    private final OrderLineSnapshotConverter lineSnapshotConverter = new OrderLineSnapshotConverter();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** 批量插入订单及订单项，并回填 orderId */
+    public void insertOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_ORDER_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Order order = orders.get(i);
+                        ps.setString(1, order.getKeycloakId());
+                        ps.setString(2, order.getEmail());
+                        ps.setDouble(3, order.getTotalAmount());
+                        ps.setString(4, order.getOrderStatus());
+                        ps.setTimestamp(5, Timestamp.valueOf(order.getCreatedAt()));
+                        ps.setString(6, lineSnapshotConverter.convertToDatabaseColumn(order.getLineSnapshot()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < orders.size(); i++) {
+            Number orderId = (Number) keys.get(i).values().iterator().next();
+            orders.get(i).setOrderId(orderId.longValue());
+        }
+
+        List<OrderItem> items = new ArrayList<>();
+        orders.forEach(order -> items.addAll(order.getOrderItems()));
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderItem item = items.get(i);
+                ps.setLong(1, item.getOrder().getOrderId());
+                ps.setLong(2, item.getProductId());
+                ps.setString(3, item.getProductName());
+                ps.setString(4, item.getImage());
+                ps.setDouble(5, item.getProductPrice());
+                ps.setInt(6, item.getQuantity());
+                ps.setDouble(7, item.getDiscount());
+                ps.setDouble(8, item.getOrderedProductPrice());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+    }
+
+    /** 批量删除（同一事务内撤回未锁到库存的订单） */
+    public void deleteOrders(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = orderIds.stream().map(id -> new Object[]{id}).toList();
+        jdbcTemplate.batchUpdate(DELETE_ORDER_ITEMS_SQL, args);
+        jdbcTemplate.batchUpdate(DELETE_ORDER_SQL, args);
+    }
+}
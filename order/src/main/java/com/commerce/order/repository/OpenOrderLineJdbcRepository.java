@@ -0,0 +1,43 @@
+package com.commerce.order.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:26
+ * @package com.commerce.order.repository
+ * <p>
+ * Description:
+ * 未支付（CREATED）订单按商品汇总的数量，按 productId 升序流式读取（fetchSize = Integer.MIN_VALUE），
+ * 汇总在数据库内完成，调用方每次只持有一行
+ */
+@Repository
+public class OpenOrderLineJdbcRepository {
+
+    private static final String OPEN_QUANTITIES_SQL =
+            "SELECT oi.product_id, SUM(oi.quantity) AS quantity, COUNT(DISTINCT o.order_id) AS orders " +
+                    "FROM orders o JOIN order_items oi ON oi.order_id = o.order_id " +
+                    "WHERE o.order_status = 'CREATED' " +
+                    "GROUP BY oi.product_id ORDER BY oi.product_id";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public OpenOrderLineJdbcRepository(DataSource dataSource) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL Connector/J：逐行从服务端读取
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void streamOpenQuantities(Consumer<OpenQuantity> consumer) {
+        streamingJdbcTemplate.query(OPEN_QUANTITIES_SQL, (RowCallbackHandler) rs -> consumer.accept(
+                new OpenQuantity(rs.getLong("product_id"), rs.getLong("quantity"), rs.getInt("orders"))));
+    }
+
+    public record OpenQuantity(long productId, long quantity, int orders) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.commerce.order.repository;
+
+import com.commerce.order.model.UserOrderStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:12
+ * @package com.commerce.order.repository
+ * <p>
+ * Description:
+ * 统计行均使用 upsert 原子累加，无需先读后写
+ */
+public interface UserOrderStatsRepository extends JpaRepository<UserOrderStats, String> {
+
+    // 下单：订单数 +n，刷新最近下单时间
+    @Modifying
+    @Query(value = "INSERT INTO user_order_stats (keycloak_id, order_count, paid_order_count, cancelled_order_count, " +
+            "lifetime_spend, last_order_at, updated_at) VALUES (:kid, :count, 0, 0, 0, :orderedAt, NOW()) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "last_order_at = GREATEST(COALESCE(last_order_at, VALUES(last_order_at)), VALUES(last_order_at)), " +
+            "updated_at = NOW()", nativeQuery = true)
+    int incrementOrders(@Param("kid") String keycloakId,
+                        @Param("count") long count,
+                        @Param("orderedAt") LocalDateTime orderedAt);
+
+    // 撤回已提交但未成交的订单：订单数 -n（最近下单时间不回退）
+    @Modifying
+    @Query(value = "UPDATE user_order_stats SET order_count = GREATEST(order_count - :count, 0), updated_at = NOW() " +
+            "WHERE keycloak_id = :kid", nativeQuery = true)
+    int decrementOrders(@Param("kid") String keycloakId, @Param("count") long count);
+
+    // 支付成功：已支付数 +1，累计消费 +amount
+    @Modifying
+    @Query(value = "INSERT INTO user_order_stats (keycloak_id, order_count, paid_order_count, cancelled_order_count, " +
+            "lifetime_spend, last_order_at, updated_at) VALUES (:kid, 0, 1, 0, :amount, NULL, NOW()) " +
+            "ON DUPLICATE KEY UPDATE paid_order_count = paid_order_count + 1, " +
+            "lifetime_spend = lifetime_spend + VALUES(lifetime_spend), updated_at = NOW()", nativeQuery = true)
+    int incrementPaid(@Param("kid") String keycloakId, @Param("amount") double amount);
+
+    // 取消：已取消数 +1
+    @Modifying
+    @Query(value = "INSERT INTO user_order_stats (keycloak_id, order_count, paid_order_count, cancelled_order_count, " +
+            "lifetime_spend, last_order_at, updated_at) VALUES (:kid, 0, 0, 1, 0, NULL, NOW()) " +
+            "ON DUPLICATE KEY UPDATE cancelled_order_count = cancelled_order_count + 1, updated_at = NOW()",
+            nativeQuery = true)
+    int incrementCancelled(@Param("kid") String keycloakId);
+
+    // 全量重建：按 orders 聚合后覆盖
+    @Modifying
+    @Query(value = "INSERT INTO user_order_stats (keycloak_id, order_count, paid_order_count, cancelled_order_count, " +
+            "lifetime_spend, last_order_at, updated_at) " +
+            "SELECT o.keycloak_id, COUNT(*), " +
+            "SUM(CASE WHEN o.order_status IN ('PAID', 'SHIPPED', 'COMPLETED') THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN o.order_status = 'CANCELLED' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN o.order_status IN ('PAID', 'SHIPPED', 'COMPLETED') THEN o.total_amount ELSE 0 END), " +
+            "MAX(o.created_at), NOW() FROM orders o GROUP BY o.keycloak_id " +
+            "ON DUPLICATE KEY UPDATE order_count = VALUES(order_count), " +
+            "paid_order_count = VALUES(paid_order_count), cancelled_order_count = VALUES(cancelled_order_count), " +
+            "lifetime_spend = VALUES(lifetime_spend), last_order_at = VALUES(last_order_at), updated_at = NOW()",
+            nativeQuery = true)
+    int rebuildAll();
+}
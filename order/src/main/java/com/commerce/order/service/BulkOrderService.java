@@ -0,0 +1,20 @@
+package com.commerce.order.service;
+
+import com.commerce.order.dto.BulkOrderProgress;
+import com.commerce.order.dto.BulkOrderRequest;
+import com.commerce.order.dto.BulkOrderResponse;
+
+import java.util.function.Consumer;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 16:30
+ * @package com.commerce.order.service
+ * <p>
+ * Description:
+ * B2B 批量下单
+ */
+public interface BulkOrderService {
+    BulkOrderResponse submitBulkOrders(String keycloakId, String userEmail, BulkOrderRequest request,
+                                       Consumer<BulkOrderProgress> progressListener);
+}
@@ -0,0 +1,305 @@
+package com.commerce.order.service;
+
+import com.commerce.order.clients.InventoryClientService;
+import com.commerce.order.clients.ProductClientService;
+import com.commerce.order.config.OrderState;
+import com.commerce.order.dto.*;
+import com.commerce.order.exceptions.ApiException;
+import com.commerce.order.model.Order;
+import com.commerce.order.model.OrderItem;
+import com.commerce.order.model.OrderLineSnapshot;
+import com.commerce.order.repository.BulkOrderJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 16:35
+ * @package com.commerce.order.service
+ * <p>
+ * Description:
+ * B2B 批量下单：
+ * 1. 一次批量查询所有商品及其库存并校验，单行超过当前可用库存的订单直接拒绝
+ * 2. JDBC 批量写入订单并在同一事务内累加下单统计 → 一次调用批量锁库存（事务外）
+ *    → 删除未锁到库存的订单并扣回其统计
+ * 3. 统一发送 order-created 事件并 flush 一次 producer
+ */
+@Service
+@Slf4j
+public class BulkOrderServiceImpl implements BulkOrderService {
+
+    private static final String STATUS_CREATED = "CREATED";
+    private static final String STATUS_REJECTED = "REJECTED";
+
+    @Autowired
+    private ProductClientService productClientService;
+    @Autowired
+    private InventoryClientService inventoryClientService;
+    @Autowired
+    private BulkOrderJdbcRepository bulkOrderJdbcRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    @Autowired
+    private UserOrderStatsService userOrderStatsService;
+
+    @Value("${order.bulk.max-orders:5000}")
+    private int maxOrders;
+
+    @Value("${order.bulk.insert-chunk-size:500}")
+    private int insertChunkSize;
+
+    @Override
+    public BulkOrderResponse submitBulkOrders(String keycloakId, String userEmail, BulkOrderRequest request,
+                                              Consumer<BulkOrderProgress> progressListener) {
+        List<BulkOrderEntry> entries = request.getOrders();
+        if (entries == null || entries.isEmpty()) {
+            throw new ApiException("No orders submitted", HttpStatus.BAD_REQUEST);
+        }
+        if (entries.size() > maxOrders) {
+            throw new ApiException("Too many orders in one submission, max is " + maxOrders, HttpStatus.BAD_REQUEST);
+        }
+        log.info("[BulkOrder] Received {} orders from keycloakId={}", entries.size(), keycloakId);
+
+        // 1️⃣ 一次批量查询所有商品
+        List<Long> productIds = entries.stream()
+                .filter(entry -> entry.getLines() != null)
+                .flatMap(entry -> entry.getLines().stream())
+                .map(BulkOrderLine::getProductId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, ProductDTO> products = productClientService.getProductsByIds(productIds).stream()
+                .collect(Collectors.toMap(ProductDTO::getProductId, Function.identity()));
+        Map<Long, InventoryStock> stock = queryStock(productIds);
+
+        // 2️⃣ 校验并构建订单
+        BulkOrderResult[] results = new BulkOrderResult[entries.size()];
+        List<Order> orders = new ArrayList<>();
+        List<Integer> entryIndexes = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < entries.size(); i++) {
+            BulkOrderEntry entry = entries.get(i);
+            String error = validate(entry, products, stock);
+            if (error != null) {
+                results[i] = rejected(entry, error);
+                continue;
+            }
+            orders.add(buildOrder(keycloakId, userEmail, entry, products, now));
+            entryIndexes.add(i);
+        }
+        progressListener.accept(new BulkOrderProgress("VALIDATED", orders.size(), entries.size()));
+
+        // 3️⃣ 先提交订单，再锁库存（远程调用不在本地事务内），最后撤回未锁到库存的订单
+        if (!orders.isEmpty()) {
+            Map<Long, String> rejectedByOrderId = submitAndReserve(orders, progressListener);
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                BulkOrderEntry entry = entries.get(entryIndexes.get(i));
+                String reason = rejectedByOrderId.get(order.getOrderId());
+                results[entryIndexes.get(i)] = reason != null
+                        ? rejected(entry, reason)
+                        : new BulkOrderResult(entry.getClientReference(), order.getOrderId(),
+                        STATUS_CREATED, order.getTotalAmount(), null);
+            }
+        }
+
+        BulkOrderResponse response = new BulkOrderResponse();
+        response.setSubmitted(entries.size());
+        response.setResults(Arrays.asList(results));
+        response.setCreated((int) response.getResults().stream()
+                .filter(r -> STATUS_CREATED.equals(r.getStatus())).count());
+        response.setRejected(entries.size() - response.getCreated());
+        progressListener.accept(new BulkOrderProgress("COMMITTED", response.getCreated(), entries.size()));
+
+        log.info("[BulkOrder] Bulk submission finished → created={}, rejected={}",
+                response.getCreated(), response.getRejected());
+        return response;
+    }
+
+    /** 写订单 → 锁库存 → 撤回被拒订单并发送事件，返回被拒订单及原因（键为 orderId，未写入时为全部订单） */
+    private Map<Long, String> submitAndReserve(List<Order> orders, Consumer<BulkOrderProgress> progressListener) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insertOrders(orders, progressListener);
+                userOrderStatsService.recordCreated(orders.get(0).getKeycloakId(), orders.size(),
+                        orders.get(0).getCreatedAt());
+            });
+        } catch (Exception e) {
+            log.error("[BulkOrder] Bulk insert failed, nothing was committed or locked → {}", e.getMessage(), e);
+            return rejectAll(orders, "Bulk submission failed: " + e.getMessage());
+        }
+
+        BatchStockLockResponse lockResponse;
+        try {
+            lockResponse = lockStock(orders);
+        } catch (Exception e) {
+            // 库存侧是否已锁定未知：撤回订单，已落地的锁随预占记录过期由库存侧释放
+            log.error("[BulkOrder] Stock lock failed, withdrawing {} committed orders → {}",
+                    orders.size(), e.getMessage(), e);
+            withdraw(orders);
+            return rejectAll(orders, "Stock reservation failed: " + e.getMessage());
+        }
+
+        Map<Long, String> rejected = new HashMap<>();
+        lockResponse.getResults().stream()
+                .filter(result -> !result.isLocked())
+                .forEach(result -> rejected.put(result.getOrderId(), result.getReason()));
+        progressListener.accept(new BulkOrderProgress("RESERVED", orders.size() - rejected.size(), orders.size()));
+
+        // 被拒订单未锁到库存，撤回失败时残留也不占库存；已锁定的订单照常发送事件
+        Map<Boolean, List<Order>> partitioned = orders.stream()
+                .collect(Collectors.partitioningBy(order -> !rejected.containsKey(order.getOrderId())));
+        List<Order> accepted = partitioned.get(true);
+        if (!partitioned.get(false).isEmpty()) {
+            withdraw(partitioned.get(false));
+        }
+        if (!accepted.isEmpty()) {
+            publishOrderCreatedEvents(accepted);
+        }
+        return rejected;
+    }
+
+    private void insertOrders(List<Order> orders, Consumer<BulkOrderProgress> progressListener) {
+        for (int from = 0; from < orders.size(); from += insertChunkSize) {
+            int to = Math.min(from + insertChunkSize, orders.size());
+            bulkOrderJdbcRepository.insertOrders(orders.subList(from, to));
+            progressListener.accept(new BulkOrderProgress("INSERTED", to, orders.size()));
+        }
+    }
+
+    /** 批量锁定按订单行幂等，失败时重发一次同样的请求以拿到确定结果 */
+    private BatchStockLockResponse lockStock(List<Order> orders) {
+        BatchStockLockRequest lockRequest = new BatchStockLockRequest();
+        for (Order order : orders) {
+            List<StockOperationRequest> items = order.getLineSnapshot().stream()
+                    .map(line -> new StockOperationRequest(line.getProductId(), line.getQuantity(), order.getOrderId()))
+                    .toList();
+            lockRequest.getGroups().add(new StockLockGroup(order.getOrderId(), items));
+        }
+        try {
+            return inventoryClientService.lockStockBatch(lockRequest);
+        } catch (Exception e) {
+            log.warn("[BulkOrder] Batch stock lock failed, retrying once → {}", e.getMessage());
+            return inventoryClientService.lockStockBatch(lockRequest);
+        }
+    }
+
+    /** 删除订单并在同一事务内扣回下单统计 */
+    private void withdraw(List<Order> orders) {
+        List<Long> orderIds = orders.stream().map(Order::getOrderId).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                bulkOrderJdbcRepository.deleteOrders(orderIds);
+                userOrderStatsService.recordWithdrawn(orders.get(0).getKeycloakId(), orders.size());
+            });
+        } catch (Exception e) {
+            log.error("[BulkOrder] Failed to withdraw orders, manual cleanup needed → orderIds={}, reason={}",
+                    orderIds, e.getMessage(), e);
+        }
+    }
+
+    private Map<Long, String> rejectAll(List<Order> orders, String reason) {
+        Map<Long, String> rejected = new HashMap<>();
+        orders.forEach(order -> rejected.put(order.getOrderId(), reason));
+        return rejected;
+    }
+
+    private void publishOrderCreatedEvents(List<Order> orders) {
+        try {
+            orders.forEach(order -> kafkaTemplate.send("order-created", OrderEventFactory.orderCreated(order)));
+            kafkaTemplate.flush();
+            log.info("[Kafka] {} OrderCreatedEvents sent in one flush", orders.size());
+        } catch (Exception e) {
+            log.error("[Kafka] Failed to send bulk OrderCreatedEvents → {}", e.getMessage(), e);
+        }
+    }
+
+    /** 库存预查只用于提前拒绝明显不足的订单，失败时跳过（以锁库存结果为准），返回 null */
+    private Map<Long, InventoryStock> queryStock(List<Long> productIds) {
+        try {
+            return inventoryClientService.getStockByProductIds(productIds);
+        } catch (Exception e) {
+            log.warn("[BulkOrder] Stock pre-check skipped, query failed → {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String validate(BulkOrderEntry entry, Map<Long, ProductDTO> products, Map<Long, InventoryStock> stock) {
+        if (entry.getLines() == null || entry.getLines().isEmpty()) {
+            return "Order has no lines";
+        }
+        for (BulkOrderLine line : entry.getLines()) {
+            if (line.getProductId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                return "Invalid line: productId and a positive quantity are required";
+            }
+            if (!products.containsKey(line.getProductId())) {
+                return "Product not found: " + line.getProductId();
+            }
+        }
+        if (stock == null) {
+            return null;
+        }
+        // 同一商品的多行合计后比较
+        Map<Long, Integer> quantities = new HashMap<>();
+        entry.getLines().forEach(line -> quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            InventoryStock available = stock.get(line.getKey());
+            if (available == null) {
+                return "Inventory not found for productId: " + line.getKey();
+            }
+            if (available.getAvailableStock() == null || available.getAvailableStock() < line.getValue()) {
+                return "Insufficient stock for productId: " + line.getKey();
+            }
+        }
+        return null;
+    }
+
+    private Order buildOrder(String keycloakId, String userEmail, BulkOrderEntry entry,
+                             Map<Long, ProductDTO> products, LocalDateTime createdAt) {
+        Order order = new Order();
+        order.setKeycloakId(keycloakId);
+        order.setEmail(userEmail);
+        order.setOrderStatus(OrderState.CREATED.name());
+        order.setCreatedAt(createdAt);
+
+        // 同一商品的多行合并为一行：库存按 orderId + productId 锁定，重复行会被当作重复操作跳过
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        entry.getLines().forEach(line -> quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum));
+
+        List<OrderItem> orderItems = quantities.entrySet().stream().map(line -> {
+            ProductDTO product = products.get(line.getKey());
+            OrderItem oi = new OrderItem();
+            oi.setProductId(product.getProductId());
+            oi.setProductName(product.getProductName());
+            oi.setProductPrice(product.getPrice());
+            oi.setDiscount(product.getDiscount());
+            oi.setImage(product.getImage());
+            oi.setQuantity(line.getValue());
+            oi.setOrderedProductPrice(product.getPrice() * line.getValue());
+            oi.setOrder(order);
+            return oi;
+        }).collect(Collectors.toList());
+
+        order.setOrderItems(orderItems);
+        order.setLineSnapshot(orderItems.stream().map(OrderLineSnapshot::of).toList());
+        order.setTotalAmount(orderItems.stream().mapToDouble(OrderItem::getOrderedProductPrice).sum());
+        return order;
+    }
+
+    private BulkOrderResult rejected(BulkOrderEntry entry, String reason) {
+        return new BulkOrderResult(entry.getClientReference(), null, STATUS_REJECTED, null, reason);
+    }
+}
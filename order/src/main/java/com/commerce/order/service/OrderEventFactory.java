@@ -0,0 +1,54 @@
+package com.commerce.order.service;
+
+import com.commerce.order.kafka.event.OrderCreatedEvent;
+import com.commerce.order.kafka.event.OrderItemPayload;
+import com.commerce.order.model.Order;
+import com.commerce.order.model.OrderLineSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 16:05
+ * @package com.commerce.order.service
+ * <p>
+ * Description:
+ * 单笔下单与批量下单共用的订单行 / 事件构建
+ */
+final class OrderEventFactory {
+
+    private OrderEventFactory() {
+    }
+
+    /** 优先使用订单行快照；历史订单没有快照时回退到 order_items */
+    static List<OrderLineSnapshot> orderLines(Order order) {
+        if (order.getLineSnapshot() != null) {
+            return order.getLineSnapshot();
+        }
+        return order.getOrderItems().stream().map(OrderLineSnapshot::of).toList();
+    }
+
+    static OrderCreatedEvent orderCreated(Order order) {
+        OrderCreatedEvent event = new OrderCreatedEvent();
+        event.setOrderId(order.getOrderId());
+        event.setKeycloakId(order.getKeycloakId());
+        event.setEmail(order.getEmail());
+        event.setTotalAmount(order.getTotalAmount());
+        event.setCurrency("USD");
+        event.setCreatedAt(order.getCreatedAt());
+        event.setEventTime(LocalDateTime.now());
+
+        List<OrderItemPayload> items = orderLines(order).stream()
+                .map(i -> new OrderItemPayload(
+                        i.getProductId(),
+                        i.getProductName(),
+                        i.getQuantity(),
+                        i.getProductPrice()
+                ))
+                .toList();
+        event.setOrderItems(items);
+
+        return event;
+    }
+}
@@ -15,6 +15,8 @@ import com.commerce.order.kafka.event.PaymentSucceededEvent;
 public interface OrderService {
     OrderResponse createOrder(String keycloakId, String userEmail);
 
+    OrderResponse getOrderById(Long orderId, String keycloakId);
+
     void updatePaymentId(Long orderId, Long paymentId);
 
     void markOrderAsPaid(PaymentSucceededEvent event);
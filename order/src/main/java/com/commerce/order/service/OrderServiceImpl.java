@@ -8,11 +8,15 @@ import com.commerce.order.config.OrderState;
 import com.commerce.order.dto.*;
 import com.commerce.order.exceptions.ApiException;
 import com.commerce.order.exceptions.ResourceNotFoundException;
+import com.commerce.order.intake.OrderIntakePipeline;
 import com.commerce.order.kafka.event.*;
+import com.commerce.order.metrics.CheckoutMetrics;
 import com.commerce.order.model.Order;
 import com.commerce.order.model.OrderItem;
+import com.commerce.order.model.OrderLineSnapshot;
 import com.commerce.order.repository.OrderRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,10 +27,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author Yixi Wan
@@ -53,25 +61,122 @@ public class OrderServiceImpl implements OrderService {
     private KafkaTemplate<String, Object> kafkaTemplate;
     @Autowired
     private StateMachineFactory<OrderState, OrderEvent> stateMachineFactory;
+    @Autowired
+    private CheckoutMetrics checkoutMetrics;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired(required = false)
+    private OrderIntakePipeline orderIntakePipeline;
+    @Autowired
+    private UserOrderStatsService userOrderStatsService;
 
     // -----------------------------------------------------------------------
     // 1️⃣ 创建订单
     // -----------------------------------------------------------------------
     @Override
-    @Transactional
     public OrderResponse createOrder(String keycloakId, String userEmail) {
+        return checkoutMetrics.record(CheckoutMetrics.STEP_TOTAL, () -> orderIntakePipeline != null
+                ? createOrderViaIntake(keycloakId, userEmail)
+                : transactionTemplate.execute(status -> createOrderInTransaction(keycloakId, userEmail)));
+    }
+
+    /** 默认路径：单笔事务内 保存订单 → 锁库存 → 清空购物车，任一步失败整体回滚 */
+    private OrderResponse createOrderInTransaction(String keycloakId, String userEmail) {
+        Order order = prepareOrder(keycloakId, userEmail);
+
+        // 保存订单
+        Order savedOrder = checkoutMetrics.record(CheckoutMetrics.STEP_ORDER_SAVE,
+                () -> orderRepository.save(order));
+        userOrderStatsService.recordCreated(keycloakId, 1, savedOrder.getCreatedAt());
+
+        // 锁库存
+        for (OrderItem item : savedOrder.getOrderItems()) {
+            checkoutMetrics.record(CheckoutMetrics.STEP_INVENTORY_LOCK,
+                    () -> inventoryClientService.lockStock(savedOrder.getOrderId(),
+                            item.getProductId(), item.getQuantity()));
+        }
+
+        // 清空购物车
+        checkoutMetrics.record(CheckoutMetrics.STEP_CART_CLEAR,
+                () -> cartClientService.clearCart(keycloakId));
+
+        // 注册事务提交后发送 Kafka 事件
+        registerOrderCreatedEvent(savedOrder);
+        registerCommitTimer();
+
+        log.info("[Order] Order created successfully → orderId={}", savedOrder.getOrderId());
+        return toOrderResponse(savedOrder);
+    }
+
+    /**
+     * 合并提交路径：订单交给 intake 写线程批量 commit，
+     * 之后再锁库存；锁库存失败时释放已锁部分并取消订单。
+     */
+    private OrderResponse createOrderViaIntake(String keycloakId, String userEmail) {
+        Order order = prepareOrder(keycloakId, userEmail);
+
+        // 写入与 commit 都在写线程的同一批次内完成，两个步骤均按等待批次提交的耗时统计
+        Order savedOrder = checkoutMetrics.record(CheckoutMetrics.STEP_ORDER_SAVE,
+                () -> checkoutMetrics.record(CheckoutMetrics.STEP_ORDER_COMMIT,
+                        () -> orderIntakePipeline.submit(order)));
+
+        List<OrderItem> locked = new ArrayList<>();
+        try {
+            for (OrderItem item : savedOrder.getOrderItems()) {
+                checkoutMetrics.record(CheckoutMetrics.STEP_INVENTORY_LOCK,
+                        () -> inventoryClientService.lockStock(savedOrder.getOrderId(),
+                            item.getProductId(), item.getQuantity()));
+                locked.add(item);
+            }
+        } catch (RuntimeException e) {
+            compensateFailedIntake(savedOrder, locked);
+            throw e;
+        }
+
+        checkoutMetrics.record(CheckoutMetrics.STEP_CART_CLEAR,
+                () -> cartClientService.clearCart(keycloakId));
+
+        // 订单已由写线程提交，直接发送事件
+        sendOrderCreatedMessage(buildOrderCreatedEvent(savedOrder));
+
+        log.info("[Order] Order created via intake → orderId={}", savedOrder.getOrderId());
+        return toOrderResponse(savedOrder);
+    }
+
+    /**
+     * 经状态机取消订单，提交后只为已锁到库存的行发送 order-cancelled，由库存侧按订单行幂等释放；
+     * 锁定结果未知的那一行由库存侧的预占过期释放
+     */
+    private void compensateFailedIntake(Order order, List<OrderItem> locked) {
+        log.warn("[Order] Stock lock failed after intake commit, cancelling → orderId={}", order.getOrderId());
+        List<OrderLineSnapshot> lockedLines = locked.stream().map(OrderLineSnapshot::of).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            Order current = orderRepository.findById(order.getOrderId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Order", "OrderId", order.getOrderId()));
+            if (!cancel(current, OrderEvent.STOCK_LOCK_FAILED, lockedLines)) {
+                log.warn("[Order] Stock lock failure cancel rejected by state machine → orderId={}, currentState={}",
+                        current.getOrderId(), current.getOrderStatus());
+            }
+        });
+    }
+
+    /** 获取购物车、校验并同步商品信息，构建未持久化的订单 */
+    private Order prepareOrder(String keycloakId, String userEmail) {
         log.info("[Order] Creating order for keycloakId={}", keycloakId);
 
         // 获取购物车
-        CartResponse cartResponse = cartClientService.getCartByKeyCloakId(keycloakId);
+        CartResponse cartResponse = checkoutMetrics.record(CheckoutMetrics.STEP_CART_FETCH,
+                () -> cartClientService.getCartByKeyCloakId(keycloakId));
         List<CartItem> cartItems = cartResponse.getCartItems();
+        checkoutMetrics.recordCartLines(cartItems.size());
         if (cartItems.isEmpty()) {
             throw new ApiException("Cart is empty", HttpStatus.BAD_REQUEST);
         }
 
         // 校验并同步商品信息
         for (CartItem item : cartItems) {
-            ProductDTO product = productClientService.getProductById(item.getProductId());
+            ProductDTO product = checkoutMetrics.record(CheckoutMetrics.STEP_PRODUCT_FETCH,
+                    () -> productClientService.getProductById(item.getProductId()));
             if (product.getAvailableStock() < item.getQuantity()) {
                 throw new ApiException("Insufficient stock for product: " + product.getProductName(),
                         HttpStatus.BAD_REQUEST);
@@ -109,30 +214,55 @@ public class OrderServiceImpl implements OrderService {
             return oi;
         }).collect(Collectors.toList());
         order.setOrderItems(orderItems);
+        order.setLineSnapshot(orderItems.stream().map(OrderLineSnapshot::of).toList());
+        return order;
+    }
 
-        // 保存订单
-        Order savedOrder = orderRepository.save(order);
+    private OrderResponse toOrderResponse(Order order) {
+        OrderResponse response = modelMapper.map(order, OrderResponse.class);
+        List<OrderLineSnapshot> lines = orderLines(order);
+        List<Long> itemIds = savedItemIds(order, lines.size());
+        response.setOrderItems(IntStream.range(0, lines.size())
+                .mapToObj(i -> OrderItemResponse.builder()
+                        .orderItemId(itemIds.get(i))
+                        .productId(lines.get(i).getProductId())
+                        .productName(lines.get(i).getProductName())
+                        .productPrice(lines.get(i).getProductPrice())
+                        .quantity(lines.get(i).getQuantity())
+                        .discount(lines.get(i).getDiscount())
+                        .orderedProductPrice(lines.get(i).getOrderedProductPrice())
+                        .build())
+                .collect(Collectors.toList()));
+        response.setTotalAmount(order.getTotalAmount());
+        return response;
+    }
 
-        // 锁库存
-        for (CartItem item : cartItems) {
-            inventoryClientService.lockStock(item.getProductId(), item.getQuantity());
+    /**
+     * 快照写于保存之前，不含订单行主键：刚保存的订单 order_items 已在内存中（与快照同序），直接取其主键；
+     * 未加载 order_items 的读取路径不为此多查一次，主键为空
+     */
+    private List<Long> savedItemIds(Order order, int lineCount) {
+        List<OrderItem> items = order.getOrderItems();
+        if (items == null || !Hibernate.isInitialized(items) || items.size() != lineCount) {
+            return Collections.nCopies(lineCount, null);
         }
+        return items.stream().map(OrderItem::getOrderItemId).toList();
+    }
 
-        // 清空购物车
-        cartClientService.clearCart(keycloakId);
-
-        // 注册事务提交后发送 Kafka 事件
-        registerOrderCreatedEvent(savedOrder);
-
-        // 构建响应
-        OrderResponse response = modelMapper.map(savedOrder, OrderResponse.class);
-        response.setOrderItems(orderItems.stream()
-                .map(i -> modelMapper.map(i, OrderItemResponse.class))
-                .collect(Collectors.toList()));
-        response.setTotalAmount(totalAmount);
+    private List<OrderLineSnapshot> orderLines(Order order) {
+        return OrderEventFactory.orderLines(order);
+    }
 
-        log.info("[Order] Order created successfully → orderId={}", savedOrder.getOrderId());
-        return response;
+    // -----------------------------------------------------------------------
+    // 查询订单
+    // -----------------------------------------------------------------------
+    @Override
+    @Transactional(readOnly = true)
+    public OrderResponse getOrderById(Long orderId, String keycloakId) {
+        Order order = orderRepository.findById(orderId)
+                .filter(o -> o.getKeycloakId().equals(keycloakId))
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "OrderId", orderId));
+        return toOrderResponse(order);
     }
 
     // -----------------------------------------------------------------------
@@ -190,6 +320,7 @@ public class OrderServiceImpl implements OrderService {
         order.setOrderStatus(sm.getState().getId().name());
         order.setPaidAt(event.getPaidAt());
         orderRepository.save(order);
+        userOrderStatsService.recordPaid(order.getKeycloakId(), order.getTotalAmount());
 
         log.info("[Order] Marked order as PAID via state machine → orderId={}", orderId);
 
@@ -206,26 +337,31 @@ public class OrderServiceImpl implements OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "OrderId", orderId));
 
+        if (!cancel(order, OrderEvent.PAYMENT_EXPIRED, orderLines(order))) {
+            log.warn("[Order] PaymentExpiredEvent rejected by state machine → orderId={}, currentState={}",
+                    orderId, order.getOrderStatus());
+            return;
+        }
+        log.info("[Order] Order cancelled due to payment timeout → orderId={}", orderId);
+    }
+
+    /** 状态机 CREATED → CANCELLED：更新状态与统计，事务提交后为 lines 发送“订单取消”事件（给库存做释放） */
+    private boolean cancel(Order order, OrderEvent trigger, List<OrderLineSnapshot> lines) {
         StateMachine<OrderState, OrderEvent> sm =
                 stateMachineFactory.getStateMachine(order.getOrderId().toString());
         sm.start();
 
-        boolean accepted = sm.sendEvent(OrderEvent.PAYMENT_EXPIRED);
-
-        if (!accepted) {
-            log.warn("[Order] PaymentExpiredEvent rejected by state machine → orderId={}, currentState={}",
-                    orderId, sm.getState().getId());
-            return;
+        if (!sm.sendEvent(trigger)) {
+            return false;
         }
 
         // 更新状态
         order.setOrderStatus(sm.getState().getId().name());
         orderRepository.save(order);
+        userOrderStatsService.recordCancelled(order.getKeycloakId());
 
-        log.info("[Order] Order cancelled due to payment timeout → orderId={}", orderId);
-
-        // 事务提交后再发“订单取消/支付过期”事件（给库存做释放）
-        registerOrderCancelledEvent(order);
+        registerOrderCancelledEvent(order, lines, trigger.name());
+        return true;
     }
 
 
@@ -242,11 +378,31 @@ public class OrderServiceImpl implements OrderService {
         });
     }
 
+    /** 统计下单事务 commit 耗时（beforeCommit → afterCompletion） */
+    private void registerCommitTimer() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long commitStart;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitStart = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (commitStart > 0) {
+                    checkoutMetrics.recordDuration(CheckoutMetrics.STEP_ORDER_COMMIT,
+                            System.nanoTime() - commitStart, status == STATUS_COMMITTED);
+                }
+            }
+        });
+    }
+
     private void registerOrderConfirmedEvent(Order order) {
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
-                order.getOrderItems().forEach(item -> {
+                orderLines(order).forEach(item -> {
                     OrderConfirmedEvent event = buildOrderConfirmedEvent(order, item);
                     sendOrderConfirmedEvent(event);
                 });
@@ -254,12 +410,15 @@ public class OrderServiceImpl implements OrderService {
         });
     }
 
-    private void registerOrderCancelledEvent(Order order) {
+    private void registerOrderCancelledEvent(Order order, List<OrderLineSnapshot> lines, String reason) {
+        if (lines.isEmpty()) {
+            return;
+        }
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
-                order.getOrderItems().forEach(item -> {
-                    OrderCancelledEvent event = buildOrderCancelledEvent(order, item);
+                lines.forEach(item -> {
+                    OrderCancelledEvent event = buildOrderCancelledEvent(order, item, reason);
                     sendOrderCancelledEvent(event);
                 });
             }
@@ -267,29 +426,10 @@ public class OrderServiceImpl implements OrderService {
     }
 
     private OrderCreatedEvent buildOrderCreatedEvent(Order order) {
-        OrderCreatedEvent event = new OrderCreatedEvent();
-        event.setOrderId(order.getOrderId());
-        event.setKeycloakId(order.getKeycloakId());
-        event.setEmail(order.getEmail());
-        event.setTotalAmount(order.getTotalAmount());
-        event.setCurrency("USD");
-        event.setCreatedAt(order.getCreatedAt());
-        event.setEventTime(LocalDateTime.now());
-
-        List<OrderItemPayload> items = order.getOrderItems().stream()
-                .map(i -> new OrderItemPayload(
-                        i.getProductId(),
-                        i.getProductName(),
-                        i.getQuantity(),
-                        i.getProductPrice()
-                ))
-                .toList();
-        event.setOrderItems(items);
-
-        return event;
+        return OrderEventFactory.orderCreated(order);
     }
 
-    private OrderConfirmedEvent buildOrderConfirmedEvent(Order order, OrderItem item) {
+    private OrderConfirmedEvent buildOrderConfirmedEvent(Order order, OrderLineSnapshot item) {
         return OrderConfirmedEvent.builder()
                 .orderId(order.getOrderId())
                 .productId(item.getProductId())
@@ -298,12 +438,12 @@ public class OrderServiceImpl implements OrderService {
                 .build();
     }
 
-    private OrderCancelledEvent buildOrderCancelledEvent(Order order, OrderItem item) {
+    private OrderCancelledEvent buildOrderCancelledEvent(Order order, OrderLineSnapshot item, String reason) {
         return OrderCancelledEvent.builder()
                 .orderId(order.getOrderId())
                 .productId(item.getProductId())
                 .quantity(item.getQuantity())
-                .reason("PAYMENT_EXPIRED")
+                .reason(reason)
                 .eventTime(LocalDateTime.now())
                 .build();
     }
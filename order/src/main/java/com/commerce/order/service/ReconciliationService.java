@@ -0,0 +1,19 @@
+package com.commerce.order.service;
+
+import com.commerce.order.dto.LockedStockDiscrepancy;
+import com.commerce.order.dto.ReconciliationSummary;
+
+import java.util.function.Consumer;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:32
+ * @package com.commerce.order.service
+ * <p>
+ * Description:
+ */
+public interface ReconciliationService {
+
+    /** 锁定库存与未支付订单对账，差异逐行回调；autoFix 时分批提交修正（只释放多锁的库存） */
+    ReconciliationSummary reconcileLockedStock(boolean autoFix, Consumer<LockedStockDiscrepancy> reportSink);
+}
@@ -0,0 +1,156 @@
+package com.commerce.order.service;
+
+import com.commerce.order.clients.InventoryClientService;
+import com.commerce.order.clients.InventoryStockStream;
+import com.commerce.order.dto.*;
+import com.commerce.order.exceptions.ApiException;
+import com.commerce.order.repository.OpenOrderLineJdbcRepository;
+import com.commerce.order.repository.OpenOrderLineJdbcRepository.OpenQuantity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 02:35
+ * @package com.commerce.order.service
+ * <p>
+ * Description:
+ * 锁定库存对账（有序归并）：
+ * 1. 先打开库存服务按 productId 升序的 NDJSON 流，再流式读取本地未支付订单按商品的汇总（同样升序）
+ * 2. 两边逐行推进做归并连接，任意时刻只持有各一行 + 一个修正批次，内存与行数无关
+ * 3. 差异逐行输出；autoFix 时多锁的部分按批提交给库存服务，由其校验版本与 ACTIVE 预占后释放
+ */
+@Service
+@Slf4j
+public class ReconciliationServiceImpl implements ReconciliationService {
+
+    @Autowired
+    private InventoryClientService inventoryClientService;
+    @Autowired
+    private OpenOrderLineJdbcRepository openOrderLineJdbcRepository;
+
+    @Value("${order.reconcile.fix-batch-size:200}")
+    private int fixBatchSize;
+
+    @Override
+    public ReconciliationSummary reconcileLockedStock(boolean autoFix, Consumer<LockedStockDiscrepancy> reportSink) {
+        long start = System.currentTimeMillis();
+        log.info("[Reconcile] Locked stock reconciliation started → autoFix={}", autoFix);
+
+        ReconciliationSummary summary = new ReconciliationSummary();
+        try (InventoryStockStream inventory = inventoryClientService.openStockStreamByProduct()) {
+            MergeJoin join = new MergeJoin(inventory, autoFix, reportSink, summary);
+            openOrderLineJdbcRepository.streamOpenQuantities(join::onOpenQuantity);
+            join.finish();
+        }
+
+        summary.setDurationMs(System.currentTimeMillis() - start);
+        log.info("[Reconcile] Locked stock reconciliation finished → {}", summary);
+        return summary;
+    }
+
+    /** 归并状态：当前库存行 + 待提交的修正批次 */
+    private final class MergeJoin {
+
+        private final InventoryStockStream inventory;
+        private final boolean autoFix;
+        private final Consumer<LockedStockDiscrepancy> reportSink;
+        private final ReconciliationSummary summary;
+        private final List<LockedStockCorrection> batch = new ArrayList<>();
+        private InventoryStockRow current;
+
+        private MergeJoin(InventoryStockStream inventory, boolean autoFix,
+                          Consumer<LockedStockDiscrepancy> reportSink, ReconciliationSummary summary) {
+            this.inventory = inventory;
+            this.autoFix = autoFix;
+            this.reportSink = reportSink;
+            this.summary = summary;
+            advance();
+        }
+
+        private void onOpenQuantity(OpenQuantity open) {
+            summary.setOpenOrderProducts(summary.getOpenOrderProducts() + 1);
+            // 没有未支付订单的商品：期望锁定为 0
+            while (current != null && current.getProductId() < open.productId()) {
+                compare(current, 0, 0);
+                advance();
+            }
+            if (current != null && current.getProductId() == open.productId()) {
+                compare(current, open.quantity(), open.orders());
+                advance();
+            } else {
+                report(new LockedStockDiscrepancy(open.productId(), LockedStockDiscrepancy.NO_INVENTORY, null,
+                        open.quantity(), open.orders(), null));
+            }
+        }
+
+        private void finish() {
+            while (current != null) {
+                compare(current, 0, 0);
+                advance();
+            }
+            flushCorrections();
+        }
+
+        private void compare(InventoryStockRow row, long expected, int orders) {
+            long drift = row.getLockedStock() - expected;
+            if (drift == 0) {
+                return;
+            }
+            String type = drift > 0 ? LockedStockDiscrepancy.EXCESS_LOCKED : LockedStockDiscrepancy.MISSING_LOCK;
+            report(new LockedStockDiscrepancy(row.getProductId(), type, row.getLockedStock(), expected, orders, drift));
+            if (drift > 0) {
+                summary.setExcessLocked(summary.getExcessLocked() + drift);
+                if (autoFix) {
+                    batch.add(new LockedStockCorrection(row.getProductId(), (int) drift, row.getVersion()));
+                    if (batch.size() >= fixBatchSize) {
+                        flushCorrections();
+                    }
+                }
+            } else {
+                summary.setMissingLocked(summary.getMissingLocked() - drift);
+            }
+        }
+
+        private void report(LockedStockDiscrepancy discrepancy) {
+            summary.setDiscrepancies(summary.getDiscrepancies() + 1);
+            reportSink.accept(discrepancy);
+        }
+
+        private void flushCorrections() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                long released = inventoryClientService.correctLockedStock(List.copyOf(batch)).stream()
+                        .mapToLong(LockedStockCorrectionResult::getReleased)
+                        .sum();
+                summary.setReleased(summary.getReleased() + released);
+                summary.setCorrectionBatches(summary.getCorrectionBatches() + 1);
+            } catch (Exception e) {
+                // 单批失败不影响报告，下次对账会再次发现
+                log.error("[Reconcile] Correction batch of {} products failed → {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+
+        private void advance() {
+            try {
+                current = inventory.next();
+            } catch (IOException e) {
+                throw new ApiException("Inventory stream interrupted: " + e.getMessage(), HttpStatus.BAD_GATEWAY);
+            }
+            if (current != null) {
+                summary.setInventoryRows(summary.getInventoryRows() + 1);
+            }
+        }
+    }
+}
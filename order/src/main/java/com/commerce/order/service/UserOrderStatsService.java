@@ -0,0 +1,27 @@
+package com.commerce.order.service;
+
+import com.commerce.order.dto.UserOrderStatsResponse;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:18
+ * @package com.commerce.order.service
+ * <p>
+ * Description:
+ * record* 方法需在订单状态变更所在事务内调用
+ */
+public interface UserOrderStatsService {
+    void recordCreated(String keycloakId, long orderCount, LocalDateTime orderedAt);
+
+    void recordWithdrawn(String keycloakId, long orderCount);
+
+    void recordPaid(String keycloakId, double amount);
+
+    void recordCancelled(String keycloakId);
+
+    UserOrderStatsResponse getStats(String keycloakId);
+
+    int rebuildAll();
+}
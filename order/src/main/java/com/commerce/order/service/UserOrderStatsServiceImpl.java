@@ -0,0 +1,69 @@
+package com.commerce.order.service;
+
+import com.commerce.order.dto.UserOrderStatsResponse;
+import com.commerce.order.repository.UserOrderStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/19 17:20
+ * @package com.commerce.order.service
+ * <p>
+ * Description:
+ */
+@Service
+@Slf4j
+public class UserOrderStatsServiceImpl implements UserOrderStatsService {
+
+    @Autowired
+    private UserOrderStatsRepository userOrderStatsRepository;
+    @Autowired
+    private ModelMapper modelMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(String keycloakId, long orderCount, LocalDateTime orderedAt) {
+        userOrderStatsRepository.incrementOrders(keycloakId, orderCount, orderedAt);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordWithdrawn(String keycloakId, long orderCount) {
+        userOrderStatsRepository.decrementOrders(keycloakId, orderCount);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordPaid(String keycloakId, double amount) {
+        userOrderStatsRepository.incrementPaid(keycloakId, amount);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCancelled(String keycloakId) {
+        userOrderStatsRepository.incrementCancelled(keycloakId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserOrderStatsResponse getStats(String keycloakId) {
+        return userOrderStatsRepository.findById(keycloakId)
+                .map(stats -> modelMapper.map(stats, UserOrderStatsResponse.class))
+                .orElseGet(() -> new UserOrderStatsResponse(keycloakId, 0, 0, 0, 0, null));
+    }
+
+    @Override
+    @Transactional
+    public int rebuildAll() {
+        int rows = userOrderStatsRepository.rebuildAll();
+        log.info("[OrderStats] Rebuilt user order stats from orders → affectedRows={}", rows);
+        return rows;
+    }
+}
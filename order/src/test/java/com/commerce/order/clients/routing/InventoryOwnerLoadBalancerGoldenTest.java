@@ -0,0 +1,74 @@
+package com.commerce.order.clients.routing;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 07:50
+ * @package com.commerce.order.clients.routing
+ * <p>
+ * Description:
+ * 归属路由的固定向量：order / product 各有一份相同的测试，与 ConsistentHashRingGoldenTest 的归属一致，
+ * 保证两边的负载均衡器都把带路由键的请求发往库存侧判定的持有实例。
+ */
+class InventoryOwnerLoadBalancerGoldenTest {
+
+    private static final String NODE_1 = "inventory-service:10.0.0.1:8083";
+    private static final String NODE_2 = "inventory-service:10.0.0.2:8083";
+    private static final String NODE_3 = "inventory-service:10.0.0.3:8083";
+
+    private final InventoryOwnerLoadBalancer loadBalancer = new InventoryOwnerLoadBalancer(
+            new StaticListableBeanFactory(Map.of("supplier", ServiceInstanceListSuppliers.from("inventory-service",
+                    instance(NODE_2, "10.0.0.2"), instance(NODE_1, "10.0.0.1"), instance(NODE_3, "10.0.0.3"))))
+                    .getBeanProvider(ServiceInstanceListSupplier.class));
+
+    @Test
+    void routesOwnerKeyToRingOwner() {
+        assertThat(choose(1L)).isEqualTo(NODE_2);
+        assertThat(choose(2L)).isEqualTo(NODE_3);
+        assertThat(choose(7L)).isEqualTo(NODE_1);
+        assertThat(choose(16L)).isEqualTo(NODE_3);
+        assertThat(choose(30L)).isEqualTo(NODE_1);
+        assertThat(choose(37L)).isEqualTo(NODE_2);
+    }
+
+    @Test
+    void fallsBackToRoundRobinWithoutOwnerKey() {
+        assertThat(choose(null)).isIn(NODE_1, NODE_2, NODE_3);
+    }
+
+    private String choose(Long ownerKey) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ownerKey != null) {
+            headers.add(InventoryOwnerLoadBalancer.OWNER_KEY_HEADER, ownerKey.toString());
+        }
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext(new RequestData(
+                HttpMethod.POST, URI.create("http://inventory-service/api/v1/inventories/lock"), headers,
+                new LinkedMultiValueMap<>(), Map.of())));
+        Response<ServiceInstance> response = loadBalancer.choose(request).block();
+        assertThat(response).isNotNull();
+        return response.getServer().getInstanceId();
+    }
+
+    private static ServiceInstance instance(String instanceId, String host) {
+        return new DefaultServiceInstance(instanceId, "inventory-service", host, 8083, false);
+    }
+}
@@ -3,6 +3,10 @@ package com.commerce.product.clients;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * @author Yixi Wan
  * @date 2025/11/3 14:52
@@ -16,6 +20,19 @@ public class InventoryClientService {
     private InventoryFeignClient inventoryFeignClient;
 
     public InventoryResponse getInventoryByProductId(Long productId) {
-        return inventoryFeignClient.getInventoryByProductId(productId);
+        return inventoryFeignClient.getInventoryByProductId(productId, productId);
+    }
+
+    /** 批量查询库存，一次请求；不存在库存记录的商品不在结果中 */
+    public Map<Long, InventoryStock> getStockByProductIds(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        return inventoryFeignClient.queryInventories(new InventoryQueryRequest(List.copyOf(productIds)));
+    }
+
+    /** 全量有货位图，由 InStockIndex 反序列化 */
+    public byte[] getInStockBitmap() {
+        return inventoryFeignClient.getInStockBitmap();
     }
 }
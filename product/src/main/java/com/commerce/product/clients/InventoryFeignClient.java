@@ -1,8 +1,14 @@
 package com.commerce.product.clients;
 
+import com.commerce.product.clients.routing.InventoryOwnerLoadBalancer;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+import java.util.Map;
 
 /**
  * @author Yixi Wan
@@ -13,6 +19,15 @@ import org.springframework.web.bind.annotation.PathVariable;
  */
 @FeignClient(name = "inventory-service", path = "/api/v1")
 public interface InventoryFeignClient {
+    // ownerKey 为路由用的 productId，开启归属路由时发往持有该商品的库存实例
     @GetMapping("/inventories/product/{productId}")
-    InventoryResponse getInventoryByProductId(@PathVariable Long productId);
+    InventoryResponse getInventoryByProductId(@RequestHeader(InventoryOwnerLoadBalancer.OWNER_KEY_HEADER) Long ownerKey,
+                                              @PathVariable Long productId);
+
+    // 有货商品位图（Roaring portable 序列化）
+    @GetMapping("/inventories/in-stock")
+    byte[] getInStockBitmap();
+
+    @PostMapping("/inventories/query")
+    Map<Long, InventoryStock> queryInventories(@RequestBody InventoryQueryRequest request);
 }
@@ -16,4 +16,6 @@ public class InventoryResponse {
     private Integer lockedStock;
     private Integer soldStock;
     private String lastUpdated;
+    /** 库存版本（与 inventory-stock-updated 事件中的 version 一致） */
+    private Long version;
 }
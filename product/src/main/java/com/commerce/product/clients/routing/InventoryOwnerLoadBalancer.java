@@ -0,0 +1,95 @@
+package com.commerce.product.clients.routing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:30
+ * @package com.commerce.product.clients.routing
+ * <p>
+ * Description:
+ * inventory-service 的归属路由：请求头带 X-Inventory-Owner-Key（productId）时，
+ * 按一致性哈希选出持有该商品的实例；不带路由键（批量查询等）或持有者不在列表中时轮询。
+ * 路由视图与库存侧短暂不一致时，库存侧对非持有的商品走 MySQL，结果仍正确。
+ */
+public class InventoryOwnerLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String OWNER_KEY_HEADER = "X-Inventory-Owner-Key";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final AtomicInteger position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of());
+
+    public InventoryOwnerLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> supplierProvider) {
+        this.supplierProvider = supplierProvider;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        Long ownerKey = ownerKey(request);
+        return supplier.get(request).next().map(instances -> choose(instances, ownerKey));
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, Long ownerKey) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (ownerKey != null) {
+            String owner = ringFor(instances).ownerOf(ownerKey);
+            for (ServiceInstance instance : instances) {
+                if (Objects.equals(owner, instance.getInstanceId())) {
+                    return new DefaultResponse(instance);
+                }
+            }
+        }
+        return new DefaultResponse(instances.get(Math.floorMod(position.incrementAndGet(), instances.size())));
+    }
+
+    /** 实例列表未变化时复用已建好的环 */
+    private ConsistentHashRing ringFor(List<ServiceInstance> instances) {
+        List<String> members = instances.stream()
+                .map(ServiceInstance::getInstanceId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .toList();
+        ConsistentHashRing current = ring;
+        if (!current.members().equals(members)) {
+            current = new ConsistentHashRing(members);
+            ring = current;
+        }
+        return current;
+    }
+
+    private Long ownerKey(Request request) {
+        if (request == null || !(request.getContext() instanceof RequestDataContext context)
+                || context.getClientRequest() == null) {
+            return null;
+        }
+        String value = context.getClientRequest().getHeaders().getFirst(OWNER_KEY_HEADER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
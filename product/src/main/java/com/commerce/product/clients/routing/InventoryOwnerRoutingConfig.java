@@ -0,0 +1,20 @@
+package com.commerce.product.clients.routing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 03:35
+ * @package com.commerce.product.clients.routing
+ * <p>
+ * Description:
+ * product.inventory-routing.owner-hash=true 时，单商品库存查询按商品路由到持有实例
+ * （库存侧需开启 inventory.ownership.enabled）
+ */
+@Configuration
+@ConditionalOnProperty(name = "product.inventory-routing.owner-hash", havingValue = "true")
+@LoadBalancerClient(name = "inventory-service", configuration = InventoryOwnerLoadBalancerConfig.class)
+public class InventoryOwnerRoutingConfig {
+}
@@ -13,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.net.URI;
+import java.util.List;
 
 /**
  * @author Yixi Wan
@@ -40,8 +41,9 @@ class ProductController {
     public ResponseEntity<PagedProductResponse> getAllProducts(@RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
                                                                @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
                                                                @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCT_BY) String sortBy,
-                                                               @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER) String sortOrder) {
-        return ResponseEntity.ok(productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder));
+                                                               @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER) String sortOrder,
+                                                               @RequestParam(name = "inStockOnly", defaultValue = "false") boolean inStockOnly) {
+        return ResponseEntity.ok(productService.getAllProducts(pageNumber, pageSize, sortBy, sortOrder, inStockOnly));
     }
 
     @GetMapping("/categories/{categoryId}")
@@ -50,8 +52,9 @@ class ProductController {
                                                                       @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
                                                                       @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
                                                                       @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCT_BY) String sortBy,
-                                                                      @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER) String sortOrder) {
-        return ResponseEntity.ok(productService.searchByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder));
+                                                                      @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER) String sortOrder,
+                                                                      @RequestParam(name = "inStockOnly", defaultValue = "false") boolean inStockOnly) {
+        return ResponseEntity.ok(productService.searchByCategory(categoryId, pageNumber, pageSize, sortBy, sortOrder, inStockOnly));
     }
 
     @GetMapping("/keyword/{keyword}")
@@ -60,8 +63,9 @@ class ProductController {
                                                                      @RequestParam(name = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER) Integer pageNumber,
                                                                      @RequestParam(name = "pageSize", defaultValue = AppConstants.PAGE_SIZE) Integer pageSize,
                                                                      @RequestParam(name = "sortBy", defaultValue = AppConstants.SORT_PRODUCT_BY) String sortBy,
-                                                                     @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER) String sortOrder) {
-        return ResponseEntity.ok(productService.searchByKeyword(keyword, pageNumber, pageSize, sortBy, sortOrder));
+                                                                     @RequestParam(name = "sortOrder", defaultValue = AppConstants.SORT_ORDER) String sortOrder,
+                                                                     @RequestParam(name = "inStockOnly", defaultValue = "false") boolean inStockOnly) {
+        return ResponseEntity.ok(productService.searchByKeyword(keyword, pageNumber, pageSize, sortBy, sortOrder, inStockOnly));
     }
 
     @PutMapping("/{productId}")
@@ -83,6 +87,12 @@ class ProductController {
         return ResponseEntity.ok(productService.updateProductImage(productId, image));
     }
 
+    @PostMapping("/batch")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestBody List<Long> productIds) {
+        return ResponseEntity.ok(productService.getProductsByIds(productIds));
+    }
+
     @GetMapping("/{productId}")
     @PreAuthorize("permitAll()")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long productId) {
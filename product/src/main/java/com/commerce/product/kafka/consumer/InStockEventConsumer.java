@@ -0,0 +1,34 @@
+package com.commerce.product.kafka.consumer;
+
+import com.commerce.product.kafka.event.InStockEvent;
+import com.commerce.product.service.product.InStockIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 04:25
+ * @package com.commerce.product.kafka.consumer
+ * <p>
+ * Description:
+ * 监听 inventory-in-stock，增量更新本实例的有货位图。
+ * 每个实例使用独立的消费组，各自收到全部事件；只读新消息，历史状态由全量同步补齐。
+ */
+@Slf4j
+@Component
+class InStockEventConsumer {
+
+    @Autowired
+    private InStockIndex inStockIndex;
+
+    @KafkaListener(topics = "inventory-in-stock",
+            groupId = "product-in-stock-#{T(java.util.UUID).randomUUID().toString()}",
+            properties = "auto.offset.reset=latest")
+    public void handleInStockEvent(InStockEvent event) {
+        inStockIndex.apply(event);
+        log.debug("📩 Applied in-stock event: productId={}, inStock={}, version={}",
+                event.getProductId(), event.getInStock(), event.getVersion());
+    }
+}
@@ -8,16 +8,24 @@ import com.commerce.product.repository.ProductRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * @author Yixi Wan
  * @date 2025/11/3 14:16
  * @package com.commerce.product.kafka
  * <p>
  * Description:
+ * 事件自带提交后的库存快照与版本：按版本丢弃乱序 / 重复事件，直接写入缓存，不再回调库存服务。
+ * 未携带版本的旧格式事件仍走 Feign 查询。
  */
 @Slf4j
 @Component
@@ -31,6 +39,12 @@ class InventoryEventConsumer {
     @Autowired
     private ModelMapper modelMapper;
 
+    @Value("${cache.ttl.product}")
+    private Duration productCacheTtl;
+
+    private final RedisScript<Long> versionScript =
+            RedisScript.of(new ClassPathResource("lua/stock_version_advance.lua"), Long.class);
+
     /**
      * 监听库存变更事件（inventory-stock-updated）
      */
@@ -40,8 +54,8 @@ class InventoryEventConsumer {
         String eventType = event.getEventType();
         String cacheKey = "product_cache:" + productId;
 
-        log.info("📩 Received inventory event: productId={}, eventType={}, time={}",
-                productId, eventType, event.getEventTime());
+        log.info("📩 Received inventory event: productId={}, eventType={}, version={}, time={}",
+                productId, eventType, event.getVersion(), event.getEventTime());
 
         switch (eventType) {
             case "CREATE":
@@ -49,27 +63,37 @@ class InventoryEventConsumer {
             case "LOCK":
             case "RELEASE":
             case "CONFIRM":
+                if (event.getVersion() != null && !advanceVersion(productId, event.getVersion())) {
+                    log.info("⏭️ Skipped stale inventory event for productId={}, version={}",
+                            productId, event.getVersion());
+                    break;
+                }
                 productRepository.findById(productId).ifPresentOrElse(product -> {
                     // 映射为 DTO
                     ProductResponse response = modelMapper.map(product, ProductResponse.class);
 
-                    try {
-                        // ✅ 调用 Feign 客户端获取库存数据
-                        InventoryResponse inventory = inventoryClientService.getInventoryByProductId(productId);
-                        response.setAvailableStock(inventory.getAvailableStock());
-                    } catch (Exception e) {
-                        log.warn("⚠️ Failed to fetch inventory for productId={}, reason={}", productId, e.getMessage());
+                    if (event.getVersion() != null) {
+                        // ✅ 直接使用事件中的库存快照
+                        response.setAvailableStock(event.getAvailableStock());
+                    } else {
+                        try {
+                            // 旧格式事件：调用 Feign 客户端获取库存数据
+                            InventoryResponse inventory = inventoryClientService.getInventoryByProductId(productId);
+                            response.setAvailableStock(inventory.getAvailableStock());
+                        } catch (Exception e) {
+                            log.warn("⚠️ Failed to fetch inventory for productId={}, reason={}", productId, e.getMessage());
+                        }
                     }
 
                     // ✅ 更新缓存
-                    redisTemplate.opsForValue().set(cacheKey, response);
+                    redisTemplate.opsForValue().set(cacheKey, response, productCacheTtl);
                     log.info("✅ Refreshed product cache for productId={} after event={}", productId, eventType);
 
                 }, () -> log.warn("⚠️ Product not found for productId={}, skipping cache update.", productId));
                 break;
 
             case "DELETE":
-                redisTemplate.delete(cacheKey);
+                redisTemplate.delete(List.of(cacheKey, versionKey(productId)));
                 log.info("🗑️ Deleted product cache for productId={} due to DELETE event.", productId);
                 break;
 
@@ -79,7 +103,15 @@ class InventoryEventConsumer {
         }
     }
 
+    /** 原子比较并推进已应用版本，返回 false 表示事件已过期 */
+    private boolean advanceVersion(Long productId, Long version) {
+        Long advanced = redisTemplate.execute(versionScript, List.of(versionKey(productId)),
+                version, productCacheTtl.toSeconds());
+        return advanced != null && advanced == 1L;
+    }
 
-
-
+    // 库存版本现为操作计数（各预占模式与 MySQL 一致），换用新键，避免旧的时间戳版本压住新事件
+    private String versionKey(Long productId) {
+        return "product_stock_seq:" + productId;
+    }
 }
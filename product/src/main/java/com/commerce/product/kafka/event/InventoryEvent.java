@@ -27,21 +27,21 @@ public class InventoryEvent implements Serializable {
     /** 商品ID */
     private Long productId;
 
-    /** 可用库存 */
-//    private Integer availableStock;
-
-//    /** 锁定库存 */
-//    private Integer lockedStock;
-//
-//    /** 已售库存 */
-//    private Integer soldStock;
-//
-    /** 操作类型：LOCK / CONFIRM / RELEASE */
+    /** 可用库存（提交后的快照，DELETE 事件为空） */
+    private Integer availableStock;
+
+    /** 锁定库存 */
+    private Integer lockedStock;
+
+    /** 已售库存 */
+    private Integer soldStock;
+
+    /** 操作类型：CREATE / UPDATE / DELETE / LOCK / CONFIRM / RELEASE（合并后为窗口内最后一次操作） */
     private String eventType;
-//
+
     /** 事件发生时间 */
     private LocalDateTime eventTime;
-//
-//    /** 版本号（可选，用于乐观锁一致性） */
-//    private Integer version;
+
+    /** 库存版本，同一商品单调递增，消费方据此丢弃乱序事件 */
+    private Long version;
 }
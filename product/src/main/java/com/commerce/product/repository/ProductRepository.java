@@ -4,7 +4,11 @@ import com.commerce.product.model.Category;
 import com.commerce.product.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 
 /**
  * @author Yixi Wan
@@ -17,4 +21,14 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> findByCategory(Category category, Pageable pageable);
 
     Page<Product> findByProductNameContainingIgnoreCase(String keyword, Pageable pageable);
+
+    // 仅看有货：按排序分块只取主键（Slice 不做 count），与有货位图求交直到凑满一页
+    @Query("SELECT p.productId FROM Product p")
+    Slice<Long> findAllProductIds(Pageable pageable);
+
+    @Query("SELECT p.productId FROM Product p WHERE p.category = :category")
+    Slice<Long> findProductIdsByCategory(@Param("category") Category category, Pageable pageable);
+
+    @Query("SELECT p.productId FROM Product p WHERE LOWER(p.productName) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    Slice<Long> findProductIdsByKeyword(@Param("keyword") String keyword, Pageable pageable);
 }
@@ -0,0 +1,147 @@
+package com.commerce.product.service.product;
+
+import com.commerce.product.clients.InventoryClientService;
+import com.commerce.product.kafka.event.InStockEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 04:20
+ * @package com.commerce.product.service.product
+ * <p>
+ * Description:
+ * 有货商品位图（Roaring，压缩存储全部有货 productId），“仅看有货”列表在内存中与候选商品求交：
+ * 1. 启动后及每隔 resync-interval-ms 从库存服务拉取全量位图，整体替换
+ * 2. 期间按 inventory-in-stock 事件增量置位 / 清位（每个实例各自消费全部事件）
+ * 3. 全量拉取进行中收到的事件记下来，替换后在新位图上重放，避免被旧快照覆盖
+ * 首次同步成功前 isReady() 为 false，由调用方决定降级方式。
+ */
+@Component
+@Slf4j
+public class InStockIndex {
+
+    @Autowired
+    private InventoryClientService inventoryClientService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /** 读锁下只做 contains；修改与替换在写锁下 */
+    private Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+    /** 全量同步进行中收到的事件，非空表示正在同步 */
+    private List<InStockEvent> replay;
+    private volatile long size;
+    private volatile boolean ready;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("product.in_stock.index.size", () -> size)
+                .description("Products marked in stock in the local bitmap")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** 按原顺序保留有货的商品 */
+    public List<Long> retainInStock(List<Long> productIds) {
+        List<Long> inStock = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long productId : productIds) {
+                if (bitmap.contains(productId)) {
+                    inStock.add(productId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return inStock;
+    }
+
+    /** 应用一条有货状态变化事件 */
+    public void apply(InStockEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (replay != null) {
+                replay.add(event);
+            }
+            applyTo(bitmap, event);
+            size = bitmap.getLongCardinality();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        resync();
+    }
+
+    /** 拉取全量位图并替换，返回是否成功 */
+    @Scheduled(fixedDelayString = "${product.in-stock.resync-interval-ms:300000}",
+            initialDelayString = "${product.in-stock.resync-interval-ms:300000}")
+    public synchronized boolean resync() {
+        lock.writeLock().lock();
+        try {
+            replay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Roaring64NavigableMap next = new Roaring64NavigableMap();
+        try {
+            byte[] bytes = inventoryClientService.getInStockBitmap();
+            next.deserializePortable(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to sync in-stock bitmap, keeping current index (ready={}), reason={}",
+                    ready, e.getMessage());
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return false;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            replay.forEach(event -> applyTo(next, event));
+            replayed = replay.size();
+            replay = null;
+            bitmap = next;
+            size = next.getLongCardinality();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("✅ In-stock bitmap synced → products={}, replayedEvents={}", size, replayed);
+        return true;
+    }
+
+    private static void applyTo(Roaring64NavigableMap target, InStockEvent event) {
+        if (Boolean.TRUE.equals(event.getInStock())) {
+            target.addLong(event.getProductId());
+        } else {
+            target.removeLong(event.getProductId());
+        }
+    }
+}
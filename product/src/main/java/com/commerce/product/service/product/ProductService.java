@@ -6,6 +6,8 @@ import com.commerce.product.dto.product.ProductRequest;
 import com.commerce.product.dto.product.ProductResponse;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 /**
  * @author Yixi Wan
  * @date 2025/10/22 12:12
@@ -16,11 +18,14 @@ import org.springframework.web.multipart.MultipartFile;
 public interface ProductService {
     ProductResponse addProduct(Long categoryId, ProductRequest productRequest);
 
-    PagedProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+    PagedProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+                                        boolean inStockOnly);
 
-    PagedProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+    PagedProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+                                          boolean inStockOnly);
 
-    PagedProductResponse searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder);
+    PagedProductResponse searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+                                         boolean inStockOnly);
 
     ProductResponse updateProduct(Long productId, ProductRequest productRequest);
 
@@ -29,4 +34,6 @@ public interface ProductService {
     ProductResponse updateProductImage(Long productId, MultipartFile image);
 
     ProductResponse getProductById(Long productId);
+
+    List<ProductResponse> getProductsByIds(List<Long> productIds);
 }
@@ -3,10 +3,12 @@ package com.commerce.product.service.product;
 
 import com.commerce.product.clients.InventoryClientService;
 import com.commerce.product.clients.InventoryResponse;
+import com.commerce.product.clients.InventoryStock;
 import com.commerce.product.dto.product.PagedProductResponse;
 import com.commerce.product.dto.product.ProductRequest;
 import com.commerce.product.dto.product.ProductResponse;
 import com.commerce.product.dto.product.ProductSummary;
+import com.commerce.product.exceptions.ApiException;
 import com.commerce.product.exceptions.ResourceNotFoundException;
 import com.commerce.product.kafka.producer.ProductCacheEventProducer;
 import com.commerce.product.model.Category;
@@ -22,10 +24,13 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -33,7 +38,9 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 /**
  * @author Yixi Wan
@@ -43,6 +50,7 @@ import java.util.stream.Collectors;
  * Description:
  * 商品列表页调取时缓存每一个product Summary，更新时同步删除缓存
  * 商品详细页调取时缓存每一个product，更新时同步删除缓存
+ * 仅看有货（inStockOnly）：按排序分块取候选主键，在内存中与有货位图求交，凑满一页即停止，不逐个查询库存
  * todo 热点商品
  */
 @Service
@@ -56,10 +64,17 @@ public class ProductServiceImpl implements ProductService {
     private final FileStorageService fileStorageService;
     private final RedisTemplate<String, Object> redisTemplate;
     private final InventoryClientService inventoryClientService;
+    private final InStockIndex inStockIndex;
 
     @Value("${cache.ttl.product}")
     private Duration productCacheTtl;
 
+    @Value("${product.in-stock.scan-chunk-size:1000}")
+    private int inStockScanChunkSize;
+
+    @Value("${product.batch.max-product-ids:1000}")
+    private int maxBatchProductIds;
+
     // ========================= 商品创建 =========================
     @Override
     public ProductResponse addProduct(Long categoryId, ProductRequest productRequest) {
@@ -80,34 +95,83 @@ public class ProductServiceImpl implements ProductService {
     // ========================= 商品列表（全部 / 分类 / 搜索） =========================
 
     @Override
-    public PagedProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    public PagedProductResponse getAllProducts(Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+                                               boolean inStockOnly) {
         Pageable pageable = buildPageable(pageNumber, pageSize, sortBy, sortOrder);
+        if (inStockOnly) {
+            return getInStockPagedResponse(productRepository::findAllProductIds, pageable);
+        }
         Page<Product> productPage = productRepository.findAll(pageable);
         return getPagedSummaryResponse(productPage);
     }
 
     @Override
-    public PagedProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    public PagedProductResponse searchByCategory(Long categoryId, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+                                                 boolean inStockOnly) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "CategoryId", categoryId));
 
         Pageable pageable = buildPageable(pageNumber, pageSize, sortBy, sortOrder);
+        if (inStockOnly) {
+            return getInStockPagedResponse(chunk -> productRepository.findProductIdsByCategory(category, chunk),
+                    pageable);
+        }
         Page<Product> productPage = productRepository.findByCategory(category, pageable);
         return getPagedSummaryResponse(productPage);
     }
 
     @Override
-    public PagedProductResponse searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder) {
+    public PagedProductResponse searchByKeyword(String keyword, Integer pageNumber, Integer pageSize, String sortBy, String sortOrder,
+                                                boolean inStockOnly) {
         Pageable pageable = buildPageable(pageNumber, pageSize, sortBy, sortOrder);
+        if (inStockOnly) {
+            return getInStockPagedResponse(chunk -> productRepository.findProductIdsByKeyword(keyword, chunk),
+                    pageable);
+        }
         Page<Product> productPage = productRepository.findByProductNameContainingIgnoreCase(keyword, pageable);
         return getPagedSummaryResponse(productPage);
     }
 
+    // ------------------- 仅看有货：按排序分块取候选主键 ∩ 有货位图，凑满一页即停止 -------------------
+    // 提前停止时 totalElements 为下界（已数到的有货数 + 1），islastPage 准确
+    private PagedProductResponse getInStockPagedResponse(Function<Pageable, Slice<Long>> candidateIds, Pageable pageable) {
+        if (!inStockIndex.isReady() && !inStockIndex.resync()) {
+            throw new ApiException("In-stock filter is temporarily unavailable", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        // 主键兜底排序，保证分块之间顺序稳定
+        Sort sort = pageable.getSort().getOrderFor("productId") == null
+                ? pageable.getSort().and(Sort.by("productId"))
+                : pageable.getSort();
+
+        List<Long> content = new ArrayList<>();
+        long matched = 0;
+        boolean more = false;
+        Slice<Long> chunk;
+        int chunkNumber = 0;
+        do {
+            chunk = candidateIds.apply(PageRequest.of(chunkNumber++, inStockScanChunkSize, sort));
+            for (Long productId : inStockIndex.retainInStock(chunk.getContent())) {
+                if (content.size() == pageable.getPageSize()) {
+                    more = true;
+                    break;
+                }
+                if (matched++ >= pageable.getOffset()) {
+                    content.add(productId);
+                }
+            }
+        } while (!more && chunk.hasNext());
+
+        long total = more ? pageable.getOffset() + content.size() + 1 : matched;
+        return getPagedSummaryResponse(new PageImpl<>(content, pageable, total));
+    }
+
     // ------------------- 公共方法：统一列表页逻辑 -------------------
     private PagedProductResponse getPagedSummaryResponse(Page<Product> productPage) {
-        List<Long> productIds = productPage.getContent().stream()
-                .map(Product::getProductId)
-                .collect(Collectors.toList());
+        return getPagedSummaryResponse(productPage.map(Product::getProductId));
+    }
+
+    private PagedProductResponse getPagedSummaryResponse(Page<Long> productIdPage) {
+        List<Long> productIds = productIdPage.getContent();
 
         if (productIds.isEmpty()) {
             throw new ResourceNotFoundException("No products found");
@@ -152,11 +216,11 @@ public class ProductServiceImpl implements ProductService {
 
         return PagedProductResponse.builder()
                 .productSummaries(summaries)
-                .pageNumber(productPage.getNumber())
-                .pageSize(productPage.getSize())
-                .totalPages(productPage.getTotalPages())
-                .totalElements(productPage.getTotalElements())
-                .islastPage(productPage.isLast())
+                .pageNumber(productIdPage.getNumber())
+                .pageSize(productIdPage.getSize())
+                .totalPages(productIdPage.getTotalPages())
+                .totalElements(productIdPage.getTotalElements())
+                .islastPage(productIdPage.isLast())
                 .build();
     }
 
@@ -182,6 +246,36 @@ public class ProductServiceImpl implements ProductService {
         return response;
     }
 
+    // ========================= 批量查询（供订单批量下单校验） =========================
+    @Override
+    public List<ProductResponse> getProductsByIds(List<Long> productIds) {
+        // 与库存侧 inventory.query.max-product-ids 一致，避免单次请求放大成超大 IN 查询
+        List<Long> distinct = productIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.size() > maxBatchProductIds) {
+            throw new ApiException("Too many productIds in one batch, max is " + maxBatchProductIds,
+                    HttpStatus.BAD_REQUEST);
+        }
+        List<ProductResponse> responses = productRepository.findAllById(distinct).stream()
+                .map(product -> modelMapper.map(product, ProductResponse.class))
+                .toList();
+
+        // 一次批量请求补齐库存，失败时不影响商品信息返回
+        try {
+            Map<Long, InventoryStock> stock = inventoryClientService.getStockByProductIds(responses.stream()
+                    .map(ProductResponse::getProductId)
+                    .toList());
+            responses.forEach(response -> {
+                InventoryStock levels = stock.get(response.getProductId());
+                if (levels != null) {
+                    response.setAvailableStock(levels.getAvailableStock());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to fetch inventory for {} products, reason={}", responses.size(), e.getMessage());
+        }
+        return responses;
+    }
+
     // ========================= 商品更新 / 删除 =========================
 
     @Override
@@ -0,0 +1,9 @@
+-- 仅当事件版本大于已应用版本时推进，返回 1 表示应应用该事件，0 表示乱序/重复
+-- KEYS[1]: product_stock_seq:{productId}
+-- ARGV: version, ttlSeconds
+local applied = tonumber(redis.call('GET', KEYS[1]))
+if applied ~= nil and applied >= tonumber(ARGV[1]) then
+    return 0
+end
+redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+return 1
@@ -0,0 +1,73 @@
+package com.commerce.product.clients.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Yixi Wan
+ * @date 2026/10/20 07:40
+ * @package com.commerce.product.clients.routing
+ * <p>
+ * Description:
+ * 一致性哈希环的固定向量：inventory / order / product 各有一份相同的测试，
+ * 任一模块的算法漂移都会在这里失败，而不是让调用方悄悄发往非持有实例。
+ */
+class ConsistentHashRingGoldenTest {
+
+    private static final String NODE_1 = "inventory-service:10.0.0.1:8083";
+    private static final String NODE_2 = "inventory-service:10.0.0.2:8083";
+    private static final String NODE_3 = "inventory-service:10.0.0.3:8083";
+
+    private final ConsistentHashRing three = new ConsistentHashRing(List.of(NODE_3, NODE_1, NODE_2));
+    private final ConsistentHashRing two = new ConsistentHashRing(List.of(NODE_1, NODE_2));
+
+    @Test
+    void pinsOwnerOfSampleProducts() {
+        assertOwner(1L, NODE_2, NODE_2);
+        assertOwner(2L, NODE_3, NODE_2);
+        assertOwner(7L, NODE_1, NODE_1);
+        assertOwner(14L, NODE_2, NODE_2);
+        assertOwner(16L, NODE_3, NODE_1);
+        assertOwner(26L, NODE_3, NODE_1);
+        assertOwner(30L, NODE_1, NODE_1);
+        assertOwner(37L, NODE_2, NODE_2);
+    }
+
+    @Test
+    void pinsDistributionOfFirstTenThousandProducts() {
+        assertThat(countOwners(three)).isEqualTo(Map.of(NODE_1, 3681, NODE_2, 3306, NODE_3, 3013));
+        assertThat(countOwners(two)).isEqualTo(Map.of(NODE_1, 4786, NODE_2, 5214));
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsProducts() {
+        for (long productId = 1; productId <= 10_000; productId++) {
+            if (!NODE_3.equals(three.ownerOf(productId))) {
+                assertThat(two.ownerOf(productId)).isEqualTo(three.ownerOf(productId));
+            }
+        }
+    }
+
+    @Test
+    void emptyRingHasNoOwner() {
+        assertThat(new ConsistentHashRing(List.of()).ownerOf(1L)).isNull();
+    }
+
+    private void assertOwner(long productId, String withThree, String withTwo) {
+        assertThat(three.ownerOf(productId)).isEqualTo(withThree);
+        assertThat(two.ownerOf(productId)).isEqualTo(withTwo);
+    }
+
+    private Map<String, Integer> countOwners(ConsistentHashRing ring) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (long productId = 1; productId <= 10_000; productId++) {
+            counts.merge(ring.ownerOf(productId), 1, Integer::sum);
+        }
+        return counts;
+    }
+}